@@ -0,0 +1,127 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IPdfTextLocation;
+import com.itextpdf.pdfcleanup.autosweep.ICleanupStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the regions found by a cleanup strategy page by page. Every page is searched only when its regions
+ * are requested, and the page content recorded while searching it is handed over to the {@link PdfCleanUpTool},
+ * so that the page content stream isn't parsed once again when the page is cleaned up.
+ */
+final class AutoSweepPageRegionsIterator implements Iterator<PdfCleanUpPageRegions> {
+
+    private final PdfDocument pdfDocument;
+    private final PdfCleanUpTool cleanUpTool;
+    private ICleanupStrategy strategy;
+    private int pageNumber;
+    private PdfCleanUpPageRegions next;
+
+    /**
+     * Creates an iterator over the regions found by the strategy in the document.
+     *
+     * @param pdfDocument the document to be searched
+     * @param strategy    the cleanup strategy to be used
+     * @param cleanUpTool the tool which is to clean up the regions found
+     */
+    AutoSweepPageRegionsIterator(PdfDocument pdfDocument, ICleanupStrategy strategy, PdfCleanUpTool cleanUpTool) {
+        this.pdfDocument = pdfDocument;
+        this.strategy = strategy;
+        this.cleanUpTool = cleanUpTool;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && pageNumber < pdfDocument.getNumberOfPages()) {
+            next = findPageRegions(++pageNumber);
+        }
+        return next != null;
+    }
+
+    @Override
+    public PdfCleanUpPageRegions next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PdfCleanUpPageRegions result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private PdfCleanUpPageRegions findPageRegions(int pageNumber) {
+        RecordedPageContent content = RecordedPageContent.record(pdfDocument.getPage(pageNumber), strategy);
+        List<IPdfTextLocation> locations = new ArrayList<>();
+        for (IPdfTextLocation location : strategy.getResultantLocations()) {
+            if (location != null) {
+                locations.add(location);
+            }
+        }
+        Collections.sort(locations, new Comparator<IPdfTextLocation>() {
+            @Override
+            public int compare(IPdfTextLocation o1, IPdfTextLocation o2) {
+                Rectangle r1 = o1.getRectangle();
+                Rectangle r2 = o2.getRectangle();
+                if (r1.getY() == r2.getY()) {
+                    return r1.getX() == r2.getX() ? 0 : (r1.getX() < r2.getX() ? -1 : 1);
+                } else {
+                    return r1.getY() < r2.getY() ? -1 : 1;
+                }
+            }
+        });
+
+        float[] coordinates = new float[locations.size() * 4];
+        Color[] colors = new Color[locations.size()];
+        for (int i = 0; i < locations.size(); ++i) {
+            Rectangle rectangle = locations.get(i).getRectangle();
+            coordinates[i * 4] = rectangle.getX();
+            coordinates[i * 4 + 1] = rectangle.getY();
+            coordinates[i * 4 + 2] = rectangle.getWidth();
+            coordinates[i * 4 + 3] = rectangle.getHeight();
+            colors[i] = strategy.getRedactionColor(locations.get(i));
+        }
+        // reset strategy for next iteration
+        strategy = strategy.reset();
+
+        if (locations.isEmpty()) {
+            return null;
+        }
+        cleanUpTool.addRecordedPageContent(pageNumber, content);
+        return new PdfCleanUpPageRegions(pageNumber, coordinates, colors);
+    }
+}
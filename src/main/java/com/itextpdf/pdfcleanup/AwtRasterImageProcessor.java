@@ -0,0 +1,98 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.pdfcleanup.util.CleanUpImageUtil;
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * {@link IRasterImageProcessor} based on AWT, ImageIO and Apache Commons Imaging, see {@link CleanUpImageUtil}
+ * and {@link BandedImageCleaner}.
+ * <p>
+ * The instance is created, and the AWT classes are loaded, only when it is requested for the first time, so text
+ * and vector graphics clean up never initializes AWT.
+ */
+final class AwtRasterImageProcessor implements IRasterImageProcessor {
+
+    private static final AwtRasterImageProcessor INSTANCE = new AwtRasterImageProcessor();
+
+    private volatile boolean warmedUp;
+
+    private AwtRasterImageProcessor() {
+    }
+
+    /**
+     * Gets the shared instance of the processor.
+     *
+     * @return the processor
+     */
+    static IRasterImageProcessor getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public byte[] cleanUpImage(byte[] imageBytes, List<Rectangle> areasToBeCleaned) {
+        return CleanUpImageUtil.cleanUpImage(imageBytes, areasToBeCleaned);
+    }
+
+    @Override
+    public PdfStream cleanUpImageInBands(byte[] imageBytes, List<Rectangle> areasToBeCleaned, long memoryBudget,
+            PdfDocument document) throws IOException {
+        return BandedImageCleaner.cleanUp(imageBytes, areasToBeCleaned, memoryBudget, document);
+    }
+
+    @Override
+    public void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        // loads the color management system
+        ColorSpace.getInstance(ColorSpace.CS_sRGB).toRGB(new float[] {0, 0, 0});
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        List<Rectangle> areasToBeCleaned = Collections.singletonList(new Rectangle(0, 0, 1, 1));
+        // the first ImageIO call scans the plugins, cleaning the images up initializes the
+        // Java 2D rendering and the readers and writers of the most common formats
+        cleanUpImage(writeImage(image, "png"), areasToBeCleaned);
+        cleanUpImage(writeImage(image, "jpg"), areasToBeCleaned);
+        warmedUp = true;
+    }
+
+    private static byte[] writeImage(BufferedImage image, String formatName) {
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            ImageIO.write(image, formatName, output);
+            return output.toByteArray();
+        } catch (IOException e) {
+            throw new CleanUpImageUtil.CleanupImageHandlingUtilException(e.getMessage(), e);
+        }
+    }
+}
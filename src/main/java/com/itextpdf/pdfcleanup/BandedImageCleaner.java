@@ -0,0 +1,283 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.pdfcleanup.util.CleanUpHelperUtil;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Cleans up images which don't fit into the memory budget, see {@link CleanUpProperties#setImageMemoryBudget(long)}.
+ *
+ * <p>
+ * Only JPEG images are supported: they are passed to the cleaner as they are encoded, so the image is never held in
+ * memory decoded. Images in other formats would have to be decoded at once by
+ * {@link com.itextpdf.kernel.pdf.xobject.PdfImageXObject#getImageBytes()} to be read by ImageIO.
+ *
+ * <p>
+ * The image is read band by band with the ImageIO JPEG reader, every band is converted to 8-bit gray or RGB samples,
+ * cleaned and appended to a temporary file. The reader decodes the image from its beginning up to the end of every
+ * band, so the memory use is bounded by the band, but the decoding time grows with the number of bands. The
+ * resulting image stream opens the temporary file when it is written, compressing the samples with FlateDecode, and
+ * the file is deleted as soon as it has been read, or on exit of the virtual machine if it is never written.
+ */
+final class BandedImageCleaner {
+
+    /**
+     * Estimated size of a decoded pixel: the rasters of AWT images mostly store pixels as integers.
+     */
+    private static final int DECODED_PIXEL_SIZE = 4;
+
+    private static final int CLEANED_SAMPLE_VALUE = 0xFF;
+
+    private BandedImageCleaner() {
+    }
+
+    /**
+     * Estimates the size of the raster into which the image is decoded for the clean up.
+     *
+     * @param width  the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @return the estimated size of the decoded raster in bytes
+     */
+    static long getDecodedImageSize(long width, long height) {
+        return width * height * DECODED_PIXEL_SIZE;
+    }
+
+    /**
+     * Checks whether the image can be cleaned up band by band. Only JPEG images, i.e. images with DCTDecode as their
+     * only filter and no decode parameters, are supported. As the cleaned samples are written as 8-bit gray or
+     * RGB samples, the images whose dictionary entries refer to the original samples, i.e. images with a color space
+     * other than DeviceGray and DeviceRGB, a decode array, a color key mask or SMaskInData, and image masks are not
+     * supported either.
+     *
+     * @param imageStream image XObject stream
+     * @return true if the image can be cleaned up band by band, false otherwise
+     */
+    static boolean isSupported(PdfStream imageStream) {
+        PdfObject filter = imageStream.get(PdfName.Filter);
+        if (filter != null && filter.isArray() && ((PdfArray) filter).size() == 1) {
+            filter = ((PdfArray) filter).get(0);
+        }
+        if (!PdfName.DCTDecode.equals(filter) || imageStream.containsKey(PdfName.DecodeParms)) {
+            return false;
+        }
+        PdfObject colorSpace = imageStream.get(PdfName.ColorSpace);
+        if (!PdfName.DeviceGray.equals(colorSpace) && !PdfName.DeviceRGB.equals(colorSpace)) {
+            return false;
+        }
+        PdfObject mask = imageStream.get(PdfName.Mask);
+        return !imageStream.containsKey(PdfName.Decode) && (mask == null || !mask.isArray())
+                && !imageStream.containsKey(PdfName.SMaskInData)
+                && !Boolean.TRUE.equals(imageStream.getAsBool(PdfName.ImageMask));
+    }
+
+    /**
+     * Cleans up the image band by band.
+     *
+     * @param imageBytes       the encoded JPEG image
+     * @param areasToBeCleaned areas to be cleaned with coordinates in (0,1)x(0,1) image space
+     * @param memoryBudget     the memory budget for a decoded band in bytes
+     * @param document         the document the image stream will be written to
+     * @return the cleaned image stream or {@code null} if the image format isn't supported by ImageIO
+     * @throws IOException if the image can't be read or the temporary file can't be written
+     */
+    static PdfStream cleanUp(byte[] imageBytes, List<Rectangle> areasToBeCleaned, long memoryBudget,
+            PdfDocument document) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // the bands are read in increasing order of rows, so the stream is never sought backward
+                reader.setInput(imageInput, true, true);
+                return cleanUp(reader, areasToBeCleaned, memoryBudget, document);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static PdfStream cleanUp(ImageReader reader, List<Rectangle> areasToBeCleaned, long memoryBudget,
+            PdfDocument document) throws IOException {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        ImageTypeSpecifier rawType = reader.getRawImageType(0);
+        boolean gray = rawType != null && rawType.getBufferedImageType() == BufferedImage.TYPE_BYTE_GRAY;
+        int components = gray ? 1 : 3;
+        int bandHeight = (int) Math.max(1,
+                Math.min(height, memoryBudget / getDecodedImageSize(width, 1)));
+
+        int[][] pixelRects = new int[areasToBeCleaned.size()][];
+        for (int i = 0; i < pixelRects.length; ++i) {
+            pixelRects[i] = CleanUpHelperUtil.getImageRectToClean(areasToBeCleaned.get(i), width, height);
+        }
+
+        File samplesFile = File.createTempFile("pdfsweep", ".samples");
+        samplesFile.deleteOnExit();
+        boolean written = false;
+        try (OutputStream samplesOutput = new BufferedOutputStream(new FileOutputStream(samplesFile))) {
+            byte[] row = new byte[width * components];
+            int[] samples = new int[width];
+            for (int bandStart = 0; bandStart < height; bandStart += bandHeight) {
+                int bandRows = Math.min(bandHeight, height - bandStart);
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                readParam.setSourceRegion(new java.awt.Rectangle(0, bandStart, width, bandRows));
+                BufferedImage band = reader.read(0, readParam);
+                for (int y = 0; y < bandRows; ++y) {
+                    if (gray) {
+                        band.getRaster().getSamples(0, y, width, 1, 0, samples);
+                        for (int x = 0; x < width; ++x) {
+                            row[x] = (byte) samples[x];
+                        }
+                    } else {
+                        band.getRGB(0, y, width, 1, samples, 0, width);
+                        for (int x = 0; x < width; ++x) {
+                            row[3 * x] = (byte) (samples[x] >> 16);
+                            row[3 * x + 1] = (byte) (samples[x] >> 8);
+                            row[3 * x + 2] = (byte) samples[x];
+                        }
+                    }
+                    cleanRow(row, bandStart + y, width, components, pixelRects);
+                    samplesOutput.write(row);
+                }
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                samplesFile.delete();
+            }
+        }
+
+        PdfStream imageStream = new PdfStream(document, new TempFileInputStream(samplesFile));
+        imageStream.put(PdfName.Type, PdfName.XObject);
+        imageStream.put(PdfName.Subtype, PdfName.Image);
+        imageStream.put(PdfName.Width, new PdfNumber(width));
+        imageStream.put(PdfName.Height, new PdfNumber(height));
+        imageStream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        imageStream.put(PdfName.ColorSpace, gray ? PdfName.DeviceGray : PdfName.DeviceRGB);
+        return imageStream;
+    }
+
+    private static void cleanRow(byte[] row, int y, int width, int components, int[][] pixelRects) {
+        for (int[] rect : pixelRects) {
+            if (y < rect[1] || y >= rect[1] + rect[3]) {
+                continue;
+            }
+            int start = Math.max(rect[0], 0);
+            int end = Math.min(rect[0] + rect[2], width);
+            if (start < end) {
+                Arrays.fill(row, start * components, end * components, (byte) CLEANED_SAMPLE_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Input stream of a temporary file, which is opened on the first read and is closed and deleted as soon as it
+     * has been read to the end, because the stream of a {@link PdfStream} is not closed after being written. A file
+     * which is never read is deleted on exit of the virtual machine, unless the stream is closed before.
+     */
+    private static final class TempFileInputStream extends InputStream {
+        private final File file;
+        private InputStream input;
+        private boolean closed;
+
+        TempFileInputStream(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            InputStream fileInput = getInput();
+            if (fileInput == null) {
+                return -1;
+            }
+            int result = fileInput.read();
+            if (result < 0) {
+                close();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            InputStream fileInput = getInput();
+            if (fileInput == null) {
+                return -1;
+            }
+            int result = fileInput.read(b, off, len);
+            if (result < 0) {
+                close();
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (input != null) {
+                    input.close();
+                    input = null;
+                }
+            } finally {
+                file.delete();
+            }
+        }
+
+        private InputStream getInput() throws IOException {
+            if (input == null && !closed) {
+                input = new FileInputStream(file);
+            }
+            return input;
+        }
+    }
+}
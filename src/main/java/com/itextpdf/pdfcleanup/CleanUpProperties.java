@@ -25,14 +25,35 @@ package com.itextpdf.pdfcleanup;
 import com.itextpdf.commons.actions.contexts.IMetaInfo;
 import com.itextpdf.pdfcleanup.exceptions.CleanupExceptionMessageConstant;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Contains properties for {@link PdfCleanUpTool} operations.
  */
 public class CleanUpProperties {
 //test comment for sharpen
+    private static final long DEFAULT_PERSISTENT_IMAGES_CACHE_MAX_SIZE = 256L * 1024 * 1024;
+
     private IMetaInfo metaInfo;
     private boolean processAnnotations;
+    private boolean processText;
+    private boolean processPaths;
+    private boolean processImages;
+    private boolean processInlineImages;
+    private boolean flushPagesAfterCleanUp;
+    private boolean optimizeScannedPages;
+    private boolean singlePassAutoSweep;
     private Double overlapRatio;
+    private long imageMemoryBudget = Long.MAX_VALUE;
+    private boolean identifyImagesByContent;
+    private boolean cleanUpJpegImagesInDctDomain;
+    private long filteredImagesCacheBudget = Long.MAX_VALUE;
+    private boolean flushEvictedImages;
+    private String persistentImagesCacheDirectory;
+    private long persistentImagesCacheMaxSize = DEFAULT_PERSISTENT_IMAGES_CACHE_MAX_SIZE;
+    private final List<IImageRedactionCodec> imageRedactionCodecs = new ArrayList<>();
     private PathOffsetApproximationProperties offsetProperties = new PathOffsetApproximationProperties();
 
     /**
@@ -40,6 +61,10 @@ public class CleanUpProperties {
      */
     public CleanUpProperties() {
         processAnnotations = true;
+        processText = true;
+        processPaths = true;
+        processImages = true;
+        processInlineImages = true;
     }
 
     /**
@@ -86,6 +111,421 @@ public class CleanUpProperties {
         return this;
     }
 
+    /**
+     * Check if text will be processed.
+     * Default: {@code true}.
+     *
+     * @return {@code true} if text will be cleaned up by the {@link PdfCleanUpTool}
+     */
+    public boolean isProcessText() {
+        return processText;
+    }
+
+    /**
+     * Set if text will be processed. If it is not processed, the text within the cleanup regions is kept and the
+     * glyphs are not tested against the regions at all.
+     *
+     * @param processText whether text will be processed
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setProcessText(boolean processText) {
+        this.processText = processText;
+        return this;
+    }
+
+    /**
+     * Check if paths will be processed.
+     * Default: {@code true}.
+     *
+     * @return {@code true} if the filled, stroked and clipping paths will be cleaned up by the {@link PdfCleanUpTool}
+     */
+    public boolean isProcessPaths() {
+        return processPaths;
+    }
+
+    /**
+     * Set if paths will be processed. If they are not processed, the filled, stroked and clipping paths are written
+     * as they are, without being clipped by the cleanup regions.
+     *
+     * @param processPaths whether paths will be processed
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setProcessPaths(boolean processPaths) {
+        this.processPaths = processPaths;
+        return this;
+    }
+
+    /**
+     * Check if image XObjects will be processed.
+     * Default: {@code true}.
+     *
+     * @return {@code true} if image XObjects will be cleaned up by the {@link PdfCleanUpTool}
+     */
+    public boolean isProcessImages() {
+        return processImages;
+    }
+
+    /**
+     * Set if image XObjects will be processed. If they are not processed, the images are kept as they are and
+     * are neither decoded nor cached. Inline images are controlled by {@link #setProcessInlineImages(boolean)}.
+     *
+     * @param processImages whether image XObjects will be processed
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setProcessImages(boolean processImages) {
+        this.processImages = processImages;
+        return this;
+    }
+
+    /**
+     * Check if inline images will be processed.
+     * Default: {@code true}.
+     *
+     * @return {@code true} if inline images will be cleaned up by the {@link PdfCleanUpTool}
+     */
+    public boolean isProcessInlineImages() {
+        return processInlineImages;
+    }
+
+    /**
+     * Set if inline images will be processed. If they are not processed, the inline images are written as they are.
+     *
+     * @param processInlineImages whether inline images will be processed
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setProcessInlineImages(boolean processInlineImages) {
+        this.processInlineImages = processInlineImages;
+        return this;
+    }
+
+    /**
+     * Check if pages will be flushed to the {@link com.itextpdf.kernel.pdf.PdfWriter} as soon as they are cleaned up.
+     * Default: {@code false}.
+     *
+     * @return {@code true} if cleaned pages will be flushed right after their clean up
+     */
+    public boolean isFlushPagesAfterCleanUp() {
+        return flushPagesAfterCleanUp;
+    }
+
+    /**
+     * Set if pages will be flushed to the {@link com.itextpdf.kernel.pdf.PdfWriter} as soon as they are cleaned up.
+     * In this mode pages are processed in ascending order and every page, together with its content streams, is
+     * flushed right after its content and annotations have been handled. This keeps only one page in memory at
+     * a time, which is useful for big documents.
+     * <p>
+     * The resources of the page are not flushed with it. The original images and form XObjects, which may be shared
+     * with the pages which haven't been cleaned up yet, stay in memory until the document is closed. The images
+     * created by the clean up are kept in the cache of filtered images, so that they can be reused by other pages,
+     * and are flushed as soon as they are evicted from it, as with {@link #setFlushEvictedImages(boolean)}. Set the
+     * budget of the cache, see {@link #setFilteredImagesCacheBudget(long)}, to bound the memory they take: with the
+     * default budget all of them stay in memory until the document is closed.
+     * <p>
+     * Note that flushed pages can not be modified anymore, so this mode should not be used if the document is
+     * going to be post-processed after the clean up or if {@link PdfCleanUpTool#cleanUp()} is going to be called
+     * several times for the same pages.
+     *
+     * @param flushPagesAfterCleanUp whether pages will be flushed right after their clean up
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setFlushPagesAfterCleanUp(boolean flushPagesAfterCleanUp) {
+        this.flushPagesAfterCleanUp = flushPagesAfterCleanUp;
+        return this;
+    }
+
+    /**
+     * Check if scanned pages are cleaned up in the optimized way.
+     * Default: {@code false}.
+     *
+     * @return {@code true} if scanned pages are cleaned up in the optimized way
+     */
+    public boolean isOptimizeScannedPages() {
+        return optimizeScannedPages;
+    }
+
+    /**
+     * Set if scanned pages are cleaned up in the optimized way.
+     * <p>
+     * A scanned page only draws a single image XObject and, optionally, invisible text on top of it, like the
+     * text layer added by OCR. The image of such a page is cleaned up once with all the regions, and the invisible
+     * glyphs are removed if their bounding boxes intersect any region, without the glyph outlines being tested
+     * precisely and without the rest of the content being rewritten. Pages of other kinds, as well as all the pages
+     * if the overlap ratio is set, see {@link #setOverlapRatio(Double)}, or if text or images aren't processed,
+     * are always processed in the general way.
+     *
+     * @param optimizeScannedPages whether scanned pages are cleaned up in the optimized way
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setOptimizeScannedPages(boolean optimizeScannedPages) {
+        this.optimizeScannedPages = optimizeScannedPages;
+        return this;
+    }
+
+    /**
+     * Check if the auto sweep clean up looks for the areas of interest and cleans them up in a single pass.
+     * Default: {@code false}.
+     *
+     * @return {@code true} if the auto sweep clean up is performed in a single pass
+     */
+    public boolean isSinglePassAutoSweep() {
+        return singlePassAutoSweep;
+    }
+
+    /**
+     * Set if the auto sweep clean up of a {@link com.itextpdf.kernel.pdf.PdfDocument} looks for the areas of
+     * interest and cleans them up in a single pass.
+     * <p>
+     * By default all the pages are searched by the cleanup strategy first, and then the pages with the areas
+     * found are cleaned up, so that their content streams are tokenized and parsed twice. In the single pass mode
+     * every page is cleaned up right after it has been searched, and the operators recorded while searching it
+     * are reused instead of parsing its content stream once again. The locations found are never collected for
+     * the whole document, so this mode also suits documents with many pages, especially together with
+     * {@link #setFlushPagesAfterCleanUp(boolean)}.
+     *
+     * @param singlePassAutoSweep whether the auto sweep clean up is performed in a single pass
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setSinglePassAutoSweep(boolean singlePassAutoSweep) {
+        this.singlePassAutoSweep = singlePassAutoSweep;
+        return this;
+    }
+
+    /**
+     * Check if images are identified by their content when the results of their clean up are cached.
+     * Default: {@code false}.
+     *
+     * @return {@code true} if identical image objects share the results of their clean up
+     */
+    public boolean isIdentifyImagesByContent() {
+        return identifyImagesByContent;
+    }
+
+    /**
+     * Set if images are identified by their content when the results of their clean up are cached.
+     * <p>
+     * By default the clean up result of an image is reused only for the same image object. In this mode image
+     * objects with the same stream bytes and dictionary entries, like the copies of the same logo in a merged
+     * document, are cleaned up once for the same cleaned areas, and all of them are replaced with one image
+     * XObject. Calculating the content hash requires reading the raw bytes of every cleaned image once.
+     *
+     * @param identifyImagesByContent whether images are identified by their content
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setIdentifyImagesByContent(boolean identifyImagesByContent) {
+        this.identifyImagesByContent = identifyImagesByContent;
+        return this;
+    }
+
+    /**
+     * Check if JPEG images are cleaned up in the DCT coefficient domain.
+     * Default: {@code false}.
+     *
+     * @return {@code true} if JPEG images are cleaned up in the DCT coefficient domain
+     */
+    public boolean isCleanUpJpegImagesInDctDomain() {
+        return cleanUpJpegImagesInDctDomain;
+    }
+
+    /**
+     * Set if JPEG images are cleaned up in the DCT coefficient domain.
+     * <p>
+     * By default JPEG images are decoded, their cleaned areas are filled with white and the whole image is encoded
+     * again, which re-quantizes it. In this mode the baseline JPEG images are cleaned up without being decoded:
+     * only the 8x8 blocks which overlap the cleaned areas are changed, the blocks partially covered by the areas are
+     * re-quantized, and the rest of the image keeps its original quality. The pixels next to the edges of the areas
+     * may get slightly different values than in the original image, and the chroma samples covering both cleaned
+     * and kept pixels of the images with subsampled chroma are made neutral. The JPEG images which can't be cleaned
+     * up in this way, like progressive ones, are processed as by default.
+     *
+     * @param cleanUpJpegImagesInDctDomain whether JPEG images are cleaned up in the DCT coefficient domain
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setCleanUpJpegImagesInDctDomain(boolean cleanUpJpegImagesInDctDomain) {
+        this.cleanUpJpegImagesInDctDomain = cleanUpJpegImagesInDctDomain;
+        return this;
+    }
+
+    /**
+     * Gets the budget of the cache of filtered images, in bytes.
+     * Default: {@link Long#MAX_VALUE}, i.e. no budget.
+     *
+     * @return the filtered images cache budget
+     */
+    public long getFilteredImagesCacheBudget() {
+        return filteredImagesCacheBudget;
+    }
+
+    /**
+     * Sets the budget of the cache of filtered images, in bytes.
+     * <p>
+     * The results of image clean up are cached, so that an image drawn several times with the same cleaned areas
+     * is filtered only once and all its occurrences share one image XObject. Cached images are weighted by the size
+     * of their encoded data and the least recently used ones are evicted when the total size exceeds the budget.
+     * The statistics of the cache are available via {@link PdfCleanUpTool#getFilteredImagesCacheStatistics()}.
+     *
+     * @param filteredImagesCacheBudget the budget in bytes, 0 disables caching
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setFilteredImagesCacheBudget(long filteredImagesCacheBudget) {
+        if (filteredImagesCacheBudget < 0) {
+            throw new IllegalArgumentException(
+                    CleanupExceptionMessageConstant.FILTERED_IMAGES_CACHE_BUDGET_SHOULD_NOT_BE_NEGATIVE);
+        }
+        this.filteredImagesCacheBudget = filteredImagesCacheBudget;
+        return this;
+    }
+
+    /**
+     * Check if images evicted from the cache of filtered images will be flushed to the
+     * {@link com.itextpdf.kernel.pdf.PdfWriter}.
+     * Default: {@code false}.
+     *
+     * @return {@code true} if evicted images will be flushed
+     */
+    public boolean isFlushEvictedImages() {
+        return flushEvictedImages;
+    }
+
+    /**
+     * Set if images evicted from the cache of filtered images will be flushed to the
+     * {@link com.itextpdf.kernel.pdf.PdfWriter}, see {@link #setFilteredImagesCacheBudget(long)}. Flushing releases
+     * the encoded data of the evicted images, which otherwise stays in memory until the document is closed. Images
+     * which exceed the budget on their own are not cached and are flushed as well.
+     * Flushed images can not be modified anymore, so this mode should not be used if the document is going
+     * to be post-processed after the clean up.
+     *
+     * @param flushEvictedImages whether evicted images will be flushed
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setFlushEvictedImages(boolean flushEvictedImages) {
+        this.flushEvictedImages = flushEvictedImages;
+        return this;
+    }
+
+    /**
+     * Gets the directory of the persistent cache of filtered images.
+     * Default: {@code null}, i.e. no persistent cache.
+     *
+     * @return the persistent images cache directory
+     */
+    public String getPersistentImagesCacheDirectory() {
+        return persistentImagesCacheDirectory;
+    }
+
+    /**
+     * Sets the directory of the persistent cache of filtered images.
+     * <p>
+     * The persistent cache keeps the results of image clean up on disk, so that the same image cleaned in the same
+     * areas, e.g. a logo or a signature redacted in every document of a batch, is filtered only once across
+     * documents and processes. The results are identified by the content of the image, the cleaned pixels and
+     * the version of pdfSweep. Only the images which are cleaned without re-encoding the whole image, like
+     * uncompressed, FlateDecode and baseline JPEG images, are cached. The directory may be shared by concurrent
+     * processes.
+     *
+     * @param persistentImagesCacheDirectory the directory of the cache, {@code null} disables the persistent cache
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setPersistentImagesCacheDirectory(String persistentImagesCacheDirectory) {
+        this.persistentImagesCacheDirectory = persistentImagesCacheDirectory;
+        return this;
+    }
+
+    /**
+     * Gets the maximum size of the persistent cache of filtered images, in bytes.
+     * Default: 256 MB.
+     *
+     * @return the persistent images cache maximum size
+     */
+    public long getPersistentImagesCacheMaxSize() {
+        return persistentImagesCacheMaxSize;
+    }
+
+    /**
+     * Sets the maximum size of the persistent cache of filtered images, in bytes, see
+     * {@link #setPersistentImagesCacheDirectory(String)}. The least recently used results are deleted
+     * when the total size of the cache exceeds it.
+     *
+     * @param persistentImagesCacheMaxSize the maximum size in bytes
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setPersistentImagesCacheMaxSize(long persistentImagesCacheMaxSize) {
+        if (persistentImagesCacheMaxSize <= 0) {
+            throw new IllegalArgumentException(
+                    CleanupExceptionMessageConstant.PERSISTENT_IMAGES_CACHE_MAX_SIZE_SHOULD_BE_POSITIVE);
+        }
+        this.persistentImagesCacheMaxSize = persistentImagesCacheMaxSize;
+        return this;
+    }
+
+    /**
+     * Gets the image redaction codecs registered for the clean up.
+     *
+     * @return an unmodifiable list of the registered codecs, in the order of their registration
+     */
+    public List<IImageRedactionCodec> getImageRedactionCodecs() {
+        return Collections.unmodifiableList(imageRedactionCodecs);
+    }
+
+    /**
+     * Registers an image redaction codec. The images supported by the codec are cleaned up by it instead of
+     * the built-in image processing, see {@link IImageRedactionCodec}. The codecs registered here are consulted
+     * before the ones provided via {@link java.util.ServiceLoader}.
+     *
+     * @param codec the codec to be registered
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties addImageRedactionCodec(IImageRedactionCodec codec) {
+        this.imageRedactionCodecs.add(codec);
+        return this;
+    }
+
+    /**
+     * Gets the memory budget for the clean up of a single image, in bytes.
+     * Default: {@link Long#MAX_VALUE}, i.e. no budget.
+     *
+     * @return the image memory budget
+     */
+    public long getImageMemoryBudget() {
+        return imageMemoryBudget;
+    }
+
+    /**
+     * Sets the memory budget for the clean up of a single image, in bytes.
+     * <p>
+     * Images which can't be cleaned up directly in their encoded form are decoded into a raster, cleaned and
+     * encoded again. If the decoded raster, estimated at 4 bytes per pixel, doesn't fit into the budget, the image
+     * is decoded and cleaned in horizontal bands which fit into it. The cleaned samples are stored in a temporary
+     * file and compressed into the document when the image is written, so the whole decoded raster is never held in
+     * memory. Only JPEG images, which are read as they are encoded, are cleaned in bands, and only if they are
+     * DeviceGray or DeviceRGB images without a decode array, a color key mask or SMaskInData. Other images are
+     * always processed as a whole.
+     *
+     * @param imageMemoryBudget the image memory budget in bytes, should be positive
+     *
+     * @return this {@link CleanUpProperties} instance
+     */
+    public CleanUpProperties setImageMemoryBudget(long imageMemoryBudget) {
+        if (imageMemoryBudget <= 0) {
+            throw new IllegalArgumentException(CleanupExceptionMessageConstant.IMAGE_MEMORY_BUDGET_SHOULD_BE_POSITIVE);
+        }
+        this.imageMemoryBudget = imageMemoryBudget;
+        return this;
+    }
+
     /**
      * Gets the overlap ratio.
      * This is a value between 0 and 1 that indicates how much the content region should overlap with the redaction
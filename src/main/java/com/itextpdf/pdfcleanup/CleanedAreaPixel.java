@@ -0,0 +1,184 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
+
+import java.util.Arrays;
+
+/**
+ * The samples written into the pixels of an image which is cleaned up directly, i.e. without being converted into
+ * a raster image.
+ *
+ * <p>
+ * The cleaned areas of color images are filled with white, as they are when images are cleaned up as raster images
+ * or in the DCT coefficient domain. White is the maximum of the DeviceRGB and three-component ICCBased samples, the
+ * minimum of the DeviceCMYK and four-component ICCBased samples and the palette entry which is white for Indexed
+ * images, taking the decode array of the image into account. White palette entries consist of the maximum samples
+ * for gray and RGB base color spaces and of the minimum samples for CMYK ones.
+ *
+ * <p>
+ * The samples of single-component images, i.e. DeviceGray and one-component ICCBased images, and of images without
+ * color space, i.e. image masks, are set to zero regardless of the decode array, as the direct cleanup of gray
+ * images has always done.
+ */
+final class CleanedAreaPixel {
+
+    private final long bits;
+
+    private final int bitsPerPixel;
+
+    private CleanedAreaPixel(long bits, int bitsPerPixel) {
+        this.bits = bits;
+        this.bitsPerPixel = bitsPerPixel;
+    }
+
+    /**
+     * Gets the pixel the cleaned areas of the image are filled with.
+     *
+     * @param imageStream image XObject stream, its color space must be supported by the direct cleanup, see
+     *                    {@link PdfCleanUpFilter#getNumberOfComponentsForDirectCleanup(PdfStream)}
+     * @param bpc         the number of bits per component of the image
+     * @return the cleaned area pixel or {@code null} if the image has no white color, e.g. an Indexed image without
+     * white in its palette
+     */
+    static CleanedAreaPixel create(PdfStream imageStream, int bpc) {
+        PdfObject colorSpace = imageStream.get(PdfName.ColorSpace);
+        if (colorSpace != null && colorSpace.isArray()
+                && PdfName.Indexed.equals(((PdfArray) colorSpace).getAsName(0))) {
+            if (!isSupported(imageStream)) {
+                return null;
+            }
+            return new CleanedAreaPixel(findWhitePaletteIndex((PdfArray) colorSpace), bpc);
+        }
+        int componentsCount = PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(imageStream);
+        if (componentsCount == 1) {
+            return new CleanedAreaPixel(0, bpc);
+        }
+
+        // white is the maximum of additive and the minimum of subtractive components
+        boolean whiteIsMaximum = componentsCount != 4;
+        PdfArray decode = imageStream.getAsArray(PdfName.Decode);
+        long maxSample = (1L << bpc) - 1;
+        long bits = 0;
+        for (int i = 0; i < componentsCount; ++i) {
+            boolean maximum = whiteIsMaximum != isDecodeInverted(decode, i);
+            bits = (bits << bpc) | (maximum ? maxSample : 0);
+        }
+        return new CleanedAreaPixel(bits, bpc * componentsCount);
+    }
+
+    /**
+     * Checks whether the image has a white color the cleaned areas can be filled with. Indexed images are supported
+     * only if their palette has a white entry and they have no decode array.
+     *
+     * @param imageStream image XObject stream, its color space must be supported by the direct cleanup
+     * @return true if the cleaned areas of the image can be filled, false otherwise
+     */
+    static boolean isSupported(PdfStream imageStream) {
+        PdfObject colorSpace = imageStream.get(PdfName.ColorSpace);
+        if (colorSpace != null && colorSpace.isArray()
+                && PdfName.Indexed.equals(((PdfArray) colorSpace).getAsName(0))) {
+            return !imageStream.containsKey(PdfName.Decode) && findWhitePaletteIndex((PdfArray) colorSpace) >= 0;
+        }
+        return true;
+    }
+
+    /**
+     * Fills the pixels in range [startPixel, endPixel) of the image row starting at rowOffset.
+     *
+     * @param bytes      the image samples
+     * @param rowOffset  the offset of the row in bytes
+     * @param startPixel the first pixel to be filled
+     * @param endPixel   the pixel following the last pixel to be filled
+     */
+    void fill(byte[] bytes, int rowOffset, long startPixel, long endPixel) {
+        long startBit = startPixel * bitsPerPixel;
+        long endBit = endPixel * bitsPerPixel;
+        if (bits == 0) {
+            PdfCleanUpFilter.clearBits(bytes, rowOffset, startBit, endBit);
+        } else if (bitsPerPixel % 8 == 0) {
+            int bytesPerPixel = bitsPerPixel / 8;
+            int offset = rowOffset + (int) (startBit >> 3);
+            for (long pixel = startPixel; pixel < endPixel; ++pixel) {
+                for (int i = bytesPerPixel - 1; i >= 0; --i) {
+                    bytes[offset++] = (byte) (bits >>> (i * 8));
+                }
+            }
+        } else {
+            for (long bit = startBit; bit < endBit; ++bit) {
+                int shift = bitsPerPixel - 1 - (int) ((bit - startBit) % bitsPerPixel);
+                int index = rowOffset + (int) (bit >> 3);
+                int mask = 0x80 >> (int) (bit & 7);
+                if (((bits >>> shift) & 1) == 0) {
+                    bytes[index] = (byte) (bytes[index] & ~mask);
+                } else {
+                    bytes[index] = (byte) (bytes[index] | mask);
+                }
+            }
+        }
+    }
+
+    private static boolean isDecodeInverted(PdfArray decode, int component) {
+        if (decode == null || decode.size() < component * 2 + 2) {
+            return false;
+        }
+        PdfNumber min = decode.getAsNumber(component * 2);
+        PdfNumber max = decode.getAsNumber(component * 2 + 1);
+        return min != null && max != null && min.doubleValue() > max.doubleValue();
+    }
+
+    private static int findWhitePaletteIndex(PdfArray indexed) {
+        PdfNumber hival = indexed.getAsNumber(2);
+        PdfObject lookup = indexed.get(3);
+        byte[] palette = null;
+        if (lookup instanceof PdfString) {
+            palette = ((PdfString) lookup).getValueBytes();
+        } else if (lookup instanceof PdfStream) {
+            palette = ((PdfStream) lookup).getBytes();
+        }
+        if (hival == null || palette == null) {
+            return -1;
+        }
+        int baseComponentsCount = PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(indexed.get(1), false);
+        if (baseComponentsCount == 0) {
+            return -1;
+        }
+        int entriesCount = Math.min(hival.intValue() + 1, palette.length / baseComponentsCount);
+        byte[] white = new byte[baseComponentsCount];
+        // white is the maximum of additive and the minimum of subtractive components
+        Arrays.fill(white, baseComponentsCount == 4 ? (byte) 0 : (byte) 0xFF);
+        for (int i = 0; i < entriesCount; ++i) {
+            int entryOffset = i * baseComponentsCount;
+            if (Arrays.equals(white, Arrays.copyOfRange(palette, entryOffset, entryOffset + baseComponentsCount))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -29,93 +29,290 @@ import com.itextpdf.kernel.pdf.PdfStream;
 import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 class FilteredImagesCache {
-    private Map<PdfIndirectReference, List<FilteredImageKey>> cache = new HashMap<>();
+    /**
+     * Filtered images in the order of their last access, the least recently used first.
+     */
+    private Map<CacheKey, CachedImage> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Map<PdfIndirectReference, ImageContentHash> contentHashes = new HashMap<>();
+
+    private Map<PdfIndirectReference, Boolean> originalCsCompatibilities = new HashMap<>();
+
+    /**
+     * Images released by the cache which are to be flushed after they have been added to the resources.
+     */
+    private List<PdfStream> releasedImages = new ArrayList<>();
+
+    private final long budget;
+
+    private final boolean flushEvictedImages;
+
+    private long cachedBytes;
+
+    private long hitsCount;
+
+    private long missesCount;
+
+    private long evictionsCount;
+
+    private long evictedBytes;
+
+    FilteredImagesCache() {
+        this(Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Creates a cache of filtered images.
+     *
+     * @param budget             the maximum total size of the encoded data of cached images in bytes, the least
+     *                           recently used images are evicted when it is exceeded
+     * @param flushEvictedImages whether evicted images, and the images which exceed the budget on their own,
+     *                           are flushed to the writer
+     */
+    FilteredImagesCache(long budget, boolean flushEvictedImages) {
+        this.budget = budget;
+        this.flushEvictedImages = flushEvictedImages;
+    }
 
     static FilteredImageKey createFilteredImageKey(PdfImageXObject image, List<Rectangle> areasToBeCleaned, PdfDocument document) {
+        return createFilteredImageKey(image, areasToBeCleaned, document, false);
+    }
+
+    static FilteredImageKey createFilteredImageKey(PdfImageXObject image, List<Rectangle> areasToBeCleaned,
+            PdfDocument document, boolean identifyImageByContent) {
         PdfStream imagePdfObject = image.getPdfObject();
         if (imagePdfObject.getIndirectReference() == null) {
             imagePdfObject.makeIndirect(document);
         }
-        return new FilteredImageKey(image, areasToBeCleaned);
+        return new FilteredImageKey(image, areasToBeCleaned, identifyImageByContent);
     }
 
     /**
      * Retrieves saved result of image filtering based on given set of cleaning areas.
-     * This won't handle the case when same filtering result is produced by different sets of areas,
-     * e.g. if one set is { (0, 0, 50, 100), (50, 0, 50, 100)} and another one is {(0, 0, 100, 100)},
-     * even though filtering results are essentially the same, current {@link FilteredImagesCache}
-     * will treat this two cases as different filtering results.
+     * The areas are compared by the image pixels they clean, see {@link ImagePixelAreas}, so the same filtering
+     * result is found for differently split sets of areas, e.g. if one set is { (0, 0, 50, 100), (50, 0, 50, 100)}
+     * and another one is {(0, 0, 100, 100)}.
      *
      * @param imageKey the defining filtering case
      * @return result of image filtering based on given set of cleaning areas if such was already processed and saved,
      * null otherwise.
      */
     PdfImageXObject get(FilteredImageKey imageKey) {
-        List<FilteredImageKey> cachedFilteredImageKeys = cache.get(imageKey.getImageIndRef());
-        if (cachedFilteredImageKeys != null) {
-            for (FilteredImageKey cacheKey : cachedFilteredImageKeys) {
-                if (rectanglesEqualWithEps(cacheKey.getCleanedAreas(), imageKey.getCleanedAreas())) {
-                    return cacheKey.getFilteredImage();
-                }
-            }
+        if (imageKey.getCleanedAreas() == null || imageKey.getCleanedAreas().isEmpty()) {
+            return null;
         }
-        return null;
+        CachedImage cachedImage = cache.get(new CacheKey(getImageIdentity(imageKey), imageKey.getPixelAreas()));
+        if (cachedImage == null) {
+            ++missesCount;
+            return null;
+        }
+        ++hitsCount;
+        return cachedImage.image;
     }
 
+    /**
+     * Saves the result of image filtering. The filtered image should not be modified after it has been saved,
+     * because it may be evicted and flushed right away.
+     *
+     * @param imageKey      the defining filtering case
+     * @param filteredImage result of image filtering
+     */
     void put(FilteredImageKey imageKey, PdfImageXObject filteredImage) {
         if (imageKey.getCleanedAreas() == null || imageKey.getCleanedAreas().isEmpty()) {
             return;
         }
-        List<FilteredImageKey> filteredImageKeys = cache.get(imageKey.getImageIndRef());
-        if (filteredImageKeys == null) {
-            cache.put(imageKey.getImageIndRef(), filteredImageKeys = new ArrayList<>());
-        }
-        filteredImageKeys.add(imageKey);
         imageKey.setFilteredImage(filteredImage);
+        long size = getEncodedSize(filteredImage);
+        if (size > budget) {
+            // the image is about to be added to the resources, so it is flushed later
+            if (flushEvictedImages) {
+                releasedImages.add(filteredImage.getPdfObject());
+            }
+            return;
+        }
+        CachedImage previous = cache.put(new CacheKey(getImageIdentity(imageKey), imageKey.getPixelAreas()),
+                new CachedImage(filteredImage, size));
+        if (previous != null) {
+            cachedBytes -= previous.size;
+        }
+        cachedBytes += size;
+        evict();
     }
 
-    private boolean rectanglesEqualWithEps(List<Rectangle> cacheRects, List<Rectangle> keyRects) {
-        if (keyRects == null || cacheRects.size() != keyRects.size()) {
-            return false;
-        }
+    /**
+     * Gets the statistics of the cache.
+     *
+     * @return the snapshot of the cache statistics
+     */
+    FilteredImagesCacheStatistics getStatistics() {
+        return new FilteredImagesCacheStatistics(hitsCount, missesCount, evictionsCount, cache.size(), cachedBytes,
+                evictedBytes);
+    }
 
-        Set<Rectangle> cacheRectsSet = new LinkedHashSet<>(cacheRects);
-        for (Rectangle keyArea : keyRects) {
-            boolean found = false;
-            for (Rectangle cacheArea : cacheRectsSet) {
-                if (keyArea.equalsWithEpsilon(cacheArea)) {
-                    found = true;
-                    cacheRectsSet.remove(cacheArea);
-                    break;
+    private void evict() {
+        Iterator<CachedImage> cachedImages = cache.values().iterator();
+        while (cachedBytes > budget && cachedImages.hasNext()) {
+            CachedImage evictedImage = cachedImages.next();
+            cachedImages.remove();
+            cachedBytes -= evictedImage.size;
+            evictedBytes += evictedImage.size;
+            ++evictionsCount;
+            PdfStream evictedStream = evictedImage.image.getPdfObject();
+            if (flushEvictedImages && !evictedStream.isFlushed()) {
+                if (evictedStream.getIndirectReference() != null) {
+                    evictedStream.flush();
+                } else {
+                    // images which have not been added to any resources yet can't be flushed
+                    releasedImages.add(evictedStream);
                 }
             }
-            if (!found) {
-                break;
+        }
+    }
+
+    /**
+     * Flushes the released images which have been added to resources since they were released. Images which are
+     * released by the cache can't be found in it anymore, so they are not modified or drawn again by the clean up.
+     */
+    void flushReleasedImages() {
+        for (PdfStream releasedImage : releasedImages) {
+            if (releasedImage.getIndirectReference() != null && !releasedImage.isFlushed()) {
+                releasedImage.flush();
+            }
+        }
+        releasedImages.clear();
+    }
+
+    private static long getEncodedSize(PdfImageXObject image) {
+        PdfStream stream = image.getPdfObject();
+        // streams which read their data from an input stream when written don't hold the data in memory
+        return stream.getOutputStream() == null ? 0 : stream.getOutputStream().getCurrentPos();
+    }
+
+    private Object getImageIdentity(FilteredImageKey imageKey) {
+        if (!imageKey.isIdentifiedByContent()) {
+            return imageKey.getImageIndRef();
+        }
+        return getContentHash(imageKey);
+    }
+
+    /**
+     * Gets the content hash of the image, calculated once per image object.
+     *
+     * @param imageKey the defining filtering case
+     * @return the content hash of the image
+     */
+    ImageContentHash getContentHash(FilteredImageKey imageKey) {
+        // the same image object is usually drawn many times, so its hash is calculated once
+        ImageContentHash contentHash = contentHashes.get(imageKey.getImageIndRef());
+        if (contentHash == null) {
+            contentHash = ImageContentHash.calculate(imageKey.getImageXObject().getPdfObject());
+            contentHashes.put(imageKey.getImageIndRef(), contentHash);
+        }
+        return contentHash;
+    }
+
+    /**
+     * Gets the saved decision whether the color space of the original image is applicable to its filtered images.
+     *
+     * @param imageKey the defining filtering case
+     * @return the saved decision or null if it hasn't been made for the image yet
+     */
+    Boolean getOriginalCsCompatibility(FilteredImageKey imageKey) {
+        return originalCsCompatibilities.get(imageKey.getImageIndRef());
+    }
+
+    /**
+     * Saves the decision whether the color space of the original image is applicable to its filtered images.
+     * Filtered images of the same original image are encoded the same way, so the decision is made once per image.
+     *
+     * @param imageKey     the defining filtering case
+     * @param csCompatible whether the color space of the original image is applicable
+     */
+    void putOriginalCsCompatibility(FilteredImageKey imageKey, boolean csCompatible) {
+        originalCsCompatibilities.put(imageKey.getImageIndRef(), csCompatible);
+    }
+
+    private static final class CachedImage {
+        private final PdfImageXObject image;
+        private final long size;
+
+        CachedImage(PdfImageXObject image, long size) {
+            this.image = image;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Key of the cached filtering result: image identity, which is either the image indirect reference or its
+     * {@link ImageContentHash}, and the canonical pixel areas cleaned in the image.
+     */
+    private static final class CacheKey {
+        private final Object imageIdentity;
+        private final ImagePixelAreas pixelAreas;
+
+        CacheKey(Object imageIdentity, ImagePixelAreas pixelAreas) {
+            this.imageIdentity = imageIdentity;
+            this.pixelAreas = pixelAreas;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
             }
+            CacheKey that = (CacheKey) o;
+            return imageIdentity.equals(that.imageIdentity) && pixelAreas.equals(that.pixelAreas);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * imageIdentity.hashCode() + pixelAreas.hashCode();
         }
-        return cacheRectsSet.isEmpty();
     }
 
     static class FilteredImageKey {
         private PdfImageXObject image;
         private List<Rectangle> cleanedAreas;
         private PdfImageXObject filteredImage;
+        private boolean identifiedByContent;
+        private ImagePixelAreas pixelAreas;
 
         FilteredImageKey(PdfImageXObject image, List<Rectangle> cleanedAreas) {
+            this(image, cleanedAreas, false);
+        }
+
+        FilteredImageKey(PdfImageXObject image, List<Rectangle> cleanedAreas, boolean identifiedByContent) {
             this.image = image;
             this.cleanedAreas = cleanedAreas;
+            this.identifiedByContent = identifiedByContent;
         }
 
         List<Rectangle> getCleanedAreas() {
             return cleanedAreas;
         }
 
+        /**
+         * Gets the cleaned areas snapped to the pixel grid of the image. Should be called only if the cleaned
+         * areas are not null.
+         *
+         * @return the canonical pixel areas cleaned in the image
+         */
+        ImagePixelAreas getPixelAreas() {
+            if (pixelAreas == null) {
+                pixelAreas = ImagePixelAreas.create(cleanedAreas, (int) image.getWidth(), (int) image.getHeight());
+            }
+            return pixelAreas;
+        }
+
         PdfImageXObject getImageXObject() {
             return image;
         }
@@ -124,6 +321,10 @@ class FilteredImagesCache {
             return image.getPdfObject().getIndirectReference();
         }
 
+        boolean isIdentifiedByContent() {
+            return identifiedByContent;
+        }
+
         PdfImageXObject getFilteredImage() {
             return filteredImage;
         }
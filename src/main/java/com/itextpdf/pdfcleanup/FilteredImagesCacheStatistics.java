@@ -0,0 +1,101 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+/**
+ * Snapshot of the statistics of the cache of filtered images, which allows reusing the results of image clean up
+ * for images drawn several times with the same cleaned areas. See
+ * {@link CleanUpProperties#setFilteredImagesCacheBudget(long)}.
+ */
+public final class FilteredImagesCacheStatistics {
+    private final long hitsCount;
+    private final long missesCount;
+    private final long evictionsCount;
+    private final int cachedImagesCount;
+    private final long cachedBytes;
+    private final long evictedBytes;
+
+    FilteredImagesCacheStatistics(long hitsCount, long missesCount, long evictionsCount, int cachedImagesCount,
+            long cachedBytes, long evictedBytes) {
+        this.hitsCount = hitsCount;
+        this.missesCount = missesCount;
+        this.evictionsCount = evictionsCount;
+        this.cachedImagesCount = cachedImagesCount;
+        this.cachedBytes = cachedBytes;
+        this.evictedBytes = evictedBytes;
+    }
+
+    /**
+     * Gets the number of lookups which found an already filtered image.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitsCount() {
+        return hitsCount;
+    }
+
+    /**
+     * Gets the number of lookups which required the image to be filtered.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissesCount() {
+        return missesCount;
+    }
+
+    /**
+     * Gets the number of filtered images evicted from the cache because of its budget.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionsCount() {
+        return evictionsCount;
+    }
+
+    /**
+     * Gets the number of filtered images currently held in the cache.
+     *
+     * @return the number of cached images
+     */
+    public int getCachedImagesCount() {
+        return cachedImagesCount;
+    }
+
+    /**
+     * Gets the total size of the encoded data of the filtered images currently held in the cache.
+     *
+     * @return the size of the cached images in bytes
+     */
+    public long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Gets the total size of the encoded data of the filtered images evicted from the cache.
+     *
+     * @return the size of the evicted images in bytes
+     */
+    public long getEvictedBytes() {
+        return evictedBytes;
+    }
+}
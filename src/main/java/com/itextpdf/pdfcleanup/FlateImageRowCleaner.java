@@ -0,0 +1,257 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.io.source.DeflaterOutputStream;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cleans up the samples of FlateDecode images row by row, without decoding the whole image.
+ *
+ * <p>
+ * The image data is inflated one row at a time, the predictor is undone, the cleaned pixels are filled, see
+ * {@link CleanedAreaPixel}, and the row is predicted and deflated straight into the output. Rows which are not
+ * affected by the cleanup are written as they were encoded. A truncated last row is dropped if it is affected by the
+ * cleanup. Only a few rows are held in memory besides the encoded input and output.
+ */
+final class FlateImageRowCleaner {
+
+    private static final int PNG_PREDICTOR_SUB = 1;
+    private static final int PNG_PREDICTOR_UP = 2;
+    private static final int PNG_PREDICTOR_AVERAGE = 3;
+    private static final int PNG_PREDICTOR_PAETH = 4;
+
+    private FlateImageRowCleaner() {
+    }
+
+    /**
+     * Checks whether FlateDecode is the only filter of the image and its predictor is supported.
+     *
+     * @param imageStream image XObject stream
+     * @return true if the image can be cleaned up row by row, false otherwise
+     */
+    static boolean isSupported(PdfStream imageStream) {
+        PdfObject filter = imageStream.get(PdfName.Filter);
+        if (filter != null && filter.isArray() && ((PdfArray) filter).size() == 1) {
+            filter = ((PdfArray) filter).get(0);
+        }
+        if (!PdfName.FlateDecode.equals(filter) && !PdfName.Fl.equals(filter)) {
+            return false;
+        }
+        int predictor = getIntParam(getDecodeParams(imageStream), PdfName.Predictor, 1);
+        if (predictor == 2) {
+            return getIntParam(getDecodeParams(imageStream), PdfName.BitsPerComponent, 8) == 8;
+        }
+        return predictor == 1 || (predictor >= 10 && predictor <= 15);
+    }
+
+    /**
+     * Cleans up the image, see {@link #isSupported(PdfStream)}.
+     *
+     * @param imageStream  image XObject stream
+     * @param rowLength    the length of the decoded image row in bytes
+     * @param height       the number of image rows
+     * @param cleanedPixel the pixel the cleaned areas are filled with
+     * @param pixelAreas   the pixel areas to be cleaned
+     * @return the encoded image data or {@code null} if the predictor parameters do not match the image
+     * @throws IOException if the image data can't be inflated
+     */
+    static byte[] cleanUp(PdfStream imageStream, int rowLength, int height, CleanedAreaPixel cleanedPixel,
+            ImagePixelAreas pixelAreas) throws IOException {
+        PdfDictionary decodeParams = getDecodeParams(imageStream);
+        int predictor = getIntParam(decodeParams, PdfName.Predictor, 1);
+        int bytesPerPixel = 1;
+        int tiffColors = 1;
+        if (predictor != 1) {
+            int colors = getIntParam(decodeParams, PdfName.Colors, 1);
+            int bpc = getIntParam(decodeParams, PdfName.BitsPerComponent, 8);
+            int columns = getIntParam(decodeParams, PdfName.Columns, 1);
+            if ((colors * bpc * columns + 7) / 8 != rowLength) {
+                return null;
+            }
+            bytesPerPixel = Math.max(1, colors * bpc / 8);
+            tiffColors = colors;
+        }
+        boolean png = predictor >= 10;
+        byte[] encodedRow = new byte[png ? rowLength + 1 : rowLength];
+        byte[] row = new byte[rowLength];
+        byte[] previousRow = new byte[rowLength];
+        byte[] cleanedRow = new byte[rowLength];
+        byte[] previousCleanedRow = new byte[rowLength];
+        boolean previousRowCleaned = false;
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = new InflaterInputStream(new ByteArrayInputStream(imageStream.getBytes(false)));
+                DeflaterOutputStream deflater = new DeflaterOutputStream(output,
+                        CompressionConstants.DEFAULT_COMPRESSION)) {
+            int band = 0;
+            for (int j = 0; j < height; ++j) {
+                int read = readFully(input, encodedRow);
+                while (band < pixelAreas.getBandsCount() && pixelAreas.getBandEnd(band) <= j) {
+                    ++band;
+                }
+                int[] intervals = band < pixelAreas.getBandsCount() && pixelAreas.getBandStart(band) <= j
+                        ? pixelAreas.getBandIntervals(band) : null;
+                if (read < encodedRow.length) {
+                    // a truncated row is kept as is only if it isn't affected by the cleanup, otherwise it is
+                    // dropped, so that neither the cleaned pixels nor the pixels predicted from them are kept
+                    if (intervals == null && !(png && previousRowCleaned)) {
+                        deflater.write(encodedRow, 0, read);
+                    }
+                    break;
+                }
+
+                if (png) {
+                    unfilterPngRow(encodedRow, previousRow, row, bytesPerPixel);
+                } else if (predictor == 2) {
+                    for (int i = 0; i < rowLength; ++i) {
+                        row[i] = (byte) (encodedRow[i] + (i >= tiffColors ? row[i - tiffColors] : 0));
+                    }
+                } else {
+                    System.arraycopy(encodedRow, 0, row, 0, rowLength);
+                }
+
+                // PNG predictors refer to the previous row, so the row is encoded anew if the previous one changed
+                boolean rowCleaned = intervals != null;
+                if (rowCleaned || (png && previousRowCleaned)) {
+                    System.arraycopy(row, 0, cleanedRow, 0, rowLength);
+                    if (rowCleaned) {
+                        for (int k = 0; k < intervals.length; k += 2) {
+                            cleanedPixel.fill(cleanedRow, 0, intervals[k], intervals[k + 1]);
+                        }
+                    }
+                    if (png) {
+                        filterPngRow(cleanedRow, previousRowCleaned ? previousCleanedRow : previousRow,
+                                encodedRow, bytesPerPixel);
+                    } else if (predictor == 2) {
+                        for (int i = 0; i < rowLength; ++i) {
+                            encodedRow[i] = (byte) (cleanedRow[i] - (i >= tiffColors ? cleanedRow[i - tiffColors] : 0));
+                        }
+                    } else {
+                        System.arraycopy(cleanedRow, 0, encodedRow, 0, rowLength);
+                    }
+                    byte[] temp = previousCleanedRow;
+                    previousCleanedRow = cleanedRow;
+                    cleanedRow = temp;
+                }
+                deflater.write(encodedRow);
+                previousRowCleaned = rowCleaned;
+
+                byte[] temp = previousRow;
+                previousRow = row;
+                row = temp;
+            }
+            // data exceeding the image rows is kept as is
+            int read;
+            while ((read = input.read(encodedRow)) > 0) {
+                deflater.write(encodedRow, 0, read);
+            }
+            deflater.finish();
+        }
+        return output.toByteArray();
+    }
+
+    private static void unfilterPngRow(byte[] encodedRow, byte[] previousRow, byte[] row, int bytesPerPixel) {
+        int filterType = encodedRow[0];
+        for (int i = 0; i < row.length; ++i) {
+            int left = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xff : 0;
+            int upLeft = i >= bytesPerPixel ? previousRow[i - bytesPerPixel] & 0xff : 0;
+            row[i] = (byte) (encodedRow[i + 1] + predict(filterType, left, previousRow[i] & 0xff, upLeft));
+        }
+    }
+
+    private static void filterPngRow(byte[] row, byte[] previousRow, byte[] encodedRow, int bytesPerPixel) {
+        // the filter type chosen by the original encoder is kept
+        int filterType = encodedRow[0];
+        for (int i = 0; i < row.length; ++i) {
+            int left = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xff : 0;
+            int upLeft = i >= bytesPerPixel ? previousRow[i - bytesPerPixel] & 0xff : 0;
+            encodedRow[i + 1] = (byte) (row[i] - predict(filterType, left, previousRow[i] & 0xff, upLeft));
+        }
+    }
+
+    private static int predict(int filterType, int left, int up, int upLeft) {
+        switch (filterType) {
+            case PNG_PREDICTOR_SUB:
+                return left;
+            case PNG_PREDICTOR_UP:
+                return up;
+            case PNG_PREDICTOR_AVERAGE:
+                return (left + up) / 2;
+            case PNG_PREDICTOR_PAETH:
+                return paethPredictor(left, up, upLeft);
+            default:
+                return 0;
+        }
+    }
+
+    private static int paethPredictor(int left, int up, int upLeft) {
+        int p = left + up - upLeft;
+        int pa = Math.abs(p - left);
+        int pb = Math.abs(p - up);
+        int pc = Math.abs(p - upLeft);
+        if (pa <= pb && pa <= pc) {
+            return left;
+        } else if (pb <= pc) {
+            return up;
+        }
+        return upLeft;
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = input.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static PdfDictionary getDecodeParams(PdfStream imageStream) {
+        PdfObject decodeParams = imageStream.get(PdfName.DecodeParms);
+        if (decodeParams != null && decodeParams.isArray()) {
+            decodeParams = ((PdfArray) decodeParams).size() > 0 ? ((PdfArray) decodeParams).get(0) : null;
+        }
+        return decodeParams != null && decodeParams.isDictionary() ? (PdfDictionary) decodeParams : null;
+    }
+
+    private static int getIntParam(PdfDictionary decodeParams, PdfName key, int defaultValue) {
+        PdfNumber value = decodeParams == null ? null : decodeParams.getAsNumber(key);
+        return value == null ? defaultValue : value.intValue();
+    }
+}
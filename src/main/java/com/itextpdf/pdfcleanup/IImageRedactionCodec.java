@@ -0,0 +1,71 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+
+import java.util.List;
+
+/**
+ * Codec which cleans up image XObjects. Codecs are consulted before the built-in image processing of pdfSweep,
+ * which stays in place as the fallback: an image is cleaned up by pdfSweep itself if no codec supports it or if
+ * every supporting codec returns {@code null}. Codecs are registered via
+ * {@link CleanUpProperties#addImageRedactionCodec(IImageRedactionCodec)} or as {@link java.util.ServiceLoader}
+ * providers, and are consulted in the order of their registration, the explicitly registered ones first.
+ * <p>
+ * The same codec instance may be used for several documents and by several threads.
+ */
+public interface IImageRedactionCodec {
+
+    /**
+     * Checks whether the codec handles the image, e.g. whether it is able to decode the filters of the image
+     * and to write its color space.
+     *
+     * @param image the image to be cleaned up
+     *
+     * @return {@code true} if the image is handled by the codec
+     */
+    boolean isSupported(PdfImageXObject image);
+
+    /**
+     * Cleans up the areas of the image. The original image must not be modified.
+     * <p>
+     * The returned stream replaces the original image, so its dictionary must describe the image completely,
+     * e.g. a copy of the original image dictionary with the new encoding. Masks of the image are cleaned up by
+     * pdfSweep and replace the SMask and Mask entries of the returned stream.
+     *
+     * @param image            the image to be cleaned up
+     * @param areasToBeCleaned the areas to be cleaned in the (0,1)x(0,1) image space, the origin is
+     *                         the lower left corner of the image, see
+     *                         {@link com.itextpdf.pdfcleanup.util.CleanUpHelperUtil#getImageRectToClean} for
+     *                         their pixel coordinates
+     * @param document         the document the cleaned image will be written to
+     *
+     * @return the cleaned image stream or {@code null} if the codec can't process this image after all,
+     * in which case the image is passed to the next codec and finally to the built-in processing
+     */
+    PdfStream cleanUp(PdfImageXObject image, List<Rectangle> areasToBeCleaned, PdfDocument document);
+}
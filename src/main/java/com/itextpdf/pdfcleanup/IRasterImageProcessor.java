@@ -0,0 +1,65 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Processor of images in the common image formats, which are decoded into rasters for the clean up. It isolates
+ * the image codec infrastructure (AWT, ImageIO and Apache Commons Imaging) from the rest of pdfSweep, so that
+ * the infrastructure is only initialized when an image actually has to be cleaned up this way.
+ */
+interface IRasterImageProcessor {
+
+    /**
+     * Cleans up the image, keeping its format.
+     *
+     * @param imageBytes       the image in one of the common image formats
+     * @param areasToBeCleaned areas to be cleaned with coordinates in (0,1)x(0,1) image space
+     * @return the cleaned image in the same format
+     */
+    byte[] cleanUpImage(byte[] imageBytes, List<Rectangle> areasToBeCleaned);
+
+    /**
+     * Cleans up the image band by band, see {@link CleanUpProperties#setImageMemoryBudget(long)}.
+     *
+     * @param imageBytes       the encoded JPEG image
+     * @param areasToBeCleaned areas to be cleaned with coordinates in (0,1)x(0,1) image space
+     * @param memoryBudget     the memory budget for a decoded band in bytes
+     * @param document         the document the image stream will be written to
+     * @return the cleaned image stream or {@code null} if the image format isn't supported
+     * @throws IOException if the image can't be read or the temporary file can't be written
+     */
+    PdfStream cleanUpImageInBands(byte[] imageBytes, List<Rectangle> areasToBeCleaned, long memoryBudget,
+            PdfDocument document) throws IOException;
+
+    /**
+     * Initializes the image codec infrastructure, so that the first clean up of an image doesn't pay for it.
+     */
+    void warmUp();
+}
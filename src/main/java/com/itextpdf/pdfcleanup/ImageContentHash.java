@@ -0,0 +1,162 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Identifies an image XObject by its content rather than by its indirect reference, so that identical copies
+ * of the same image, e.g. in merged documents, are recognized as the same image.
+ *
+ * <p>
+ * The hash is a SHA-256 digest of the raw stream bytes and of all the dictionary entries, except for the stream
+ * length. Objects referenced from the dictionary, like soft masks and ICC profiles, are hashed by their content
+ * too. A cryptographic digest is used because a collision would make the clean up reuse the result of a different
+ * image.
+ */
+final class ImageContentHash {
+
+    /**
+     * Objects nested deeper are identified by their indirect references, which is safe but prevents sharing.
+     */
+    private static final int MAX_DEPTH = 16;
+
+    private final byte[] digest;
+
+    private final int hash;
+
+    private ImageContentHash(byte[] digest) {
+        this.digest = digest;
+        this.hash = Arrays.hashCode(digest);
+    }
+
+    /**
+     * Calculates the content hash of the image stream.
+     *
+     * @param imageStream the image XObject stream
+     * @return the content hash of the image
+     */
+    static ImageContentHash calculate(PdfStream imageStream) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PdfException(e);
+        }
+        update(messageDigest, imageStream, 0);
+        return new ImageContentHash(messageDigest.digest());
+    }
+
+    /**
+     * @return a copy of the SHA-256 digest of the image
+     */
+    byte[] getDigest() {
+        return digest.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Arrays.equals(digest, ((ImageContentHash) o).digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private static void update(MessageDigest digest, PdfObject object, int depth) {
+        if (object != null && object.isIndirectReference()) {
+            object = ((PdfIndirectReference) object).getRefersTo();
+        }
+        if (object == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        PdfIndirectReference reference = object.getIndirectReference();
+        if (depth > MAX_DEPTH && reference != null) {
+            digest.update((byte) 1);
+            updateWithBytes(digest, ByteBuffer.allocate(8).putInt(reference.getObjNumber())
+                    .putInt(reference.getGenNumber()).array());
+            return;
+        }
+        digest.update(object.getType());
+        if (object.isStream()) {
+            updateWithDictionary(digest, (PdfDictionary) object, depth);
+            updateWithBytes(digest, ((PdfStream) object).getBytes(false));
+        } else if (object.isDictionary()) {
+            updateWithDictionary(digest, (PdfDictionary) object, depth);
+        } else if (object.isArray()) {
+            PdfArray array = (PdfArray) object;
+            digest.update(ByteBuffer.allocate(4).putInt(array.size()).array());
+            for (int i = 0; i < array.size(); ++i) {
+                update(digest, array.get(i, false), depth + 1);
+            }
+        } else if (object.isString()) {
+            updateWithBytes(digest, ((PdfString) object).getValueBytes());
+        } else {
+            updateWithBytes(digest, object.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void updateWithDictionary(MessageDigest digest, PdfDictionary dictionary, int depth) {
+        List<PdfName> keys = new ArrayList<>(dictionary.keySet());
+        // the order of entries doesn't matter
+        Collections.sort(keys);
+        for (PdfName key : keys) {
+            if (dictionary.isStream() && PdfName.Length.equals(key)) {
+                continue;
+            }
+            updateWithBytes(digest, key.getValue().getBytes(StandardCharsets.UTF_8));
+            update(digest, dictionary.get(key, false), depth + 1);
+        }
+        digest.update((byte) 0);
+    }
+
+    private static void updateWithBytes(MessageDigest digest, byte[] bytes) {
+        byte[] data = bytes == null ? new byte[0] : bytes;
+        digest.update(ByteBuffer.allocate(4).putInt(data.length).array());
+        digest.update(data);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.pdfcleanup.util.CleanUpHelperUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Areas of an image to be cleaned up, snapped to the pixel grid of the image and normalized into horizontal bands.
+ *
+ * <p>
+ * Each band is a range of image rows [start, end) with a sorted list of disjoint pixel intervals [start, end) to be
+ * cleaned in every row of the band. Overlapping areas are merged and adjacent bands with the same intervals are
+ * joined, so that the same set of cleaned pixels always has the same representation, regardless of how the
+ * original areas were split. Rows are counted from the top of the image, as the samples are stored.
+ */
+final class ImagePixelAreas {
+
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int W = 2;
+    private static final int H = 3;
+
+    private final int[] bandStarts;
+
+    private final int[] bandEnds;
+
+    private final int[][] bandIntervals;
+
+    private final int hash;
+
+    private ImagePixelAreas(int[] bandStarts, int[] bandEnds, int[][] bandIntervals) {
+        this.bandStarts = bandStarts;
+        this.bandEnds = bandEnds;
+        this.bandIntervals = bandIntervals;
+        int result = Arrays.hashCode(bandStarts);
+        result = 31 * result + Arrays.hashCode(bandEnds);
+        for (int[] intervals : bandIntervals) {
+            result = 31 * result + Arrays.hashCode(intervals);
+        }
+        this.hash = result;
+    }
+
+    /**
+     * Creates pixel areas of an image from the areas to be cleaned.
+     *
+     * @param areas  areas to be cleaned in the (0,1)x(0,1) image space
+     * @param width  width of the image in pixels
+     * @param height height of the image in pixels
+     * @return pixel areas of the image
+     */
+    static ImagePixelAreas create(List<Rectangle> areas, int width, int height) {
+        List<int[]> pixelRects = new ArrayList<>(areas.size());
+        TreeSet<Integer> rowBoundaries = new TreeSet<>();
+        for (Rectangle area : areas) {
+            int[] rect = CleanUpHelperUtil.getImageRectToClean(area, width, height);
+            int startX = Math.max(rect[X], 0);
+            int endX = Math.min(rect[X] + rect[W], width);
+            int startY = Math.max(rect[Y], 0);
+            int endY = Math.min(rect[Y] + rect[H], height);
+            if (startX < endX && startY < endY) {
+                pixelRects.add(new int[] {startX, startY, endX, endY});
+                rowBoundaries.add(startY);
+                rowBoundaries.add(endY);
+            }
+        }
+
+        List<Integer> starts = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        List<int[]> intervals = new ArrayList<>();
+        Integer bandStart = rowBoundaries.isEmpty() ? null : rowBoundaries.first();
+        while (bandStart != null) {
+            Integer bandEnd = rowBoundaries.higher(bandStart);
+            if (bandEnd == null) {
+                break;
+            }
+            int[] bandIntervals = mergeIntervals(pixelRects, (int) bandStart);
+            if (bandIntervals.length > 0) {
+                int last = starts.size() - 1;
+                if (last >= 0 && ends.get(last).equals(bandStart) && Arrays.equals(intervals.get(last), bandIntervals)) {
+                    ends.set(last, bandEnd);
+                } else {
+                    starts.add(bandStart);
+                    ends.add(bandEnd);
+                    intervals.add(bandIntervals);
+                }
+            }
+            bandStart = bandEnd;
+        }
+
+        int[] bandStarts = new int[starts.size()];
+        int[] bandEnds = new int[ends.size()];
+        for (int i = 0; i < bandStarts.length; ++i) {
+            bandStarts[i] = (int) starts.get(i);
+            bandEnds[i] = (int) ends.get(i);
+        }
+        return new ImagePixelAreas(bandStarts, bandEnds, intervals.toArray(new int[intervals.size()][]));
+    }
+
+    /**
+     * @return the number of bands
+     */
+    int getBandsCount() {
+        return bandStarts.length;
+    }
+
+    /**
+     * @param band index of the band
+     * @return the first row of the band
+     */
+    int getBandStart(int band) {
+        return bandStarts[band];
+    }
+
+    /**
+     * @param band index of the band
+     * @return the row after the last row of the band
+     */
+    int getBandEnd(int band) {
+        return bandEnds[band];
+    }
+
+    /**
+     * @param band index of the band
+     * @return flattened [start, end) pixel intervals of the band, sorted and disjoint
+     */
+    int[] getBandIntervals(int band) {
+        return bandIntervals[band];
+    }
+
+    /**
+     * @return true if there are no pixels to be cleaned
+     */
+    boolean isEmpty() {
+        return bandStarts.length == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ImagePixelAreas that = (ImagePixelAreas) o;
+        return hash == that.hash && Arrays.equals(bandStarts, that.bandStarts)
+                && Arrays.equals(bandEnds, that.bandEnds) && Arrays.deepEquals(bandIntervals, that.bandIntervals);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Merges horizontal intervals of all the rectangles covering the given row.
+     */
+    private static int[] mergeIntervals(List<int[]> pixelRects, int row) {
+        List<int[]> rowIntervals = new ArrayList<>();
+        for (int[] rect : pixelRects) {
+            if (rect[1] <= row && row < rect[3]) {
+                rowIntervals.add(new int[] {rect[0], rect[2]});
+            }
+        }
+        if (rowIntervals.isEmpty()) {
+            return new int[0];
+        }
+        int[][] sorted = rowIntervals.toArray(new int[rowIntervals.size()][]);
+        Arrays.sort(sorted, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                return Integer.compare(o1[0], o2[0]);
+            }
+        });
+        int[] merged = new int[sorted.length * 2];
+        int count = 0;
+        for (int[] interval : sorted) {
+            if (count > 0 && interval[0] <= merged[count - 1]) {
+                merged[count - 1] = Math.max(merged[count - 1], interval[1]);
+            } else {
+                merged[count++] = interval[0];
+                merged[count++] = interval[1];
+            }
+        }
+        return Arrays.copyOf(merged, count);
+    }
+}
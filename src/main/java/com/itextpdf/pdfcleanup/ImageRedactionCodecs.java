@@ -0,0 +1,70 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Collects the image redaction codecs to be used for the clean up, see {@link IImageRedactionCodec}.
+ */
+final class ImageRedactionCodecs {
+
+    private ImageRedactionCodecs() {
+        // Empty constructor
+    }
+
+    /**
+     * Gets the codecs registered in the clean up properties followed by the codecs provided via
+     * {@link ServiceLoader}.
+     *
+     * @param properties the clean up properties
+     * @return the codecs in the order they are consulted
+     */
+    static List<IImageRedactionCodec> getCodecs(CleanUpProperties properties) {
+        List<IImageRedactionCodec> serviceCodecs = ServiceCodecsHolder.CODECS;
+        if (serviceCodecs.isEmpty()) {
+            return properties.getImageRedactionCodecs();
+        }
+        List<IImageRedactionCodec> codecs = new ArrayList<>(properties.getImageRedactionCodecs());
+        codecs.addAll(serviceCodecs);
+        return codecs;
+    }
+
+    /**
+     * Providers are looked up once, when the codecs are requested for the first time.
+     */
+    private static final class ServiceCodecsHolder {
+        private static final List<IImageRedactionCodec> CODECS = loadCodecs();
+
+        private static List<IImageRedactionCodec> loadCodecs() {
+            List<IImageRedactionCodec> codecs = new ArrayList<>();
+            for (IImageRedactionCodec codec : ServiceLoader.load(IImageRedactionCodec.class)) {
+                codecs.add(codec);
+            }
+            return Collections.unmodifiableList(codecs);
+        }
+    }
+}
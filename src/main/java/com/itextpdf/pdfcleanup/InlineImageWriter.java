@@ -0,0 +1,179 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.io.source.ByteUtils;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfOutputStream;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfVersion;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes inline images to a content stream as they have been parsed: the image dictionary with the abbreviated
+ * names of its keys, color spaces and filters, followed by the raw image data, which is copied without being
+ * decoded. Unlike {@link PdfCanvas#addImageWithTransformationMatrix}, which writes an image converted to
+ * {@link com.itextpdf.io.image.ImageData}, this keeps the original encoding of the image and its color space.
+ */
+final class InlineImageWriter {
+
+    private static final byte[] BI = ByteUtils.getIsoBytes("BI\n");
+
+    private static final byte[] ID = ByteUtils.getIsoBytes("ID ");
+
+    private static final byte[] EI = ByteUtils.getIsoBytes("EI\n");
+
+    private static final Map<PdfName, PdfName> KEY_ABBREVIATIONS = new HashMap<>();
+
+    private static final Map<PdfName, PdfName> COLOR_SPACE_ABBREVIATIONS = new HashMap<>();
+
+    private static final Map<PdfName, PdfName> FILTER_ABBREVIATIONS = new HashMap<>();
+
+    static {
+        KEY_ABBREVIATIONS.put(PdfName.BitsPerComponent, PdfName.BPC);
+        KEY_ABBREVIATIONS.put(PdfName.ColorSpace, PdfName.CS);
+        KEY_ABBREVIATIONS.put(PdfName.Decode, PdfName.D);
+        KEY_ABBREVIATIONS.put(PdfName.DecodeParms, PdfName.DP);
+        KEY_ABBREVIATIONS.put(PdfName.Filter, PdfName.F);
+        KEY_ABBREVIATIONS.put(PdfName.Height, PdfName.H);
+        KEY_ABBREVIATIONS.put(PdfName.ImageMask, PdfName.IM);
+        KEY_ABBREVIATIONS.put(PdfName.Interpolate, PdfName.I);
+        KEY_ABBREVIATIONS.put(PdfName.Width, PdfName.W);
+
+        COLOR_SPACE_ABBREVIATIONS.put(PdfName.DeviceGray, PdfName.G);
+        COLOR_SPACE_ABBREVIATIONS.put(PdfName.DeviceRGB, PdfName.RGB);
+        COLOR_SPACE_ABBREVIATIONS.put(PdfName.DeviceCMYK, PdfName.CMYK);
+        COLOR_SPACE_ABBREVIATIONS.put(PdfName.Indexed, PdfName.I);
+
+        FILTER_ABBREVIATIONS.put(PdfName.ASCIIHexDecode, PdfName.AHx);
+        FILTER_ABBREVIATIONS.put(PdfName.ASCII85Decode, PdfName.A85);
+        FILTER_ABBREVIATIONS.put(PdfName.LZWDecode, PdfName.LZW);
+        FILTER_ABBREVIATIONS.put(PdfName.FlateDecode, PdfName.Fl);
+        FILTER_ABBREVIATIONS.put(PdfName.RunLengthDecode, PdfName.RL);
+        FILTER_ABBREVIATIONS.put(PdfName.CCITTFaxDecode, PdfName.CCF);
+        FILTER_ABBREVIATIONS.put(PdfName.DCTDecode, PdfName.DCT);
+    }
+
+    private InlineImageWriter() {
+        // Empty constructor
+    }
+
+    /**
+     * Writes the inline image to the canvas, transformed with the given matrix. If the image refers to a named
+     * color space, the color space is copied from the resources of the original content stream to the resources
+     * of the canvas.
+     *
+     * @param canvas            the canvas to write the image to
+     * @param inlineImage       the parsed inline image, with the raw image data
+     * @param originalResources the resources of the content stream the image has been parsed from
+     * @param ctm               the transformation matrix of the image
+     */
+    static void writeInlineImage(PdfCanvas canvas, PdfStream inlineImage, PdfResources originalResources,
+            float[] ctm) {
+        byte[] imageData = inlineImage.getBytes(false);
+        canvas.saveState();
+        canvas.concatMatrix(ctm[0], ctm[1], ctm[2], ctm[3], ctm[4], ctm[5]);
+        PdfOutputStream os = canvas.getContentStream().getOutputStream();
+        os.writeBytes(BI);
+        for (PdfName key : inlineImage.keySet()) {
+            // the length of the image data is written anew, as the data may have been changed by the cleanup
+            if (PdfName.Type.equals(key) || PdfName.Subtype.equals(key) || PdfName.Length.equals(key)
+                    || PdfName.L.equals(key)) {
+                continue;
+            }
+            PdfObject value = inlineImage.get(key, false);
+            if (PdfName.ColorSpace.equals(key)) {
+                value = getColorSpace(value, canvas.getResources(), originalResources);
+            } else if (PdfName.Filter.equals(key)) {
+                value = abbreviate(value, FILTER_ABBREVIATIONS);
+            }
+            PdfName abbreviatedKey = KEY_ABBREVIATIONS.get(key);
+            os.write(abbreviatedKey == null ? key : abbreviatedKey).writeSpace().write(value).writeNewLine();
+        }
+        if (canvas.getDocument().getPdfVersion().compareTo(PdfVersion.PDF_2_0) >= 0) {
+            os.write(PdfName.L).writeSpace().write(new PdfNumber(imageData.length)).writeNewLine();
+        }
+        os.writeBytes(ID);
+        os.writeBytes(imageData).writeNewLine().writeBytes(EI);
+        canvas.restoreState();
+    }
+
+    private static PdfObject getColorSpace(PdfObject colorSpace, PdfResources resources,
+            PdfResources originalResources) {
+        if (colorSpace.isName()) {
+            PdfName abbreviation = COLOR_SPACE_ABBREVIATIONS.get((PdfName) colorSpace);
+            if (abbreviation != null) {
+                return abbreviation;
+            }
+            return copyColorSpaceResource((PdfName) colorSpace, resources, originalResources);
+        }
+        if (colorSpace.isArray() && PdfName.Indexed.equals(((PdfArray) colorSpace).get(0))) {
+            // the base color space of an indexed color space may be a named resource as well
+            PdfArray original = (PdfArray) colorSpace;
+            PdfArray indexed = new PdfArray();
+            indexed.add(COLOR_SPACE_ABBREVIATIONS.get(PdfName.Indexed));
+            for (int i = 1; i < original.size(); ++i) {
+                PdfObject element = original.get(i, false);
+                indexed.add(i == 1 ? getColorSpace(element, resources, originalResources) : element);
+            }
+            return indexed;
+        }
+        return colorSpace;
+    }
+
+    private static PdfName copyColorSpaceResource(PdfName name, PdfResources resources,
+            PdfResources originalResources) {
+        PdfDictionary colorSpaces = originalResources == null ? null
+                : originalResources.getResource(PdfName.ColorSpace);
+        PdfObject colorSpace = colorSpaces == null ? null : colorSpaces.get(name, false);
+        if (colorSpace == null) {
+            // broken references are written as is
+            return name;
+        }
+        // the resources of the cleaned content may already use the name for another color space
+        return resources.addColorSpace(colorSpace);
+    }
+
+    private static PdfObject abbreviate(PdfObject value, Map<PdfName, PdfName> abbreviations) {
+        if (value.isName()) {
+            PdfName abbreviation = abbreviations.get((PdfName) value);
+            return abbreviation == null ? value : abbreviation;
+        }
+        if (value.isArray()) {
+            PdfArray abbreviated = new PdfArray();
+            for (int i = 0; i < ((PdfArray) value).size(); ++i) {
+                abbreviated.add(abbreviate(((PdfArray) value).get(i, false), abbreviations));
+            }
+            return abbreviated;
+        }
+        return value;
+    }
+}
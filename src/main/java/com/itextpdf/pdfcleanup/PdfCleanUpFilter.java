@@ -39,6 +39,7 @@ import com.itextpdf.kernel.geom.Point;
 import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.geom.Subpath;
 import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfNumber;
@@ -66,7 +67,10 @@ import com.itextpdf.pdfcleanup.exceptions.CleanupExceptionMessageConstant;
 import com.itextpdf.pdfcleanup.logs.CleanUpLogMessageConstant;
 import com.itextpdf.pdfcleanup.util.CleanUpHelperUtil;
 import com.itextpdf.pdfcleanup.util.CleanUpImageUtil;
+import com.itextpdf.pdfcleanup.util.CleanUpJpegUtil;
+import com.itextpdf.pdfcleanup.util.CleanUpStreamEncodeUtil;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -96,21 +100,78 @@ class PdfCleanUpFilter {
     private static final Set<PdfName> NOT_SUPPORTED_FILTERS_FOR_DIRECT_CLEANUP = Collections.unmodifiableSet(
             new LinkedHashSet<>(Arrays.asList(PdfName.JBIG2Decode, PdfName.DCTDecode, PdfName.JPXDecode)));
 
+    private static final PdfName COLOR_TRANSFORM = new PdfName("ColorTransform");
+
     private final List<Rectangle> regions;
 
     private final CleanUpProperties properties;
 
+    private final List<IImageRedactionCodec> imageRedactionCodecs;
+
     public PdfCleanUpFilter(List<Rectangle> regions, CleanUpProperties properties) {
         this.regions = regions;
         this.properties = properties;
+        this.imageRedactionCodecs = ImageRedactionCodecs.getCodecs(properties);
     }
 
     static boolean imageSupportsDirectCleanup(PdfImageXObject image) {
         PdfObject filter = image.getPdfObject().get(PdfName.Filter);
         boolean supportedFilterForDirectCleanup = isSupportedFilterForDirectImageCleanup(filter);
-        boolean deviceGrayOrNoCS = PdfName.DeviceGray.equals(image.getPdfObject().getAsName(PdfName.ColorSpace))
-                || !image.getPdfObject().containsKey(PdfName.ColorSpace);
-        return deviceGrayOrNoCS && supportedFilterForDirectCleanup;
+        return supportedFilterForDirectCleanup && getNumberOfComponentsForDirectCleanup(image.getPdfObject()) > 0
+                && CleanedAreaPixel.isSupported(image.getPdfObject());
+    }
+
+    /**
+     * Checks whether the image is a JPEG which can be cleaned up in the DCT coefficient domain, see
+     * {@link CleanUpJpegUtil}. Such an image has DCTDecode as its only filter, no decode array and a gray or RGB
+     * device or ICCBased color space, so that the maximum sample values are rendered as white.
+     *
+     * @param image image XObject
+     * @return true if the image can be cleaned up in the DCT coefficient domain, false otherwise
+     */
+    static boolean imageSupportsDctCleanup(PdfImageXObject image) {
+        PdfStream imageStream = image.getPdfObject();
+        PdfObject filter = imageStream.get(PdfName.Filter);
+        PdfObject decodeParams = imageStream.get(PdfName.DecodeParms);
+        if (filter != null && filter.isArray() && ((PdfArray) filter).size() == 1) {
+            filter = ((PdfArray) filter).get(0);
+            decodeParams = decodeParams != null && decodeParams.isArray() ? ((PdfArray) decodeParams).get(0)
+                    : decodeParams;
+        }
+        if (!PdfName.DCTDecode.equals(filter) || imageStream.containsKey(PdfName.Decode)) {
+            return false;
+        }
+        if (decodeParams != null && decodeParams.isDictionary()) {
+            // images without color transformation are not distinguished from YCbCr ones by the JPEG data itself
+            PdfNumber colorTransform = ((PdfDictionary) decodeParams).getAsNumber(COLOR_TRANSFORM);
+            if (colorTransform != null && colorTransform.intValue() == 0) {
+                return false;
+            }
+        }
+        PdfObject colorSpace = imageStream.get(PdfName.ColorSpace);
+        if (colorSpace == null) {
+            return true;
+        }
+        // white of CMYK and YCCK images is not the maximum of every component, such images are not supported
+        int numberOfComponents = getNumberOfComponentsForDirectCleanup(colorSpace, false);
+        return numberOfComponents == 1 || numberOfComponents == 3;
+    }
+
+    /**
+     * Gets the number of color components in each sample of the image, if the image color space is supported
+     * by the direct image cleanup. Supported color spaces are DeviceGray, DeviceRGB, DeviceCMYK, ICCBased with
+     * 1, 3 or 4 components and Indexed with one of these color spaces as its base.
+     * Images without color space, i.e. image masks, are considered to have a single component.
+     *
+     * @param imageStream image XObject stream
+     * @return the number of color components or 0 if the color space is not supported
+     */
+    static int getNumberOfComponentsForDirectCleanup(PdfStream imageStream) {
+        PdfObject colorSpace = imageStream.get(PdfName.ColorSpace);
+        if (colorSpace == null) {
+            return 1;
+        }
+        return getNumberOfComponentsForDirectCleanup(colorSpace, true);
     }
 
     /**
@@ -224,16 +285,53 @@ class PdfCleanUpFilter {
      * @return a {@link FilterResult} object with filtered text.
      */
     FilterResult<PdfArray> filterText(TextRenderInfo text) {
-        PdfTextArray textArray = new PdfTextArray();
-
         // Overlap ratio should not be taken into account when we check the whole text not to be cleaned up
-        if (properties.getOverlapRatio() == null && isTextNotToBeCleaned(text)) {
+        boolean wholeTextNotToBeCleaned = properties.getOverlapRatio() == null && isTextNotToBeCleaned(text);
+        return filterText(text, wholeTextNotToBeCleaned, new ITextIntersectionCheck() {
+            @Override
+            public boolean isIntersected(TextRenderInfo character) {
+                return !isTextNotToBeCleaned(character);
+            }
+        });
+    }
+
+    /**
+     * Filters a TextRenderInfo object by the bounding boxes of its glyphs: a glyph is removed if its axis-aligned
+     * bounding box intersects any region. Unlike {@link #filterText(TextRenderInfo)}, neither the exact glyph
+     * polygons nor the overlap ratio are taken into account, so rotated glyphs near the regions may be removed
+     * too. This is meant for invisible text, e.g. the OCR text layer of scanned pages.
+     *
+     * @param text the TextRenderInfo to be filtered
+     * @return a {@link FilterResult} object with filtered text.
+     */
+    FilterResult<PdfArray> filterTextByBoundingBoxes(TextRenderInfo text) {
+        return filterText(text, !isTextBoundingBoxIntersected(text), new ITextIntersectionCheck() {
+            @Override
+            public boolean isIntersected(TextRenderInfo character) {
+                return isTextBoundingBoxIntersected(character);
+            }
+        });
+    }
+
+    /**
+     * Removes the characters of the text which are intersected by the regions, replacing each of them with
+     * the offset of its width.
+     *
+     * @param text                    the TextRenderInfo to be filtered
+     * @param wholeTextNotToBeCleaned whether the text is known not to be intersected as a whole
+     * @param intersectionCheck       the check whether a character is intersected by the regions
+     * @return a {@link FilterResult} object with filtered text.
+     */
+    private static FilterResult<PdfArray> filterText(TextRenderInfo text, boolean wholeTextNotToBeCleaned,
+            ITextIntersectionCheck intersectionCheck) {
+        if (wholeTextNotToBeCleaned) {
             return new FilterResult<>(false, new PdfArray(text.getPdfString()));
         }
 
+        PdfTextArray textArray = new PdfTextArray();
         boolean isModified = false;
         for (TextRenderInfo ri : text.getCharacterRenderInfos()) {
-            if (isTextNotToBeCleaned(ri)) {
+            if (!intersectionCheck.isIntersected(ri)) {
                 textArray.add(ri.getPdfString());
             } else {
                 isModified = true;
@@ -260,6 +358,175 @@ class PdfCleanUpFilter {
         return filterImage(imageKey.getImageXObject(), imageKey.getCleanedAreas());
     }
 
+    /**
+     * Filter an image which supports direct cleanup, see {@link #imageSupportsDirectCleanup(PdfImageXObject)}.
+     * The samples are cleaned directly and written back into a copy of the original image stream, encoded
+     * with the original filters, so that the color space, bits per component, decode array and other image
+     * dictionary entries stay untouched.
+     *
+     * @param imageKey the key of the image to be filtered
+     * @return an {@link FilterResult} object with the filtered image stream
+     */
+    FilterResult<PdfStream> filterImageDirectly(FilteredImagesCache.FilteredImageKey imageKey) {
+        List<Rectangle> imageAreasToBeCleaned = imageKey.getCleanedAreas();
+        if (imageAreasToBeCleaned == null) {
+            return new FilterResult<>(true, null);
+        } else if (imageAreasToBeCleaned.isEmpty()) {
+            return new FilterResult<>(false, null);
+        }
+
+        PdfStream originalImageStream = imageKey.getImageXObject().getPdfObject();
+        byte[] encodedImageBytes = processFlateImageByRows(imageKey.getImageXObject(), imageAreasToBeCleaned);
+        if (encodedImageBytes != null) {
+            return new FilterResult<>(true, createStreamWithEncodedData(originalImageStream, encodedImageBytes));
+        }
+        byte[] cleanedSamples = processImageDirectly(imageKey.getImageXObject(), imageAreasToBeCleaned);
+        return new FilterResult<>(true, createStreamWithOriginalFilters(originalImageStream, cleanedSamples));
+    }
+
+    /**
+     * Filter an image with the first image redaction codec which supports it and is able to process it, see
+     * {@link IImageRedactionCodec}. Images which are not cleaned at all or cleaned completely are left to
+     * the built-in processing.
+     *
+     * @param imageKey the key of the image to be filtered
+     * @param document the document the filtered image will be written to
+     * @return an {@link FilterResult} object with the filtered image stream or null if no codec has processed
+     * the image
+     */
+    FilterResult<PdfStream> filterImageWithCodecs(FilteredImagesCache.FilteredImageKey imageKey,
+            PdfDocument document) {
+        List<Rectangle> imageAreasToBeCleaned = imageKey.getCleanedAreas();
+        if (imageAreasToBeCleaned == null || imageAreasToBeCleaned.isEmpty()) {
+            return null;
+        }
+        PdfImageXObject image = imageKey.getImageXObject();
+        for (IImageRedactionCodec codec : imageRedactionCodecs) {
+            if (codec.isSupported(image)) {
+                PdfStream filteredImage = codec.cleanUp(image, imageAreasToBeCleaned, document);
+                if (filteredImage != null) {
+                    return new FilterResult<>(true, filteredImage);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Filter an inline image which supports direct cleanup, see {@link #imageSupportsDirectCleanup(PdfImageXObject)}.
+     * The samples are cleaned in the same way as the samples of image XObjects, see
+     * {@link #filterImageDirectly(FilteredImagesCache.FilteredImageKey)}, so that the image can be written inline
+     * again with its original dictionary and filters.
+     *
+     * @param image the ImageRenderInfo object of the inline image to be filtered
+     * @return an {@link FilterResult} object with the filtered inline image stream
+     */
+    FilterResult<PdfStream> filterImageDirectly(ImageRenderInfo image) {
+        return filterImageDirectly(new FilteredImagesCache.FilteredImageKey(image.getImage(),
+                getImageAreasToBeCleaned(image.getImageCtm())));
+    }
+
+    /**
+     * Filter a JPEG image which supports cleanup in the DCT coefficient domain, see
+     * {@link #imageSupportsDctCleanup(PdfImageXObject)}. Only the blocks of the image which overlap the cleaned
+     * areas are changed and the cleanup is clipped at the edges of the areas, the rest of the image is not
+     * re-compressed.
+     *
+     * @param imageKey the key of the image to be filtered
+     * @return an {@link FilterResult} object with the filtered image stream or null if the JPEG encoding
+     * is not supported
+     */
+    FilterResult<PdfStream> filterDctImage(FilteredImagesCache.FilteredImageKey imageKey) {
+        List<Rectangle> imageAreasToBeCleaned = imageKey.getCleanedAreas();
+        if (imageAreasToBeCleaned == null) {
+            return new FilterResult<>(true, null);
+        } else if (imageAreasToBeCleaned.isEmpty()) {
+            return new FilterResult<>(false, null);
+        }
+
+        PdfStream originalImageStream = imageKey.getImageXObject().getPdfObject();
+        byte[] cleanedJpeg = CleanUpJpegUtil.cleanUpJpeg(originalImageStream.getBytes(false),
+                imageAreasToBeCleaned);
+        if (cleanedJpeg == null) {
+            return null;
+        }
+        return new FilterResult<>(true, createStreamWithEncodedData(originalImageStream, cleanedJpeg));
+    }
+
+    /**
+     * Filter an image which doesn't fit into the image memory budget of the clean up properties, see
+     * {@link CleanUpProperties#setImageMemoryBudget(long)}. The JPEG image is decoded and cleaned band by band.
+     *
+     * @param imageKey the key of the image to be filtered
+     * @param document the document the filtered image will be written to
+     * @return an {@link FilterResult} object with the filtered image stream or null if the image fits into the
+     * budget or can't be processed band by band
+     */
+    FilterResult<PdfStream> filterImageInBands(FilteredImagesCache.FilteredImageKey imageKey, PdfDocument document) {
+        PdfImageXObject image = imageKey.getImageXObject();
+        long decodedImageSize = BandedImageCleaner.getDecodedImageSize((long) image.getWidth(),
+                (long) image.getHeight());
+        if (decodedImageSize <= properties.getImageMemoryBudget()
+                || !BandedImageCleaner.isSupported(image.getPdfObject())) {
+            return null;
+        }
+        List<Rectangle> imageAreasToBeCleaned = imageKey.getCleanedAreas();
+        if (imageAreasToBeCleaned == null) {
+            return new FilterResult<>(true, null);
+        } else if (imageAreasToBeCleaned.isEmpty()) {
+            return new FilterResult<>(false, null);
+        }
+
+        try {
+            PdfStream filteredImage = AwtRasterImageProcessor.getInstance().cleanUpImageInBands(
+                    image.getPdfObject().getBytes(false), imageAreasToBeCleaned, properties.getImageMemoryBudget(), document);
+            return filteredImage == null ? null : new FilterResult<>(true, filteredImage);
+        } catch (IOException e) {
+            throw new CleanUpImageUtil.CleanupImageHandlingUtilException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a copy of the given stream with the given decoded data. The data is encoded with the filters of
+     * the original stream. If the filters can't be reproduced, the data is set decoded and is compressed with
+     * FlateDecode on writing.
+     *
+     * @param originalStream the stream to be copied
+     * @param decodedData    new decoded data of the stream
+     * @return the copy of the stream
+     */
+    static PdfStream createStreamWithOriginalFilters(PdfStream originalStream, byte[] decodedData) {
+        byte[] encodedData = CleanUpStreamEncodeUtil.encode(decodedData, originalStream);
+        if (encodedData == null) {
+            PdfStream streamCopy = (PdfStream) originalStream.clone();
+            streamCopy.setData(decodedData);
+            return streamCopy;
+        }
+        return createStreamWithEncodedData(originalStream, encodedData);
+    }
+
+    /**
+     * Creates a copy of the given stream with the given data, encoded with the filters of the original stream.
+     *
+     * @param originalStream the stream to be copied
+     * @param encodedData    new encoded data of the stream
+     * @return the copy of the stream
+     */
+    static PdfStream createStreamWithEncodedData(PdfStream originalStream, byte[] encodedData) {
+        PdfStream streamCopy = (PdfStream) originalStream.clone();
+        // setting data removes Filter and DecodeParms entries, the writer doesn't compress streams with a filter
+        PdfObject filter = originalStream.get(PdfName.Filter);
+        PdfObject decodeParams = originalStream.get(PdfName.DecodeParms);
+        streamCopy.setData(encodedData);
+        if (filter != null) {
+            streamCopy.put(PdfName.Filter, filter);
+        }
+        if (decodeParams != null) {
+            streamCopy.put(PdfName.DecodeParms, decodeParams);
+        }
+        return streamCopy;
+    }
+
     /**
      * Filter a PathRenderInfo object.
      *
@@ -287,7 +554,8 @@ class PdfCleanUpFilter {
     }
 
     FilteredImagesCache.FilteredImageKey createFilteredImageKey(PdfImageXObject image, Matrix imageCtm, PdfDocument document) {
-        return FilteredImagesCache.createFilteredImageKey(image, getImageAreasToBeCleaned(imageCtm), document);
+        return FilteredImagesCache.createFilteredImageKey(image, getImageAreasToBeCleaned(imageCtm), document,
+                properties.isIdentifyImagesByContent());
     }
 
     /**
@@ -456,15 +724,15 @@ class PdfCleanUpFilter {
             // We require to set filtered image bytes to the image XObject only for the sake of simplifying code:
             // in this method we return ImageData, so in order to convert PDF image to the common image format we
             // reuse PdfImageXObject#getImageBytes method.
-            // I think this is acceptable here, because monochrome and grayscale images are not very common,
-            // so the overhead would be not that big. But anyway, this should be refactored in future if this
-            // direct image bytes cleaning approach would be found useful and will be preserved in future.
+            // PdfImageXObject#getImageBytes encodes raw samples to PNG or TIFF by itself, so the AWT based
+            // decoding and re-encoding of the raster image processor is not involved here.
             PdfImageXObject tempImageClone = new PdfImageXObject((PdfStream) image.getPdfObject().clone());
             tempImageClone.getPdfObject().setData(imageStreamBytes);
             filteredImageBytes = tempImageClone.getImageBytes();
         } else {
             byte[] originalImageBytes = image.getImageBytes();
-            filteredImageBytes = CleanUpImageUtil.cleanUpImage(originalImageBytes, imageAreasToBeCleaned);
+            filteredImageBytes = AwtRasterImageProcessor.getInstance().cleanUpImage(originalImageBytes,
+                    imageAreasToBeCleaned);
         }
         return new FilterResult<>(true, ImageDataFactory.create(filteredImageBytes));
     }
@@ -559,20 +827,49 @@ class PdfCleanUpFilter {
         return Rectangle.calculateBBox(Arrays.asList(points));
     }
 
+    /**
+     * Cleans up a FlateDecode image row by row, see {@link FlateImageRowCleaner}, so that the decoded samples of
+     * the whole image are never held in memory.
+     *
+     * @param image                 image XObject which will be filtered
+     * @param imageAreasToBeCleaned list of rectangle areas for clean up with coordinates in (0,1)x(0,1) space
+     * @return the encoded image data or null if the image should be processed by
+     * {@link #processImageDirectly(PdfImageXObject, List)}
+     */
+    private static byte[] processFlateImageByRows(PdfImageXObject image, List<Rectangle> imageAreasToBeCleaned) {
+        PdfStream imageStream = image.getPdfObject();
+        PdfNumber bpcVal = imageStream.getAsNumber(PdfName.BitsPerComponent);
+        if (bpcVal == null || !FlateImageRowCleaner.isSupported(imageStream)) {
+            return null;
+        }
+        int bpc = bpcVal.intValue();
+        if (bpc != 1 && bpc != 2 && bpc != 4 && bpc != 8 && bpc != 16) {
+            return null;
+        }
+
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        long bitsPerPixel = (long) bpc * getNumberOfComponentsForDirectCleanup(imageStream);
+        int rowLength = (int) ((width * bitsPerPixel + 7) / 8);
+        ImagePixelAreas pixelAreas = ImagePixelAreas.create(imageAreasToBeCleaned, width, height);
+        try {
+            return FlateImageRowCleaner.cleanUp(imageStream, rowLength, height,
+                    CleanedAreaPixel.create(imageStream, bpc), pixelAreas);
+        } catch (IOException e) {
+            // damaged data is left to the lenient decoding of the whole stream
+            return null;
+        }
+    }
+
     /**
      * Filters image content using direct manipulation over PDF image samples stream. Implemented according to ISO 32000-2,
-     * "8.9.3 Sample representation".
+     * "8.9.3 Sample representation". The pixels within the areas are filled as described in {@link CleanedAreaPixel}.
      *
      * @param image                 image XObject which will be filtered
      * @param imageAreasToBeCleaned list of rectangle areas for clean up with coordinates in (0,1)x(0,1) space
      * @return raw bytes of the PDF image samples stream which is already cleaned.
      */
     private static byte[] processImageDirectly(PdfImageXObject image, List<Rectangle> imageAreasToBeCleaned) {
-        int X = 0;
-        int Y = 1;
-        int W = 2;
-        int H = 3;
-
         byte[] originalImageBytes = image.getPdfObject().getBytes();
 
         PdfNumber bpcVal = image.getPdfObject().getAsNumber(PdfName.BitsPerComponent);
@@ -584,41 +881,87 @@ class PdfCleanUpFilter {
             throw new IllegalArgumentException("/BitsPerComponent only allowed values are: 1, 2, 4, 8 and 16.");
         }
 
-        double bytesInComponent = (double) bpc / 8;
-        int firstComponentInByte = 0;
-        if (bpc < 16) {
-            for (int i = 0; i < bpc; ++i) {
-                firstComponentInByte += (int) Math.pow(2, 7 - i);
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        long bitsPerPixel = (long) bpc * getNumberOfComponentsForDirectCleanup(image.getPdfObject());
+        // each row starts at a byte boundary
+        int rowLength = (int) ((width * bitsPerPixel + 7) / 8);
+        CleanedAreaPixel cleanedPixel = CleanedAreaPixel.create(image.getPdfObject(), bpc);
+        // overlapping areas are merged into disjoint intervals per band of rows, so every byte is touched once
+        ImagePixelAreas pixelAreas = ImagePixelAreas.create(imageAreasToBeCleaned, width, height);
+        for (int band = 0; band < pixelAreas.getBandsCount(); ++band) {
+            int[] intervals = pixelAreas.getBandIntervals(band);
+            for (int j = pixelAreas.getBandStart(band); j < pixelAreas.getBandEnd(band); ++j) {
+                int rowOffset = j * rowLength;
+                if (rowOffset + rowLength > originalImageBytes.length) {
+                    break;
+                }
+                for (int k = 0; k < intervals.length; k += 2) {
+                    cleanedPixel.fill(originalImageBytes, rowOffset, intervals[k], intervals[k + 1]);
+                }
             }
         }
 
-        double width = image.getWidth();
-        double height = image.getHeight();
-        int rowPadding = 0;
-        if ((width * bpc) % 8 > 0) {
-            rowPadding = (int) (8 - (width * bpc) % 8);
-        }
-        for (Rectangle rect : imageAreasToBeCleaned) {
-            int[] cleanImgRect = CleanUpHelperUtil.getImageRectToClean(rect, (int) width, (int) height);
-            for (int j = cleanImgRect[Y]; j < cleanImgRect[Y] + cleanImgRect[H]; ++j) {
-                for (int i = cleanImgRect[X]; i < cleanImgRect[X] + cleanImgRect[W]; ++i) {
-                    // based on assumption that numOfComponents always equals 1, because this method is only for monochrome and grayscale images
-                    double pixelPos = j * ((width * bpc + rowPadding) / 8) + i * bytesInComponent;
-                    int pixelByteInd = (int) pixelPos;
-                    byte byteWithSample = originalImageBytes[pixelByteInd];
-
-                    if (bpc == 16) {
-                        originalImageBytes[pixelByteInd] = 0;
-                        originalImageBytes[pixelByteInd + 1] = 0;
-                    } else {
-                        int reset = ~(firstComponentInByte >> (int) ((pixelPos - pixelByteInd) * 8)) & 0xFF;
-                        originalImageBytes[pixelByteInd] = (byte) (byteWithSample & reset);
-                    }
+        return originalImageBytes;
+    }
+
+    /**
+     * Sets to zero the bits in range [startBit, endBit) counted from the most significant bit of the byte at
+     * rowOffset position.
+     */
+    static void clearBits(byte[] bytes, int rowOffset, long startBit, long endBit) {
+        if (startBit >= endBit) {
+            return;
+        }
+        int firstByte = rowOffset + (int) (startBit >> 3);
+        int lastByte = rowOffset + (int) ((endBit - 1) >> 3);
+        int firstByteMask = 0xFF >> (int) (startBit & 7);
+        int lastByteMask = (0xFF << (7 - (int) ((endBit - 1) & 7))) & 0xFF;
+        if (firstByte == lastByte) {
+            bytes[firstByte] = (byte) (bytes[firstByte] & ~(firstByteMask & lastByteMask));
+        } else {
+            bytes[firstByte] = (byte) (bytes[firstByte] & ~firstByteMask);
+            Arrays.fill(bytes, firstByte + 1, lastByte, (byte) 0);
+            bytes[lastByte] = (byte) (bytes[lastByte] & ~lastByteMask);
+        }
+    }
+
+    /**
+     * Gets the number of color components of the color space, if it is supported by the direct image cleanup,
+     * see {@link #getNumberOfComponentsForDirectCleanup(PdfStream)}.
+     *
+     * @param colorSpace   the color space
+     * @param allowIndexed whether Indexed color spaces are supported
+     * @return the number of color components or 0 if the color space is not supported
+     */
+    static int getNumberOfComponentsForDirectCleanup(PdfObject colorSpace, boolean allowIndexed) {
+        if (colorSpace.isName()) {
+            if (PdfName.DeviceGray.equals(colorSpace)) {
+                return 1;
+            } else if (PdfName.DeviceRGB.equals(colorSpace)) {
+                return 3;
+            } else if (PdfName.DeviceCMYK.equals(colorSpace)) {
+                return 4;
+            }
+        } else if (colorSpace.isArray()) {
+            PdfArray colorSpaceArray = (PdfArray) colorSpace;
+            PdfName family = colorSpaceArray.getAsName(0);
+            if (PdfName.ICCBased.equals(family) && colorSpaceArray.size() == 2) {
+                PdfStream iccProfile = colorSpaceArray.getAsStream(1);
+                PdfNumber n = iccProfile == null ? null : iccProfile.getAsNumber(PdfName.N);
+                int numberOfComponents = n == null ? 0 : n.intValue();
+                if (numberOfComponents == 1 || numberOfComponents == 3 || numberOfComponents == 4) {
+                    return numberOfComponents;
+                }
+            } else if (allowIndexed && PdfName.Indexed.equals(family) && colorSpaceArray.size() == 4) {
+                PdfObject baseColorSpace = colorSpaceArray.get(1);
+                // samples are single-component palette indices, the palette itself is kept as is
+                if (baseColorSpace != null && getNumberOfComponentsForDirectCleanup(baseColorSpace, false) > 0) {
+                    return 1;
                 }
             }
         }
-
-        return originalImageBytes;
+        return 0;
     }
 
     /**
@@ -798,6 +1141,17 @@ class PdfCleanUpFilter {
         return transformed;
     }
 
+    private boolean isTextBoundingBoxIntersected(TextRenderInfo renderInfo) {
+        Rectangle textBBox = Rectangle.calculateBBox(Arrays.asList(getTextRectangle(renderInfo)));
+        for (Rectangle region : regions) {
+            if (textBBox.getLeft() < region.getRight() && region.getLeft() < textBBox.getRight()
+                    && textBBox.getBottom() < region.getTop() && region.getBottom() < textBBox.getTop()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Get the bounding box of a TextRenderInfo object.
      *
@@ -888,6 +1242,13 @@ class PdfCleanUpFilter {
         }
     }
 
+    /**
+     * Check whether a character of the filtered text is intersected by the regions to be cleaned up.
+     */
+    private interface ITextIntersectionCheck {
+        boolean isIntersected(TextRenderInfo character);
+    }
+
     private static class ApproxPointList<T> extends ArrayList<Point> {
 
         public ApproxPointList() {
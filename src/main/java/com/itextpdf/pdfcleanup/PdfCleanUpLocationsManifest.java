@@ -0,0 +1,399 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.DeviceCmyk;
+import com.itextpdf.kernel.colors.DeviceGray;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.pdfcleanup.exceptions.CleanupExceptionMessageConstant;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Compact binary representation of cleanup locations, which allows to separate the detection of the areas to be
+ * redacted from the redaction itself.
+ *
+ * <p>
+ * The manifest is written with {@link #write(PdfDocument, List, OutputStream)}, e.g. from the locations found by
+ * {@link com.itextpdf.pdfcleanup.autosweep.PdfAutoSweepTools}, and read back with {@link #open(Path)}. Reading maps
+ * the file into memory and decodes the regions of a page only when they are requested. The manifest also stores the
+ * fingerprint of the document it has been produced from, see {@link #checkDocument(PdfDocument)}.
+ *
+ * <p>
+ * All values are big-endian. The layout of version 1 is the following:
+ * <ul>
+ *     <li>magic bytes {@code PSLM} and the version number (int32);
+ *     <li>SHA-256 fingerprint of the document (32 bytes), calculated from the file identifiers and the length of the
+ *     source file, the number of pages and, for every page, its media box, rotation and encoded content streams;
+ *     <li>color table: number of colors (int32), then for each color the number of its components (int8) followed by
+ *     the components (float32). Colors with 1, 3 and 4 components are read as gray, RGB and CMYK colors
+ *     respectively. Only {@link DeviceGray}, {@link DeviceRgb} and {@link DeviceCmyk} colors are stored, the areas
+ *     with colors of other color spaces, e.g. Separation, Lab or ICC based ones, are left uncolored;
+ *     <li>page index: number of pages (int32), then for each page its number (int32), the offset of its first region
+ *     record (int64) and the number of regions (int32). Pages are sorted by number;
+ *     <li>region records: x, y, width and height (float32) and the index of the color in the color table (int32),
+ *     {@code -1} meaning no color.
+ * </ul>
+ */
+public final class PdfCleanUpLocationsManifest implements Iterable<PdfCleanUpPageRegions> {
+
+    /**
+     * The version of the manifest format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = "PSLM".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int FINGERPRINT_LENGTH = 32;
+
+    private static final int MIN_COLOR_ENTRY_LENGTH = 1 + 4;
+
+    private static final int PAGE_INDEX_ENTRY_LENGTH = 16;
+
+    private static final int REGION_RECORD_LENGTH = 20;
+
+    private static final int NO_COLOR = -1;
+
+    private final ByteBuffer buffer;
+
+    private final byte[] fingerprint;
+
+    private final Color[] colors;
+
+    private final int[] pages;
+
+    private final long[] offsets;
+
+    private final int[] regionCounts;
+
+    private PdfCleanUpLocationsManifest(ByteBuffer buffer) {
+        this.buffer = buffer;
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_VERSION_IS_NOT_SUPPORTED)
+                        .setMessageParams(version);
+            }
+            fingerprint = new byte[FINGERPRINT_LENGTH];
+            buffer.get(fingerprint);
+
+            // the counts are checked against the remaining bytes before anything is allocated for them
+            int colorsCount = buffer.getInt();
+            checkCount(colorsCount, MIN_COLOR_ENTRY_LENGTH);
+            colors = new Color[colorsCount];
+            for (int i = 0; i < colors.length; ++i) {
+                int componentsCount = buffer.get() & 0xFF;
+                checkCount(componentsCount, 4);
+                float[] components = new float[componentsCount];
+                for (int j = 0; j < components.length; ++j) {
+                    components[j] = buffer.getFloat();
+                }
+                colors[i] = createColor(components);
+            }
+
+            int pagesCount = buffer.getInt();
+            checkCount(pagesCount, PAGE_INDEX_ENTRY_LENGTH);
+            pages = new int[pagesCount];
+            offsets = new long[pagesCount];
+            regionCounts = new int[pagesCount];
+            for (int i = 0; i < pagesCount; ++i) {
+                pages[i] = buffer.getInt();
+                offsets[i] = buffer.getLong();
+                regionCounts[i] = buffer.getInt();
+                if (offsets[i] < 0 || regionCounts[i] < 0
+                        || offsets[i] + (long) regionCounts[i] * REGION_RECORD_LENGTH > buffer.limit()) {
+                    throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED, e);
+        }
+    }
+
+    /**
+     * Opens a manifest file. The file is mapped into memory, the regions of a page are decoded only when requested.
+     *
+     * @param manifest the path to the manifest file
+     *
+     * @return the opened {@link PdfCleanUpLocationsManifest}
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static PdfCleanUpLocationsManifest open(Path manifest) throws IOException {
+        try (FileChannel channel = FileChannel.open(manifest, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PdfCleanUpLocationsManifest(buffer);
+        }
+    }
+
+    /**
+     * Reads a manifest from the given bytes.
+     *
+     * @param manifest the bytes of the manifest
+     *
+     * @return the read {@link PdfCleanUpLocationsManifest}
+     */
+    public static PdfCleanUpLocationsManifest read(byte[] manifest) {
+        return new PdfCleanUpLocationsManifest(ByteBuffer.wrap(manifest));
+    }
+
+    /**
+     * Writes the given cleanup locations as a manifest bound to the given document.
+     *
+     * @param document     the document the locations have been found in
+     * @param locations    the locations to be written
+     * @param outputStream the stream to write the manifest to, it is not closed by this method
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(PdfDocument document, List<PdfCleanUpLocation> locations, OutputStream outputStream)
+            throws IOException {
+        Map<Integer, List<PdfCleanUpLocation>> locationsByPage = new TreeMap<>();
+        Map<Color, Integer> colorIndices = new HashMap<>();
+        List<Color> colorTable = new ArrayList<>();
+        for (PdfCleanUpLocation location : locations) {
+            List<PdfCleanUpLocation> pageLocations = locationsByPage.get(location.getPage());
+            if (pageLocations == null) {
+                pageLocations = new ArrayList<>();
+                locationsByPage.put(location.getPage(), pageLocations);
+            }
+            pageLocations.add(location);
+
+            Color color = location.getCleanUpColor();
+            if (isColorSupported(color) && !colorIndices.containsKey(color)) {
+                colorIndices.put(color, colorTable.size());
+                colorTable.add(color);
+            }
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.write(MAGIC);
+        output.writeInt(VERSION);
+        output.write(calculateFingerprint(document));
+
+        long offset = MAGIC.length + 4 + FINGERPRINT_LENGTH + 4;
+        output.writeInt(colorTable.size());
+        for (Color color : colorTable) {
+            float[] components = color.getColorValue();
+            output.writeByte(components.length);
+            for (float component : components) {
+                output.writeFloat(component);
+            }
+            offset += 1 + 4 * components.length;
+        }
+
+        output.writeInt(locationsByPage.size());
+        offset += 4 + (long) PAGE_INDEX_ENTRY_LENGTH * locationsByPage.size();
+        for (Map.Entry<Integer, List<PdfCleanUpLocation>> entry : locationsByPage.entrySet()) {
+            output.writeInt((int) entry.getKey());
+            output.writeLong(offset);
+            output.writeInt(entry.getValue().size());
+            offset += (long) REGION_RECORD_LENGTH * entry.getValue().size();
+        }
+
+        for (List<PdfCleanUpLocation> pageLocations : locationsByPage.values()) {
+            for (PdfCleanUpLocation location : pageLocations) {
+                output.writeFloat(location.getRegion().getX());
+                output.writeFloat(location.getRegion().getY());
+                output.writeFloat(location.getRegion().getWidth());
+                output.writeFloat(location.getRegion().getHeight());
+                Integer colorIndex = location.getCleanUpColor() == null
+                        ? null : colorIndices.get(location.getCleanUpColor());
+                output.writeInt(colorIndex == null ? NO_COLOR : (int) colorIndex);
+            }
+        }
+        output.flush();
+    }
+
+    /**
+     * Checks that the manifest has been produced from the given document.
+     *
+     * @param document the document to be cleaned up
+     *
+     * @throws PdfException if the manifest has been produced from a different document
+     */
+    public void checkDocument(PdfDocument document) {
+        if (!MessageDigest.isEqual(fingerprint, calculateFingerprint(document))) {
+            throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_DOES_NOT_MATCH_DOCUMENT);
+        }
+    }
+
+    /**
+     * Gets the numbers of the pages which have regions to be cleaned up, in ascending order.
+     *
+     * @return the page numbers
+     */
+    public int[] getPages() {
+        return Arrays.copyOf(pages, pages.length);
+    }
+
+    /**
+     * Decodes the regions to be cleaned up on the given page.
+     *
+     * @param page the page number
+     *
+     * @return the regions of the page or {@code null} if there are no regions on the page
+     */
+    public PdfCleanUpPageRegions getPageRegions(int page) {
+        int index = Arrays.binarySearch(pages, page);
+        return index < 0 ? null : readPageRegions(index);
+    }
+
+    /**
+     * Creates an iterator which decodes the regions page by page, in ascending page order.
+     *
+     * @return the iterator over the regions of the pages
+     */
+    @Override
+    public Iterator<PdfCleanUpPageRegions> iterator() {
+        return new Iterator<PdfCleanUpPageRegions>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < pages.length;
+            }
+
+            @Override
+            public PdfCleanUpPageRegions next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return readPageRegions(index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private PdfCleanUpPageRegions readPageRegions(int index) {
+        // every read works with its own view of the buffer, so that the manifest can be shared between threads
+        ByteBuffer records = buffer.duplicate();
+        records.position((int) offsets[index]);
+        float[] coordinates = new float[regionCounts[index] * 4];
+        Color[] cleanUpColors = new Color[regionCounts[index]];
+        boolean hasColors = false;
+        for (int i = 0; i < regionCounts[index]; ++i) {
+            for (int j = 0; j < 4; ++j) {
+                coordinates[i * 4 + j] = records.getFloat();
+            }
+            int colorIndex = records.getInt();
+            if (colorIndex != NO_COLOR) {
+                if (colorIndex < 0 || colorIndex >= colors.length) {
+                    throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED);
+                }
+                cleanUpColors[i] = colors[colorIndex];
+                hasColors = true;
+            }
+        }
+        return new PdfCleanUpPageRegions(pages[index], coordinates, hasColors ? cleanUpColors : null);
+    }
+
+    private void checkCount(int count, int entryLength) {
+        if (count < 0 || (long) count * entryLength > buffer.remaining()) {
+            throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED);
+        }
+    }
+
+    private static boolean isColorSupported(Color color) {
+        // only the components are stored, so colors of other color spaces couldn't be restored as they were
+        return color instanceof DeviceGray || color instanceof DeviceRgb || color instanceof DeviceCmyk;
+    }
+
+    private static Color createColor(float[] components) {
+        switch (components.length) {
+            case 1:
+                return new DeviceGray(components[0]);
+            case 3:
+                return new DeviceRgb(components[0], components[1], components[2]);
+            case 4:
+                return new DeviceCmyk(components[0], components[1], components[2], components[3]);
+            default:
+                throw new PdfException(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED);
+        }
+    }
+
+    private static byte[] calculateFingerprint(PdfDocument document) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PdfException(e);
+        }
+        PdfReader reader = document.getReader();
+        if (reader != null) {
+            digest.update(reader.getOriginalFileId());
+            digest.update(reader.getModifiedFileId());
+            digest.update(ByteBuffer.allocate(8).putLong(reader.getFileLength()).array());
+        }
+        digest.update(ByteBuffer.allocate(4).putInt(document.getNumberOfPages()).array());
+        for (int pageNumber = 1; pageNumber <= document.getNumberOfPages(); ++pageNumber) {
+            PdfPage page = document.getPage(pageNumber);
+            Rectangle mediaBox = page.getMediaBox();
+            digest.update(ByteBuffer.allocate(20).putFloat(mediaBox.getX()).putFloat(mediaBox.getY())
+                    .putFloat(mediaBox.getWidth()).putFloat(mediaBox.getHeight()).putInt(page.getRotation()).array());
+            // the content streams are hashed as they are encoded, which is enough to tell the documents apart
+            for (int i = 0; i < page.getContentStreamCount(); ++i) {
+                byte[] contentBytes = page.getContentStream(i).getBytes(false);
+                digest.update(ByteBuffer.allocate(4).putInt(contentBytes.length).array());
+                digest.update(contentBytes);
+            }
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.pdfcleanup.exceptions.CleanupExceptionMessageConstant;
+
+/**
+ * Defines all the regions to be erased on a single page of a PDF document.
+ *
+ * <p>
+ * Unlike a list of {@link PdfCleanUpLocation}s, the regions are stored in a flat array of primitive coordinates,
+ * four values per region: x, y, width and height. This makes it suitable for huge numbers of regions, e.g. word
+ * level regions produced by OCR, which can be supplied page by page via
+ * {@link PdfCleanUpTool#cleanUp(java.util.Iterator)}.
+ */
+public class PdfCleanUpPageRegions {
+    private final int page;
+    private final float[] coordinates;
+    private final Color[] cleanUpColors;
+
+    /**
+     * Constructs a {@link PdfCleanUpPageRegions} object. The erased areas are left uncolored.
+     *
+     * @param page        specifies the number of the page which the regions belong to.
+     * @param coordinates the boundaries of the areas to be erased, four values per area: x, y, width and height.
+     */
+    public PdfCleanUpPageRegions(int page, float[] coordinates) {
+        this(page, coordinates, null);
+    }
+
+    /**
+     * Constructs a {@link PdfCleanUpPageRegions} object.
+     *
+     * @param page          specifies the number of the page which the regions belong to.
+     * @param coordinates   the boundaries of the areas to be erased, four values per area: x, y, width and height.
+     * @param cleanUpColors colors used to fill the areas after erasing them, one per area. If {@code null}, all the
+     *                      erased areas are left uncolored, if an element is {@code null}, the corresponding area
+     *                      is left uncolored.
+     */
+    public PdfCleanUpPageRegions(int page, float[] coordinates, Color[] cleanUpColors) {
+        if (coordinates.length % 4 != 0) {
+            throw new IllegalArgumentException(
+                    CleanupExceptionMessageConstant.CLEANUP_REGIONS_COORDINATES_LENGTH_INVALID);
+        }
+        if (cleanUpColors != null && cleanUpColors.length != coordinates.length / 4) {
+            throw new IllegalArgumentException(CleanupExceptionMessageConstant.CLEANUP_REGIONS_COLORS_COUNT_MISMATCH);
+        }
+        this.page = page;
+        this.coordinates = coordinates;
+        this.cleanUpColors = cleanUpColors;
+    }
+
+    /**
+     * @return the number of the page which the regions belong to.
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * @return the number of regions to be erased on the page.
+     */
+    public int getRegionsCount() {
+        return coordinates.length / 4;
+    }
+
+    /**
+     * Creates a {@link Rectangle} representing the boundaries of the area to be erased.
+     *
+     * @param index index of the region
+     *
+     * @return the boundaries of the region.
+     */
+    public Rectangle getRegion(int index) {
+        int offset = index * 4;
+        return new Rectangle(coordinates[offset], coordinates[offset + 1], coordinates[offset + 2],
+                coordinates[offset + 3]);
+    }
+
+    /**
+     * Returns a color used to fill the area after erasing it. If {@code null} the erased area left uncolored.
+     *
+     * @param index index of the region
+     *
+     * @return a color used to fill the area after erasing it.
+     */
+    public Color getCleanUpColor(int index) {
+        return cleanUpColors == null ? null : cleanUpColors[index];
+    }
+}
@@ -24,7 +24,6 @@ package com.itextpdf.pdfcleanup;
 
 import com.itextpdf.commons.datastructures.Tuple2;
 import com.itextpdf.io.image.ImageData;
-import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.io.source.ByteUtils;
 import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.exceptions.PdfException;
@@ -139,6 +138,7 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
     private PdfDocument document;
     private PdfPage currentPage;
     private PdfCleanUpFilter filter;
+    private CleanUpProperties properties;
     private Stack<PdfCanvas> canvasStack;
 
     private boolean removeAnnotIfPartOverlap = true;
@@ -169,6 +169,12 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
     private TextPositioning textPositioning;
     private FilteredImagesCache filteredImagesCache;
 
+    private PersistentFilteredImagesCache persistentImagesCache;
+
+    private RecordedPageContent recordedPageContent;
+
+    private PdfResources replayedResources;
+
 
     PdfCleanUpProcessor(List<Rectangle> cleanUpRegions, PdfDocument document) {
         this(cleanUpRegions, document, new CleanUpProperties());
@@ -178,6 +184,7 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         super(new PdfCleanUpEventListener());
         this.document = document;
         this.filter = new PdfCleanUpFilter(cleanUpRegions, properties);
+        this.properties = properties;
         this.canvasStack = new Stack<>();
         this.notAppliedGsParams = new ArrayDeque<>();
         this.notAppliedGsParams.push(new NotAppliedGsParams());
@@ -233,6 +240,20 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         this.filteredImagesCache = cache;
     }
 
+    void setPersistentImagesCache(PersistentFilteredImagesCache persistentImagesCache) {
+        this.persistentImagesCache = persistentImagesCache;
+    }
+
+    /**
+     * Sets the operators of the page content recorded while it was processed by a cleanup strategy. They are
+     * replayed instead of parsing the content stream of the next processed page.
+     *
+     * @param recordedPageContent the recorded content of the page to be processed
+     */
+    void setRecordedPageContent(RecordedPageContent recordedPageContent) {
+        this.recordedPageContent = recordedPageContent;
+    }
+
     /**
      * @param contentBytes the bytes of a content stream
      * @param resources    the resources of the content stream. Must not be null.
@@ -245,10 +266,26 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
             getCanvas().saveState();
         }
 
-        super.processContent(contentBytes, resources);
+        if (recordedPageContent != null && canvasStack.size() == 1) {
+            replayRecordedPageContent(resources);
+        } else {
+            super.processContent(contentBytes, resources);
+        }
         // Here we don't pop() canvases by intent. It is the responsibility of the one who utilizes the canvas data
     }
 
+    /**
+     * While the recorded page content is replayed, the page resources are not on the resources stack of
+     * {@link PdfCanvasProcessor}, so they are provided here. Form XObjects are processed as usual.
+     */
+    @Override
+    protected PdfResources getResources() {
+        if (replayedResources != null && canvasStack.size() == 1) {
+            return replayedResources;
+        }
+        return super.getResources();
+    }
+
     @Override
     public IEventListener getEventListener() {
         return eventListener;
@@ -273,6 +310,20 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         filterContent(operatorString, operands);
     }
 
+    private void replayRecordedPageContent(PdfResources resources) {
+        List<PdfObject[]> operators = recordedPageContent.getOperators();
+        // the recorded content belongs to a single page
+        recordedPageContent = null;
+        replayedResources = resources;
+        try {
+            for (PdfObject[] operator : operators) {
+                invokeOperator((PdfLiteral) operator[operator.length - 1], new ArrayList<>(Arrays.asList(operator)));
+            }
+        } finally {
+            replayedResources = null;
+        }
+    }
+
     @Override
     protected void beginMarkedContent(PdfName tag, PdfDictionary dict) {
         super.beginMarkedContent(tag, dict);
@@ -545,19 +596,20 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
             int i = 0; // text chunk index in original TJ
             PdfTextArray newTJ = new PdfTextArray();
             for (PdfObject e : originalTJ) {
-                if (e.isString()) {
+                if (e.isString() && properties.isProcessText()) {
                     if (null == textChunks) {
                         textChunks = ((PdfCleanUpEventListener) getEventListener()).getEncounteredText();
                     }
                     PdfArray filteredText = filter.filterText(textChunks.get(i++)).getFilterResult();
                     newTJ.addAll(filteredText);
                 } else {
+                    // the text is written as it is if it isn't processed, see CleanUpProperties#setProcessText
                     newTJ.add(e);
                 }
             }
 
             cleanedText = newTJ;
-        } else { // if operator is Tj or ' or "
+        } else if (properties.isProcessText()) { // if operator is Tj or ' or "
             textChunks = ((PdfCleanUpEventListener) getEventListener()).getEncounteredText();
             PdfCleanUpFilter.FilterResult<PdfArray> filterResult = filter.filterText(textChunks.get(0));
             if (filterResult.isModified()) {
@@ -660,8 +712,13 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         if (PdfName.Image.equals(imageStream.getAsName(PdfName.Subtype))) {
             ImageRenderInfo encounteredImage = ((PdfCleanUpEventListener) getEventListener()).getEncounteredImage();
 
-            FilteredImagesCache.FilteredImageKey key = filter.createFilteredImageKey(encounteredImage.getImage(), encounteredImage.getImageCtm(), document);
-            PdfImageXObject imageToWrite = getFilteredImage(key, encounteredImage.getImageCtm());
+            PdfImageXObject imageToWrite;
+            if (properties.isProcessImages()) {
+                imageToWrite = filterImage(encounteredImage);
+            } else {
+                // the image is written as it is, see CleanUpProperties#setProcessImages
+                imageToWrite = encounteredImage.getImage();
+            }
 
             if (imageToWrite != null) {
                 float[] ctm = pollNotAppliedCtm();
@@ -672,11 +729,61 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         }
     }
 
+    /**
+     * Cleans up the image the same way the images of the processed content are cleaned up, see
+     * {@link ScannedPageCleaner}.
+     *
+     * @param image the image to be cleaned up
+     * @return the cleaned image, the original image if it isn't affected by the clean up or {@code null} if it
+     * is to be removed completely
+     */
+    PdfImageXObject filterImage(ImageRenderInfo image) {
+        FilteredImagesCache.FilteredImageKey key = filter.createFilteredImageKey(image.getImage(),
+                image.getImageCtm(), document);
+        return getFilteredImage(key, image.getImageCtm());
+    }
+
     private PdfImageXObject getFilteredImage(FilteredImagesCache.FilteredImageKey filteredImageKey, Matrix ctmForMasksFiltering) {
         PdfImageXObject originalImage = filteredImageKey.getImageXObject();
         PdfImageXObject imageToWrite = getFilteredImagesCache().get(filteredImageKey);
 
+        PdfCleanUpFilter.FilterResult<PdfStream> directFilterResult = null;
         if (imageToWrite == null) {
+            // registered codecs take precedence over the built-in processing
+            directFilterResult = filter.filterImageWithCodecs(filteredImageKey, document);
+        }
+        if (imageToWrite == null && directFilterResult == null) {
+            boolean persistable = isPersistable(filteredImageKey);
+            if (persistable) {
+                PdfStream persistedImage = persistentImagesCache.get(getFilteredImagesCache().getContentHash(
+                        filteredImageKey), filteredImageKey.getPixelAreas(), originalImage.getPdfObject());
+                if (persistedImage != null) {
+                    directFilterResult = new PdfCleanUpFilter.FilterResult<>(true, persistedImage);
+                }
+            }
+            if (directFilterResult == null) {
+                if (PdfCleanUpFilter.imageSupportsDirectCleanup(originalImage)) {
+                    directFilterResult = filter.filterImageDirectly(filteredImageKey);
+                } else if (properties.isCleanUpJpegImagesInDctDomain()
+                        && PdfCleanUpFilter.imageSupportsDctCleanup(originalImage)) {
+                    // null result means that the JPEG encoding is not supported and the image is processed as usual
+                    directFilterResult = filter.filterDctImage(filteredImageKey);
+                }
+                if (persistable && directFilterResult != null && directFilterResult.isModified()
+                        && directFilterResult.getFilterResult() != null) {
+                    persistentImagesCache.put(getFilteredImagesCache().getContentHash(filteredImageKey),
+                            filteredImageKey.getPixelAreas(), directFilterResult.getFilterResult());
+                }
+            }
+            if (directFilterResult == null) {
+                // null result means that the image fits into the memory budget and is processed as usual
+                directFilterResult = filter.filterImageInBands(filteredImageKey, document);
+            }
+        }
+
+        if (directFilterResult != null) {
+            imageToWrite = getDirectlyFilteredImage(filteredImageKey, directFilterResult, ctmForMasksFiltering);
+        } else if (imageToWrite == null) {
             PdfCleanUpFilter.FilterResult<ImageData> imageFilterResult = filter.filterImage(filteredImageKey);
             if (imageFilterResult.isModified()) {
                 ImageData filteredImageData = imageFilterResult.getFilterResult();
@@ -690,7 +797,6 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
                         }
                     }
                     imageToWrite = new PdfImageXObject(filteredImageData);
-                    getFilteredImagesCache().put(filteredImageKey, imageToWrite);
 
                     // While having been processed with java libraries, only the number of components mattered.
                     // However now we should put the correct color space dictionary as an image's resource,
@@ -698,7 +804,7 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
                     // Additional checks required as if an image format has been changed,
                     // then the old colorspace may produce an error with the new image data.
                     if (areColorSpacesDifferent(originalImage, imageToWrite)
-                            && CleanUpCsCompareUtil.isOriginalCsCompatible(originalImage, imageToWrite)) {
+                            && isOriginalCsCompatible(filteredImageKey, filteredImageData)) {
                         PdfObject originalCS = originalImage.getPdfObject().get(PdfName.ColorSpace);
                         if (originalCS != null) {
                             imageToWrite.put(PdfName.ColorSpace, originalCS);
@@ -726,6 +832,8 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
                     if (originalImage.getPdfObject().containsKey(PdfName.Decode)) {
                         imageToWrite.put(PdfName.Decode, originalImage.getPdfObject().get(PdfName.Decode));
                     }
+                    // cached image may be evicted and flushed right away, so it is cached when fully built
+                    getFilteredImagesCache().put(filteredImageKey, imageToWrite);
                 }
             } else {
                 imageToWrite = originalImage;
@@ -734,6 +842,52 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         return imageToWrite;
     }
 
+    /**
+     * Processes the result of filtering the image samples or the JPEG coefficients directly. The filtered image
+     * is a copy of the original image stream, encoded with the same filters and having the same color space,
+     * so no color space compatibility checks are required. Images filtered band by band because of the memory
+     * budget are processed here too: they are written with a device color space, as their samples are converted
+     * to 8-bit gray or RGB while being read. Images cleaned by an {@link IImageRedactionCodec} are processed here
+     * as well, their codecs are responsible for the image dictionary.
+     */
+    private PdfImageXObject getDirectlyFilteredImage(FilteredImagesCache.FilteredImageKey filteredImageKey,
+            PdfCleanUpFilter.FilterResult<PdfStream> imageFilterResult, Matrix ctmForMasksFiltering) {
+        PdfImageXObject originalImage = filteredImageKey.getImageXObject();
+        if (!imageFilterResult.isModified()) {
+            return originalImage;
+        }
+        PdfStream filteredImageStream = imageFilterResult.getFilterResult();
+        if (filteredImageStream == null) {
+            return null;
+        }
+
+        PdfImageXObject imageToWrite = new PdfImageXObject(filteredImageStream);
+        if (ctmForMasksFiltering != null
+                && !Boolean.TRUE.equals(originalImage.getPdfObject().getAsBool(PdfName.ImageMask))) {
+            filterImageMask(originalImage, PdfName.SMask, ctmForMasksFiltering, imageToWrite);
+            filterImageMask(originalImage, PdfName.Mask, ctmForMasksFiltering, imageToWrite);
+        }
+        getFilteredImagesCache().put(filteredImageKey, imageToWrite);
+        return imageToWrite;
+    }
+
+    /**
+     * Checks whether the color space of the original image can be used for the filtered image data. The decision
+     * is based on the image dictionary and the encoding parameters of the filtered data, so the images are not
+     * decoded again, and it is made once per original image.
+     */
+    private boolean isOriginalCsCompatible(FilteredImagesCache.FilteredImageKey filteredImageKey,
+            ImageData filteredImageData) {
+        FilteredImagesCache cache = getFilteredImagesCache();
+        Boolean csCompatible = cache.getOriginalCsCompatibility(filteredImageKey);
+        if (csCompatible == null) {
+            csCompatible = CleanUpCsCompareUtil.isOriginalCsCompatible(filteredImageKey.getImageXObject(),
+                    filteredImageData);
+            cache.putOriginalCsCompatibility(filteredImageKey, (boolean) csCompatible);
+        }
+        return (boolean) csCompatible;
+    }
+
     private void filterImageMask(PdfImageXObject originalImage, PdfName maskKey, Matrix ctmForMasksFiltering, PdfImageXObject imageToWrite) {
         PdfStream maskStream = originalImage.getPdfObject().getAsStream(maskKey);
         if (maskStream == null || ctmForMasksFiltering == null) {
@@ -752,19 +906,50 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         }
     }
 
+    /**
+     * Checks if the result of the image clean up can be kept in the persistent cache of filtered images. Only
+     * the images cleaned without changes of their dictionaries are kept there, as their results can be reproduced
+     * from the raw data of the filtered stream.
+     */
+    private boolean isPersistable(FilteredImagesCache.FilteredImageKey filteredImageKey) {
+        if (persistentImagesCache == null || filteredImageKey.getCleanedAreas() == null
+                || filteredImageKey.getCleanedAreas().isEmpty()) {
+            return false;
+        }
+        PdfImageXObject image = filteredImageKey.getImageXObject();
+        return PdfCleanUpFilter.imageSupportsDirectCleanup(image) || (properties.isCleanUpJpegImagesInDctDomain()
+                && PdfCleanUpFilter.imageSupportsDctCleanup(image));
+    }
+
     private FilteredImagesCache getFilteredImagesCache() {
         return filteredImagesCache != null ? filteredImagesCache : new FilteredImagesCache();
     }
 
     private void cleanInlineImage() {
         ImageRenderInfo encounteredImage = ((PdfCleanUpEventListener) getEventListener()).getEncounteredImage();
+        PdfStream originalImage = encounteredImage.getImage().getPdfObject();
+        if (!properties.isProcessInlineImages()) {
+            // the image is written as it is, see CleanUpProperties#setProcessInlineImages
+            writeInlineImage(originalImage);
+            return;
+        }
+        if (PdfCleanUpFilter.imageSupportsDirectCleanup(encounteredImage.getImage())) {
+            // inline images are usually small, so their samples are cleaned without the image decoders and encoders
+            PdfCleanUpFilter.FilterResult<PdfStream> directFilterResult = filter.filterImageDirectly(encounteredImage);
+            PdfStream imageToWrite = directFilterResult.isModified() ? directFilterResult.getFilterResult()
+                    : originalImage;
+            if (imageToWrite != null) {
+                writeInlineImage(imageToWrite);
+            }
+            return;
+        }
         PdfCleanUpFilter.FilterResult<ImageData> imageFilterResult = filter.filterImage(encounteredImage);
-        ImageData filteredImage;
-        if (imageFilterResult.isModified()) {
-            filteredImage = imageFilterResult.getFilterResult();
-        } else {
-            filteredImage = ImageDataFactory.create(encounteredImage.getImage().getImageBytes());
+        if (!imageFilterResult.isModified()) {
+            // the image doesn't intersect any region, so it is written as it was, without decoding and re-encoding
+            writeInlineImage(originalImage);
+            return;
         }
+        ImageData filteredImage = imageFilterResult.getFilterResult();
         if (filteredImage != null) {
             Boolean imageMaskFlag = encounteredImage.getImage().getPdfObject().getAsBool(PdfName.ImageMask);
             if (imageMaskFlag != null && (boolean) imageMaskFlag) {
@@ -777,12 +962,13 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
 
             getCanvas().addImageWithTransformationMatrix(filteredImage, ctm[0], ctm[1], ctm[2], ctm[3], ctm[4], ctm[5], true);
         }
+    }
 
-        // PdfCanvas doesn't have a method that writes inline image using pdf stream, and only have method which
-        // accepts Image as parameter. That's why we can't write image just as it was in original file, we convert it to Image.
-
-        // IMPORTANT: If writing of pdf stream of not changed inline image will be implemented, don't forget to ensure that
-        // inline image color space is present in new resources if necessary.
+    private void writeInlineImage(PdfStream inlineImage) {
+        float[] ctm = pollNotAppliedCtm();
+        writeNotAppliedGsParams(false, false);
+        openNotWrittenTags();
+        InlineImageWriter.writeInlineImage(getCanvas(), inlineImage, getResources(), ctm);
     }
 
     private void writePath() {
@@ -810,8 +996,10 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
 
         Path fillPath = null;
         PdfCanvas canvas = getCanvas();
+        // paths which aren't processed are written as they are, see CleanUpProperties#setProcessPaths
+        boolean processPaths = properties.isProcessPaths();
         if (fill) {
-            fillPath = filter.filterFillPath(path, path.getRule());
+            fillPath = processPaths ? filter.filterFillPath(path, path.getRule()) : path.getPath();
             if (!fillPath.isEmpty()) {
                 writeNotAppliedGsParams(true, false);
                 openNotWrittenTags();
@@ -825,7 +1013,8 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
         }
 
         if (stroke) {
-            Tuple2<Path, Boolean> strokePath = filter.filterStrokePath(path);
+            Tuple2<Path, Boolean> strokePath = processPaths ? filter.filterStrokePath(path)
+                    : new Tuple2<>(path.getPath(), Boolean.FALSE);
             if (!strokePath.getFirst().isEmpty()) {
                 if (strokePath.getSecond()) {
                     // we pass stroke here as false, because stroke is transformed into fill. we don't need to set stroke color
@@ -844,6 +1033,8 @@ public class PdfCleanUpProcessor extends PdfCanvasProcessor {
             Path clippingPath;
             if (fill && path.getClippingRule() == path.getRule()) {
                 clippingPath = fillPath;
+            } else if (!processPaths) {
+                clippingPath = path.getPath();
             } else {
                 clippingPath = filter.filterFillPath(path, path.getClippingRule());
             }
@@ -61,9 +61,13 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Represents the main mechanism for cleaning a PDF document.
@@ -81,6 +85,14 @@ public class PdfCleanUpTool {
 
     private final FilteredImagesCache filteredImagesCache;
 
+    private PersistentFilteredImagesCache persistentImagesCache;
+
+    /**
+     * Page contents recorded while the regions of the pages were looked for, see
+     * {@link #addRecordedPageContent(int, RecordedPageContent)}.
+     */
+    private final Map<Integer, RecordedPageContent> recordedPageContents = new HashMap<>();
+
     /**
      * Keys - redact annotations to be removed from the document after clean up,
      * values - list of regions defined by redact annotation.
@@ -119,8 +131,14 @@ public class PdfCleanUpTool {
         }
         this.properties = properties;
         this.pdfDocument = pdfDocument;
-        this.pdfCleanUpLocations = new HashMap<>();
-        this.filteredImagesCache = new FilteredImagesCache();
+        this.pdfCleanUpLocations = new TreeMap<>();
+        // images released by the cache are not kept in memory until the document is closed if pages are flushed
+        this.filteredImagesCache = new FilteredImagesCache(properties.getFilteredImagesCacheBudget(),
+                properties.isFlushEvictedImages() || properties.isFlushPagesAfterCleanUp());
+        if (properties.getPersistentImagesCacheDirectory() != null) {
+            this.persistentImagesCache = new PersistentFilteredImagesCache(
+                    properties.getPersistentImagesCacheDirectory(), properties.getPersistentImagesCacheMaxSize());
+        }
 
         if (cleanRedactAnnotations) {
             addCleanUpLocationsBasedOnRedactAnnotations();
@@ -143,6 +161,16 @@ public class PdfCleanUpTool {
         }
     }
 
+    /**
+     * Gets the statistics of the cache of filtered images, which is shared by all clean up operations of this tool.
+     * See {@link CleanUpProperties#setFilteredImagesCacheBudget(long)}.
+     *
+     * @return the snapshot of the filtered images cache statistics
+     */
+    public FilteredImagesCacheStatistics getFilteredImagesCacheStatistics() {
+        return filteredImagesCache.getStatistics();
+    }
+
     /**
      * Adds a {@link PdfCleanUpLocation} to be cleaned up.
      *
@@ -161,20 +189,145 @@ public class PdfCleanUpTool {
         return this;
     }
 
+    /**
+     * Adds the page content recorded while the regions of the page were looked for. It is replayed instead of
+     * parsing the page content stream when the page is cleaned up, and released right after that.
+     *
+     * @param pageNumber the number of the page
+     * @param content    the recorded content of the page
+     */
+    void addRecordedPageContent(int pageNumber, RecordedPageContent content) {
+        recordedPageContents.put(pageNumber, content);
+    }
+
     /**
      * Cleans the document by erasing all the areas which are provided or extracted from redaction annotations.
      *
      * @throws IOException IOException
      */
     public void cleanUp() throws IOException {
-        for (Map.Entry<Integer, List<PdfCleanUpLocation>> entry : pdfCleanUpLocations.entrySet()) {
-            cleanUpPage(entry.getKey(), entry.getValue());
+        if (properties.isFlushPagesAfterCleanUp()) {
+            cleanUpAndFlushPages();
+        } else {
+            for (Map.Entry<Integer, List<PdfCleanUpLocation>> entry : pdfCleanUpLocations.entrySet()) {
+                cleanUpPage(entry.getKey(), entry.getValue());
+            }
         }
 
         if (redactAnnotations != null) { // if it isn't null, then we are in "extract locations from redact annots" mode
             removeRedactAnnots();
         }
         pdfCleanUpLocations.clear();
+        filteredImagesCache.flushReleasedImages();
+    }
+
+    /**
+     * Cleans the document by erasing the areas which are supplied page by page, as well as all the areas which are
+     * provided or extracted from redaction annotations.
+     *
+     * <p>
+     * The regions of a page are pulled from the iterator only when the page is about to be processed and are
+     * released right after it, so the whole set of regions never has to be kept in memory. Consecutive entries
+     * with the same page number are processed together. If pages are flushed after clean up, see
+     * {@link CleanUpProperties#setFlushPagesAfterCleanUp(boolean)}, the entries must be sorted by page number.
+     *
+     * @param pageRegions the iterator over the regions to be erased, sorted by page number
+     *
+     * @throws IOException IOException
+     */
+    public void cleanUp(Iterator<PdfCleanUpPageRegions> pageRegions) throws IOException {
+        Map<Integer, List<PdfRedactAnnotation>> redactAnnotsByPage = properties.isFlushPagesAfterCleanUp()
+                ? groupRedactAnnotsByPage() : null;
+
+        PdfCleanUpPageRegions next = pageRegions.hasNext() ? pageRegions.next() : null;
+        while (next != null) {
+            int pageNumber = next.getPage();
+            if (redactAnnotsByPage != null && pdfDocument.getPage(pageNumber).isFlushed()) {
+                throw new PdfException(CleanupExceptionMessageConstant.CLEANUP_REGIONS_SHOULD_BE_SORTED_BY_PAGE);
+            }
+
+            List<PdfCleanUpLocation> pageLocations = pdfCleanUpLocations.remove(pageNumber);
+            if (pageLocations == null) {
+                pageLocations = new ArrayList<>();
+            }
+            while (next != null && next.getPage() == pageNumber) {
+                for (int i = 0; i < next.getRegionsCount(); ++i) {
+                    pageLocations.add(new PdfCleanUpLocation(pageNumber, next.getRegion(i), next.getCleanUpColor(i)));
+                }
+                next = pageRegions.hasNext() ? pageRegions.next() : null;
+            }
+
+            cleanUpPage(pageNumber, pageLocations);
+            if (redactAnnotsByPage != null) {
+                finishAndFlushPage(pageNumber, redactAnnotsByPage.remove(pageNumber));
+            }
+        }
+
+        cleanUp();
+    }
+
+    /**
+     * Cleans the pages in ascending order and flushes every page right after its content and the redact
+     * annotations related to it have been processed, so that only one page is kept in memory at a time.
+     *
+     * @throws IOException signals that an I/O exception has occurred during redaction.
+     */
+    private void cleanUpAndFlushPages() throws IOException {
+        Map<Integer, List<PdfRedactAnnotation>> redactAnnotsByPage = groupRedactAnnotsByPage();
+
+        SortedSet<Integer> pageNumbers = new TreeSet<>(pdfCleanUpLocations.keySet());
+        pageNumbers.addAll(redactAnnotsByPage.keySet());
+        for (int pageNumber : pageNumbers) {
+            List<PdfCleanUpLocation> pageLocations = pdfCleanUpLocations.get(pageNumber);
+            if (pageLocations != null) {
+                cleanUpPage(pageNumber, pageLocations);
+            }
+            finishAndFlushPage(pageNumber, redactAnnotsByPage.get(pageNumber));
+        }
+    }
+
+    /**
+     * Removes the redact annotations related to the cleaned up page and flushes it, together with the filtered
+     * images released by the cache of filtered images.
+     *
+     * @param pageNumber the number of the cleaned up page
+     * @param pageAnnots the redact annotations of the page, may be {@code null}
+     *
+     * @throws IOException signals that an I/O exception has occurred during redaction.
+     */
+    private void finishAndFlushPage(int pageNumber, List<PdfRedactAnnotation> pageAnnots) throws IOException {
+        if (pageAnnots != null) {
+            for (PdfRedactAnnotation annotation : pageAnnots) {
+                removeRedactAnnot(annotation);
+                redactAnnotations.remove(annotation);
+            }
+        }
+
+        PdfPage page = pdfDocument.getPage(pageNumber);
+        if (!page.isFlushed()) {
+            page.flush();
+        }
+        filteredImagesCache.flushReleasedImages();
+    }
+
+    private Map<Integer, List<PdfRedactAnnotation>> groupRedactAnnotsByPage() {
+        Map<Integer, List<PdfRedactAnnotation>> redactAnnotsByPage = new TreeMap<>();
+        if (redactAnnotations != null) {
+            for (PdfRedactAnnotation annotation : redactAnnotations.keySet()) {
+                PdfPage page = annotation.getPage();
+                if (page == null) {
+                    continue;
+                }
+                int pageNumber = pdfDocument.getPageNumber(page);
+                List<PdfRedactAnnotation> pageAnnots = redactAnnotsByPage.get(pageNumber);
+                if (pageAnnots == null) {
+                    pageAnnots = new ArrayList<>();
+                    redactAnnotsByPage.put(pageNumber, pageAnnots);
+                }
+                pageAnnots.add(annotation);
+            }
+        }
+        return redactAnnotsByPage;
     }
 
     /**
@@ -197,12 +350,23 @@ public class PdfCleanUpTool {
         PdfPage page = pdfDocument.getPage(pageNumber);
         PdfCleanUpProcessor cleanUpProcessor = new PdfCleanUpProcessor(regions, pdfDocument, this.properties);
         cleanUpProcessor.setFilteredImagesCache(filteredImagesCache);
-        cleanUpProcessor.processPageContent(page);
+        cleanUpProcessor.setPersistentImagesCache(persistentImagesCache);
+        RecordedPageContent recordedPageContent = recordedPageContents.remove(pageNumber);
+        PdfCanvas pageCleanedContents;
+        if (properties.isOptimizeScannedPages() && properties.getOverlapRatio() == null
+                && properties.isProcessText() && properties.isProcessImages()
+                && ScannedPageClassifier.isScannedPage(page)) {
+            pageCleanedContents = new ScannedPageCleaner(cleanUpProcessor, new PdfCleanUpFilter(regions, properties))
+                    .cleanUp(page);
+        } else {
+            cleanUpProcessor.setRecordedPageContent(recordedPageContent);
+            cleanUpProcessor.processPageContent(page);
+            pageCleanedContents = cleanUpProcessor.popCleanedCanvas();
+        }
         if (properties.isProcessAnnotations()) {
             cleanUpProcessor.processPageAnnotations(page, regions, redactAnnotations != null);
         }
 
-        PdfCanvas pageCleanedContents = cleanUpProcessor.popCleanedCanvas();
         page.put(PdfName.Contents, pageCleanedContents.getContentStream());
         page.setResources(pageCleanedContents.getResources());
 
@@ -333,27 +497,38 @@ public class PdfCleanUpTool {
      */
     private void removeRedactAnnots() throws IOException {
         for (PdfRedactAnnotation annotation : redactAnnotations.keySet()) {
-            PdfPage page = annotation.getPage();
-            if (page != null) {
-                page.removeAnnotation(annotation);
+            removeRedactAnnot(annotation);
+        }
+    }
 
-                PdfPopupAnnotation popup = annotation.getPopup();
-                if (popup != null) {
-                    page.removeAnnotation(popup);
-                }
+    /**
+     * Remove a single redaction annotation and draw its overlay appearance if it is specified.
+     *
+     * @param annotation the redaction annotation to be removed
+     *
+     * @throws IOException signals that an I/O exception has occurred during redaction.
+     */
+    private void removeRedactAnnot(PdfRedactAnnotation annotation) throws IOException {
+        PdfPage page = annotation.getPage();
+        if (page != null) {
+            page.removeAnnotation(annotation);
+
+            PdfPopupAnnotation popup = annotation.getPopup();
+            if (popup != null) {
+                page.removeAnnotation(popup);
             }
+        }
 
-            PdfCanvas canvas = new PdfCanvas(page);
-            PdfStream redactRolloverAppearance = annotation.getRedactRolloverAppearance();
-            PdfString overlayText = annotation.getOverlayText();
-            Rectangle annotRect = annotation.getRectangle().toRectangle();
+        PdfCanvas canvas = new PdfCanvas(page);
+        PdfStream redactRolloverAppearance = annotation.getRedactRolloverAppearance();
+        PdfString overlayText = annotation.getOverlayText();
+        Rectangle annotRect = annotation.getRectangle().toRectangle();
 
-            if (redactRolloverAppearance != null) {
-                drawRolloverAppearance(canvas, redactRolloverAppearance, annotRect, redactAnnotations.get(annotation));
-            } else if (overlayText != null && !overlayText.toUnicodeString().isEmpty()) {
-                drawOverlayText(canvas, overlayText.toUnicodeString(), annotRect, annotation.getRepeat(),
-                        annotation.getDefaultAppearance(), annotation.getJustification());
-            }
+        if (redactRolloverAppearance != null) {
+            drawRolloverAppearance(canvas, redactRolloverAppearance, annotRect, redactAnnotations.get(annotation));
+        } else if (overlayText != null && !overlayText.toUnicodeString().isEmpty()) {
+            drawOverlayText(canvas, overlayText.toUnicodeString(), annotRect, annotation.getRepeat(),
+                    annotation.getDefaultAppearance(), annotation.getJustification());
         }
     }
 
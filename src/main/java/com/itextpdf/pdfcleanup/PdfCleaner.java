@@ -23,10 +23,12 @@
 package com.itextpdf.pdfcleanup;
 
 import com.itextpdf.commons.actions.contexts.IMetaInfo;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.ReaderProperties;
 import com.itextpdf.kernel.pdf.StampingProperties;
 import com.itextpdf.pdfcleanup.autosweep.ICleanupStrategy;
 import com.itextpdf.pdfcleanup.autosweep.PdfAutoSweepTools;
@@ -34,7 +36,14 @@ import com.itextpdf.pdfcleanup.autosweep.PdfAutoSweepTools;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -45,6 +54,13 @@ import java.util.List;
  * post-process the document, or in an {@link OutputStream} in a form of a complete PDF file.
  *
  * <p>
+ * Overloads with {@link Path} parameters behave the same way as the InputStream/OutputStream ones, but read the
+ * input file through a memory-mapped source and write the output through a {@link FileChannel}, so that big input
+ * files never have to be buffered on the heap. Overloads with {@link SeekableByteChannel} and
+ * {@link WritableByteChannel} parameters read the input on demand through a small window and leave both channels
+ * open, so they can be used with channels backed by chunked or remote storage.
+ *
+ * <p>
  * The important difference between overloads with InputStream/OutputStream parameters and
  * {@link PdfDocument} parameter is in the consumption of product license limits.
  */
@@ -84,15 +100,94 @@ public final class PdfCleaner {
      */
     public static void cleanUp(InputStream inputPdf, OutputStream outputPdf, List<PdfCleanUpLocation> cleanUpLocations,
             CleanUpProperties properties) throws IOException {
-        StampingProperties stampingProperties = new StampingProperties();
-        IMetaInfo propertiesMetaInfo = properties.getMetaInfo();
-        stampingProperties
-                .setEventCountingMetaInfo(propertiesMetaInfo == null ? new CleanUpToolMetaInfo() : propertiesMetaInfo);
-
         try (
                 PdfReader reader = new PdfReader(inputPdf);
                 PdfWriter writer = new PdfWriter(outputPdf);
-                PdfDocument pdfDocument = new PdfDocument(reader, writer, stampingProperties)
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
+        ) {
+            cleanUp(pdfDocument, cleanUpLocations, properties);
+        }
+    }
+
+    /**
+     * Cleans the document by erasing all the areas which are provided.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf         the path to the pdf document to which cleaned up applies
+     * @param outputPdf        the path to the cleaned up pdf document
+     * @param cleanUpLocations list of locations to be cleaned up
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUp(Path inputPdf, Path outputPdf, List<PdfCleanUpLocation> cleanUpLocations)
+            throws IOException {
+        cleanUp(inputPdf, outputPdf, cleanUpLocations, new CleanUpProperties());
+    }
+
+    /**
+     * Cleans the document by erasing all the areas which are provided.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf         the path to the pdf document to which cleaned up applies
+     * @param outputPdf        the path to the cleaned up pdf document
+     * @param cleanUpLocations list of locations to be cleaned up
+     * @param properties       additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUp(Path inputPdf, Path outputPdf, List<PdfCleanUpLocation> cleanUpLocations,
+            CleanUpProperties properties) throws IOException {
+        try (
+                PdfReader reader = createReader(inputPdf);
+                PdfWriter writer = createWriter(outputPdf);
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
+        ) {
+            cleanUp(pdfDocument, cleanUpLocations, properties);
+        }
+    }
+
+    /**
+     * Cleans the document by erasing all the areas which are provided.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf         the channel of the pdf document to which cleaned up applies
+     * @param outputPdf        the channel for the cleaned up pdf document
+     * @param cleanUpLocations list of locations to be cleaned up
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUp(SeekableByteChannel inputPdf, WritableByteChannel outputPdf,
+            List<PdfCleanUpLocation> cleanUpLocations) throws IOException {
+        cleanUp(inputPdf, outputPdf, cleanUpLocations, new CleanUpProperties());
+    }
+
+    /**
+     * Cleans the document by erasing all the areas which are provided.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf         the channel of the pdf document to which cleaned up applies
+     * @param outputPdf        the channel for the cleaned up pdf document
+     * @param cleanUpLocations list of locations to be cleaned up
+     * @param properties       additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUp(SeekableByteChannel inputPdf, WritableByteChannel outputPdf,
+            List<PdfCleanUpLocation> cleanUpLocations, CleanUpProperties properties) throws IOException {
+        try (
+                PdfReader reader = createReader(inputPdf);
+                PdfWriter writer = createWriter(outputPdf);
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
         ) {
             cleanUp(pdfDocument, cleanUpLocations, properties);
         }
@@ -129,6 +224,45 @@ public final class PdfCleaner {
         cleanUpTool.cleanUp();
     }
 
+    /**
+     * Cleans the document by erasing all the areas which are supplied page by page. The regions of a page are pulled
+     * from the iterator only while the page is processed, so huge numbers of regions never have to be materialized.
+     * Note, use methods with InputStream/OutputStream params if you don't want to consume itext-core product license
+     * limits.
+     *
+     * @param pdfDocument a document to which cleaned up applies
+     * @param pageRegions iterator over the regions to be cleaned up, sorted by page number
+     * @param properties  additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUp(PdfDocument pdfDocument, Iterator<PdfCleanUpPageRegions> pageRegions,
+            CleanUpProperties properties) throws IOException {
+        PdfCleanUpTool cleanUpTool = new PdfCleanUpTool(pdfDocument, false, properties);
+        cleanUpTool.cleanUp(pageRegions);
+    }
+
+    /**
+     * Cleans the document by erasing all the areas stored in a {@link PdfCleanUpLocationsManifest} file, e.g. written
+     * by {@link PdfAutoSweepTools#writeLocationsManifest(PdfDocument, OutputStream)}. The manifest is mapped into
+     * memory and the regions of a page are decoded only while the page is processed.
+     * Note, use methods with InputStream/OutputStream params if you don't want to consume itext-core product license
+     * limits.
+     *
+     * @param pdfDocument       a document to which cleaned up applies
+     * @param locationsManifest the path to the manifest with the locations to be cleaned up
+     * @param properties        additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws com.itextpdf.kernel.exceptions.PdfException if the manifest has been produced from a different document
+     */
+    public static void cleanUp(PdfDocument pdfDocument, Path locationsManifest, CleanUpProperties properties)
+            throws IOException {
+        PdfCleanUpLocationsManifest manifest = PdfCleanUpLocationsManifest.open(locationsManifest);
+        manifest.checkDocument(pdfDocument);
+        cleanUp(pdfDocument, manifest.iterator(), properties);
+    }
+
     /**
      * Perform cleanup of areas of interest based on a given cleanup strategy.
      * Note, use methods with InputStream/OutputStream params if you don't want to consume itext-core product license
@@ -194,15 +328,134 @@ public final class PdfCleaner {
      */
     public static void autoSweepCleanUp(InputStream inputPdf, OutputStream outputPdf, ICleanupStrategy strategy,
             List<PdfCleanUpLocation> additionalCleanUpLocations, CleanUpProperties properties) throws IOException {
-        StampingProperties stampingProperties = new StampingProperties();
-        IMetaInfo propertiesMetaInfo = properties.getMetaInfo();
-        stampingProperties
-                .setEventCountingMetaInfo(propertiesMetaInfo == null ? new CleanUpToolMetaInfo() : propertiesMetaInfo);
-
         try (
                 PdfReader reader = new PdfReader(inputPdf);
                 PdfWriter writer = new PdfWriter(outputPdf);
-                PdfDocument pdfDocument = new PdfDocument(reader, writer, stampingProperties)
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
+        ) {
+            autoSweepCleanUp(pdfDocument, strategy, additionalCleanUpLocations, properties);
+        }
+    }
+
+    /**
+     * Perform cleanup of areas of interest based on a given cleanup strategy.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf  the path to the pdf document to which cleaned up applies
+     * @param outputPdf the path to the cleaned up pdf document
+     * @param strategy  cleanup strategy to be used
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void autoSweepCleanUp(Path inputPdf, Path outputPdf, ICleanupStrategy strategy)
+            throws IOException {
+        autoSweepCleanUp(inputPdf, outputPdf, strategy, new CleanUpProperties());
+    }
+
+    /**
+     * Perform cleanup of areas of interest based on a given cleanup strategy.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf   the path to the pdf document to which cleaned up applies
+     * @param outputPdf  the path to the cleaned up pdf document
+     * @param strategy   cleanup strategy to be used
+     * @param properties additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void autoSweepCleanUp(Path inputPdf, Path outputPdf, ICleanupStrategy strategy,
+            CleanUpProperties properties) throws IOException {
+        autoSweepCleanUp(inputPdf, outputPdf, strategy, Collections.<PdfCleanUpLocation>emptyList(), properties);
+    }
+
+    /**
+     * Perform cleanup of areas of interest based on a given cleanup strategy.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf                   the path to the pdf document to which cleaned up applies
+     * @param outputPdf                  the path to the cleaned up pdf document
+     * @param strategy                   cleanup strategy to be used
+     * @param additionalCleanUpLocations list of additional locations to be cleaned up
+     * @param properties                 additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void autoSweepCleanUp(Path inputPdf, Path outputPdf, ICleanupStrategy strategy,
+            List<PdfCleanUpLocation> additionalCleanUpLocations, CleanUpProperties properties) throws IOException {
+        try (
+                PdfReader reader = createReader(inputPdf);
+                PdfWriter writer = createWriter(outputPdf);
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
+        ) {
+            autoSweepCleanUp(pdfDocument, strategy, additionalCleanUpLocations, properties);
+        }
+    }
+
+    /**
+     * Perform cleanup of areas of interest based on a given cleanup strategy.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf  the channel of the pdf document to which cleaned up applies
+     * @param outputPdf the channel for the cleaned up pdf document
+     * @param strategy  cleanup strategy to be used
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void autoSweepCleanUp(SeekableByteChannel inputPdf, WritableByteChannel outputPdf,
+            ICleanupStrategy strategy) throws IOException {
+        autoSweepCleanUp(inputPdf, outputPdf, strategy, new CleanUpProperties());
+    }
+
+    /**
+     * Perform cleanup of areas of interest based on a given cleanup strategy.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf   the channel of the pdf document to which cleaned up applies
+     * @param outputPdf  the channel for the cleaned up pdf document
+     * @param strategy   cleanup strategy to be used
+     * @param properties additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void autoSweepCleanUp(SeekableByteChannel inputPdf, WritableByteChannel outputPdf,
+            ICleanupStrategy strategy, CleanUpProperties properties) throws IOException {
+        autoSweepCleanUp(inputPdf, outputPdf, strategy, Collections.<PdfCleanUpLocation>emptyList(), properties);
+    }
+
+    /**
+     * Perform cleanup of areas of interest based on a given cleanup strategy.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf                   the channel of the pdf document to which cleaned up applies
+     * @param outputPdf                  the channel for the cleaned up pdf document
+     * @param strategy                   cleanup strategy to be used
+     * @param additionalCleanUpLocations list of additional locations to be cleaned up
+     * @param properties                 additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void autoSweepCleanUp(SeekableByteChannel inputPdf, WritableByteChannel outputPdf,
+            ICleanupStrategy strategy, List<PdfCleanUpLocation> additionalCleanUpLocations,
+            CleanUpProperties properties) throws IOException {
+        try (
+                PdfReader reader = createReader(inputPdf);
+                PdfWriter writer = createWriter(outputPdf);
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
         ) {
             autoSweepCleanUp(pdfDocument, strategy, additionalCleanUpLocations, properties);
         }
@@ -235,8 +488,7 @@ public final class PdfCleaner {
      */
     public static void autoSweepCleanUp(PdfDocument pdfDocument, ICleanupStrategy strategy,
             CleanUpProperties properties) throws IOException {
-        List<PdfCleanUpLocation> cleanUpLocations = new PdfAutoSweepTools(strategy).getPdfCleanUpLocations(pdfDocument);
-        cleanUp(pdfDocument, cleanUpLocations, properties);
+        autoSweepCleanUp(pdfDocument, strategy, Collections.<PdfCleanUpLocation>emptyList(), properties);
     }
 
     /**
@@ -252,9 +504,7 @@ public final class PdfCleaner {
      */
     public static void autoSweepCleanUp(PdfDocument pdfDocument, ICleanupStrategy strategy,
             List<PdfCleanUpLocation> additionalCleanUpLocations) throws IOException {
-        List<PdfCleanUpLocation> cleanUpLocations = new PdfAutoSweepTools(strategy).getPdfCleanUpLocations(pdfDocument);
-        cleanUpLocations.addAll(additionalCleanUpLocations);
-        cleanUp(pdfDocument, cleanUpLocations, new CleanUpProperties());
+        autoSweepCleanUp(pdfDocument, strategy, additionalCleanUpLocations, new CleanUpProperties());
     }
 
     /**
@@ -271,6 +521,11 @@ public final class PdfCleaner {
      */
     public static void autoSweepCleanUp(PdfDocument pdfDocument, ICleanupStrategy strategy,
             List<PdfCleanUpLocation> additionalCleanUpLocations, CleanUpProperties properties) throws IOException {
+        if (properties.isSinglePassAutoSweep()) {
+            PdfCleanUpTool cleanUpTool = new PdfCleanUpTool(pdfDocument, additionalCleanUpLocations, properties);
+            cleanUpTool.cleanUp(new AutoSweepPageRegionsIterator(pdfDocument, strategy, cleanUpTool));
+            return;
+        }
         List<PdfCleanUpLocation> cleanUpLocations = new PdfAutoSweepTools(strategy).getPdfCleanUpLocations(pdfDocument);
         cleanUpLocations.addAll(additionalCleanUpLocations);
         cleanUp(pdfDocument, cleanUpLocations, properties);
@@ -450,15 +705,10 @@ public final class PdfCleaner {
      */
     public static void cleanUpRedactAnnotations(InputStream inputPdf, OutputStream outputPdf,
             List<PdfCleanUpLocation> additionalCleanUpLocations, CleanUpProperties properties) throws IOException {
-        StampingProperties stampingProperties = new StampingProperties();
-        IMetaInfo propertiesMetaInfo = properties.getMetaInfo();
-        stampingProperties
-                .setEventCountingMetaInfo(propertiesMetaInfo == null ? new CleanUpToolMetaInfo() : propertiesMetaInfo);
-
         try (
                 PdfReader reader = new PdfReader(inputPdf);
                 PdfWriter writer = new PdfWriter(outputPdf);
-                PdfDocument pdfDocument = new PdfDocument(reader, writer, stampingProperties)
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
         ) {
             cleanUpRedactAnnotations(pdfDocument, additionalCleanUpLocations, properties);
         }
@@ -487,6 +737,166 @@ public final class PdfCleaner {
         cleanUpTool.cleanUp();
     }
 
+    /**
+     * Cleans the document by erasing regions defined by redact annotations inside the document.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf  the path to the pdf document to which cleaned up applies
+     * @param outputPdf the path to the cleaned up pdf document
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUpRedactAnnotations(Path inputPdf, Path outputPdf) throws IOException {
+        cleanUpRedactAnnotations(inputPdf, outputPdf, new CleanUpProperties());
+    }
+
+    /**
+     * Cleans the document by erasing regions defined by redact annotations inside the document.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf   the path to the pdf document to which cleaned up applies
+     * @param outputPdf  the path to the cleaned up pdf document
+     * @param properties additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUpRedactAnnotations(Path inputPdf, Path outputPdf, CleanUpProperties properties)
+            throws IOException {
+        cleanUpRedactAnnotations(inputPdf, outputPdf, null, properties);
+    }
+
+    /**
+     * Cleans the document by erasing regions defined by redact annotations and additional cleanup locations inside the
+     * document.
+     * The input file is read through a memory-mapped source, so it is never buffered on the heap as a whole.
+     * Note, use methods with InputStream/OutputStream or Path params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf                   the path to the pdf document to which cleaned up applies
+     * @param outputPdf                  the path to the cleaned up pdf document
+     * @param additionalCleanUpLocations list of locations to be cleaned up
+     * @param properties                 additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUpRedactAnnotations(Path inputPdf, Path outputPdf,
+            List<PdfCleanUpLocation> additionalCleanUpLocations, CleanUpProperties properties) throws IOException {
+        try (
+                PdfReader reader = createReader(inputPdf);
+                PdfWriter writer = createWriter(outputPdf);
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
+        ) {
+            cleanUpRedactAnnotations(pdfDocument, additionalCleanUpLocations, properties);
+        }
+    }
+
+    /**
+     * Cleans the document by erasing regions defined by redact annotations inside the document.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf  the channel of the pdf document to which cleaned up applies
+     * @param outputPdf the channel for the cleaned up pdf document
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUpRedactAnnotations(SeekableByteChannel inputPdf, WritableByteChannel outputPdf)
+            throws IOException {
+        cleanUpRedactAnnotations(inputPdf, outputPdf, new CleanUpProperties());
+    }
+
+    /**
+     * Cleans the document by erasing regions defined by redact annotations inside the document.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf   the channel of the pdf document to which cleaned up applies
+     * @param outputPdf  the channel for the cleaned up pdf document
+     * @param properties additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUpRedactAnnotations(SeekableByteChannel inputPdf, WritableByteChannel outputPdf,
+            CleanUpProperties properties) throws IOException {
+        cleanUpRedactAnnotations(inputPdf, outputPdf, null, properties);
+    }
+
+    /**
+     * Cleans the document by erasing regions defined by redact annotations and additional cleanup locations inside the
+     * document.
+     * The input channel is read on demand, so the document is never materialized in memory as a whole. Neither
+     * of the channels is closed by this method.
+     * Note, use methods with InputStream/OutputStream or channel params if you don't want to consume itext-core
+     * product license limits.
+     *
+     * @param inputPdf                   the channel of the pdf document to which cleaned up applies
+     * @param outputPdf                  the channel for the cleaned up pdf document
+     * @param additionalCleanUpLocations list of locations to be cleaned up
+     * @param properties                 additional properties for cleanUp
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public static void cleanUpRedactAnnotations(SeekableByteChannel inputPdf, WritableByteChannel outputPdf,
+            List<PdfCleanUpLocation> additionalCleanUpLocations, CleanUpProperties properties) throws IOException {
+        try (
+                PdfReader reader = createReader(inputPdf);
+                PdfWriter writer = createWriter(outputPdf);
+                PdfDocument pdfDocument = new PdfDocument(reader, writer, createStampingProperties(properties))
+        ) {
+            cleanUpRedactAnnotations(pdfDocument, additionalCleanUpLocations, properties);
+        }
+    }
+
+    /**
+     * Initializes the image processing infrastructure (AWT, ImageIO plugins and color management) used to clean up
+     * images which can't be processed on the level of their PDF samples. The infrastructure is otherwise initialized
+     * lazily, when such an image is cleaned up for the first time, so the call is optional: it allows applications
+     * to pay the initialization cost at startup rather than during the first clean up. Documents which only require
+     * text and vector graphics to be cleaned up never initialize it.
+     */
+    public static void warmUpImageProcessing() {
+        AwtRasterImageProcessor.getInstance().warmUp();
+    }
+
+    private static StampingProperties createStampingProperties(CleanUpProperties properties) {
+        StampingProperties stampingProperties = new StampingProperties();
+        IMetaInfo propertiesMetaInfo = properties.getMetaInfo();
+        stampingProperties
+                .setEventCountingMetaInfo(propertiesMetaInfo == null ? new CleanUpToolMetaInfo() : propertiesMetaInfo);
+        return stampingProperties;
+    }
+
+    private static PdfReader createReader(Path inputPdf) throws IOException {
+        // RandomAccessSourceFactory maps the file into memory instead of reading it into a byte array
+        return new PdfReader(new RandomAccessSourceFactory().createBestSource(inputPdf.toString()),
+                new ReaderProperties());
+    }
+
+    private static PdfReader createReader(SeekableByteChannel inputPdf) throws IOException {
+        return new PdfReader(new SeekableByteChannelRandomAccessSource(inputPdf), new ReaderProperties());
+    }
+
+    private static PdfWriter createWriter(Path outputPdf) throws IOException {
+        FileChannel channel = FileChannel.open(outputPdf, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new PdfWriter(Channels.newOutputStream(channel));
+    }
+
+    private static PdfWriter createWriter(WritableByteChannel outputPdf) {
+        PdfWriter writer = new PdfWriter(Channels.newOutputStream(outputPdf));
+        // the channel is owned by the caller
+        writer.setCloseStream(false);
+        return writer;
+    }
+
     static class CleanUpToolMetaInfo implements IMetaInfo {
 
     }
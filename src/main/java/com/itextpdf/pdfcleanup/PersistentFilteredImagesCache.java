@@ -0,0 +1,316 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.pdfcleanup.actions.data.PdfSweepProductData;
+import com.itextpdf.pdfcleanup.logs.CleanUpLogMessageConstant;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of the results of image clean up, shared between documents and processes.
+ *
+ * <p>
+ * Entries are addressed by a SHA-256 digest of the library version, the {@link ImageContentHash} of the original
+ * image and its {@link ImagePixelAreas}, so an entry is reused only for an identical image cleaned in the same
+ * pixels by the same version of the library. Only the images cleaned without changing their dictionary are cached,
+ * i.e. the images cleaned directly or in the DCT domain: an entry holds the raw data of the filtered image stream,
+ * which is put into a copy of the original image stream when the entry is read.
+ *
+ * <p>
+ * Entries are written to temporary files which are atomically moved to their final names, so concurrent processes
+ * never read partially written entries. When the total size of the entries exceeds the maximum size, the least
+ * recently used ones are deleted. Entries which can't be read are treated as missing, failing I/O operations are
+ * logged and don't interrupt the clean up.
+ */
+final class PersistentFilteredImagesCache {
+
+    private static final int MAGIC = 0x50534943;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int ENCODED_WITH_ORIGINAL_FILTERS = 1;
+
+    private static final String ENTRY_EXTENSION = ".img";
+
+    /**
+     * Eviction deletes entries until their total size is below this fraction of the maximum size, so that
+     * the directory is not listed on every write once the cache is full.
+     */
+    private static final double EVICTION_LOW_WATER_MARK = 0.75;
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    /**
+     * Total size of the entries as of the last directory listing plus the size of the entries written since then,
+     * or -1 if the directory hasn't been listed yet. Other processes may change the directory, so the size is
+     * approximate.
+     */
+    private long approximateSize = -1;
+
+    /**
+     * Creates an on-disk cache of filtered images.
+     *
+     * @param directory the directory of the cache, created on the first write if it doesn't exist
+     * @param maxSize   the maximum total size of the cache entries in bytes
+     */
+    PersistentFilteredImagesCache(String directory, long maxSize) {
+        this.directory = Paths.get(directory);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Retrieves the filtered image stream.
+     *
+     * @param imageHash     the content hash of the original image
+     * @param pixelAreas    the pixel areas cleaned in the image
+     * @param originalImage the original image stream
+     * @return a copy of the original image stream with the cached filtered data, or null if there is no entry
+     */
+    PdfStream get(ImageContentHash imageHash, ImagePixelAreas pixelAreas, PdfStream originalImage) {
+        Path entry = getEntryPath(imageHash, pixelAreas);
+        byte[] content;
+        try {
+            content = Files.readAllBytes(entry);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logInaccessibleCache(e);
+            return null;
+        }
+        PdfStream filteredImage = readEntry(content, originalImage);
+        if (filteredImage == null) {
+            deleteQuietly(entry);
+            return null;
+        }
+        try {
+            // the modification time of an entry is its last access time for the eviction
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the entry may have been evicted by another process meanwhile
+        }
+        return filteredImage;
+    }
+
+    /**
+     * Saves the filtered image stream. The stream should be a copy of the original image stream having either
+     * the same filters or no filters at all.
+     *
+     * @param imageHash     the content hash of the original image
+     * @param pixelAreas    the pixel areas cleaned in the image
+     * @param filteredImage the filtered image stream
+     */
+    void put(ImageContentHash imageHash, ImagePixelAreas pixelAreas, PdfStream filteredImage) {
+        byte[] data = filteredImage.getBytes(false);
+        if (data == null || data.length > maxSize) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, "entry", ".tmp");
+            try {
+                try (OutputStream os = Files.newOutputStream(temporaryFile)) {
+                    writeEntry(os, data, filteredImage.get(PdfName.Filter) != null);
+                }
+                moveAtomically(temporaryFile, getEntryPath(imageHash, pixelAreas));
+            } finally {
+                deleteQuietly(temporaryFile);
+            }
+            if (approximateSize >= 0) {
+                approximateSize += data.length;
+            }
+            if (approximateSize < 0 || approximateSize > maxSize) {
+                evict();
+            }
+        } catch (IOException e) {
+            logInaccessibleCache(e);
+        }
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory, "*" + ENTRY_EXTENSION)) {
+            for (Path entry : directoryStream) {
+                entries.add(entry);
+            }
+        }
+        final List<Long> accessTimes = new ArrayList<>(entries.size());
+        final List<Long> sizes = new ArrayList<>(entries.size());
+        long totalSize = 0;
+        List<Integer> order = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); ++i) {
+            long accessTime = -1;
+            long size = 0;
+            try {
+                accessTime = Files.getLastModifiedTime(entries.get(i)).toMillis();
+                size = Files.size(entries.get(i));
+            } catch (NoSuchFileException e) {
+                // the entry has been evicted by another process
+            }
+            accessTimes.add(accessTime);
+            sizes.add(size);
+            totalSize += size;
+            order.add(i);
+        }
+        approximateSize = totalSize;
+        if (totalSize <= maxSize) {
+            return;
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Long.compare((long) accessTimes.get((int) o1), (long) accessTimes.get((int) o2));
+            }
+        });
+        long targetSize = (long) (maxSize * EVICTION_LOW_WATER_MARK);
+        for (int i = 0; i < order.size() && approximateSize > targetSize; ++i) {
+            int index = (int) order.get(i);
+            deleteQuietly(entries.get(index));
+            approximateSize -= (long) sizes.get(index);
+        }
+    }
+
+    private Path getEntryPath(ImageContentHash imageHash, ImagePixelAreas pixelAreas) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new PdfException(e);
+        }
+        digest.update(PdfSweepProductData.getInstance().getVersion().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(imageHash.getDigest());
+        ByteBuffer bandsCount = ByteBuffer.allocate(4).putInt(pixelAreas.getBandsCount());
+        digest.update(bandsCount.array());
+        for (int band = 0; band < pixelAreas.getBandsCount(); ++band) {
+            int[] intervals = pixelAreas.getBandIntervals(band);
+            ByteBuffer bandBytes = ByteBuffer.allocate(12 + 4 * intervals.length);
+            bandBytes.putInt(pixelAreas.getBandStart(band)).putInt(pixelAreas.getBandEnd(band))
+                    .putInt(intervals.length);
+            for (int interval : intervals) {
+                bandBytes.putInt(interval);
+            }
+            digest.update(bandBytes.array());
+        }
+        StringBuilder name = new StringBuilder();
+        for (byte b : digest.digest()) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return directory.resolve(name.append(ENTRY_EXTENSION).toString());
+    }
+
+    private static void writeEntry(OutputStream os, byte[] data, boolean encodedWithOriginalFilters)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        DataOutputStream dos = new DataOutputStream(os);
+        dos.writeInt(MAGIC);
+        dos.writeInt(FORMAT_VERSION);
+        dos.writeByte(encodedWithOriginalFilters ? ENCODED_WITH_ORIGINAL_FILTERS : 0);
+        dos.writeInt(data.length);
+        dos.write(data);
+        dos.writeLong(crc.getValue());
+        dos.flush();
+    }
+
+    private static PdfStream readEntry(byte[] content, PdfStream originalImage) {
+        try {
+            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(content));
+            if (dis.readInt() != MAGIC || dis.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            boolean encodedWithOriginalFilters = dis.readByte() == ENCODED_WITH_ORIGINAL_FILTERS;
+            int length = dis.readInt();
+            if (length < 0 || length > content.length) {
+                return null;
+            }
+            byte[] data = new byte[length];
+            dis.readFully(data);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            if (dis.readLong() != crc.getValue()) {
+                return null;
+            }
+            if (encodedWithOriginalFilters) {
+                return PdfCleanUpFilter.createStreamWithEncodedData(originalImage, data);
+            }
+            PdfStream filteredImage = (PdfStream) originalImage.clone();
+            filteredImage.setData(data);
+            return filteredImage;
+        } catch (IOException e) {
+            // truncated entry
+            return null;
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // the file is locked by another process or has already been deleted
+        }
+    }
+
+    private void logInaccessibleCache(IOException e) {
+        Logger logger = LoggerFactory.getLogger(PersistentFilteredImagesCache.class);
+        logger.warn(MessageFormatUtil.format(CleanUpLogMessageConstant.PERSISTENT_IMAGES_CACHE_IS_NOT_ACCESSIBLE,
+                directory, e.getMessage()));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The operators of a page content stream, recorded while the page is processed by another listener, e.g. by
+ * a cleanup strategy looking for the locations to be cleaned up. The recorded operators are replayed by
+ * {@link PdfCleanUpProcessor} instead of tokenizing and parsing the content stream once again.
+ * <p>
+ * Only the operators of the page content stream itself are recorded. The content of form XObjects is parsed
+ * again when the form XObjects are processed.
+ */
+final class RecordedPageContent {
+
+    private final List<PdfObject[]> operators;
+
+    private RecordedPageContent(List<PdfObject[]> operators) {
+        this.operators = operators;
+    }
+
+    /**
+     * Processes the page content with the given listener and records its operators.
+     *
+     * @param page     the page to be processed
+     * @param listener the listener of the page content events
+     * @return the recorded page content
+     */
+    static RecordedPageContent record(PdfPage page, IEventListener listener) {
+        RecordingCanvasProcessor processor = new RecordingCanvasProcessor(listener);
+        processor.processPageContent(page);
+        return new RecordedPageContent(processor.operators);
+    }
+
+    /**
+     * Gets the recorded operators in the order of the content stream. Every array contains the operands of
+     * an operator followed by the operator itself, the same way they are passed to
+     * {@link PdfCanvasProcessor#invokeOperator(PdfLiteral, List)}.
+     *
+     * @return the recorded operators
+     */
+    List<PdfObject[]> getOperators() {
+        return operators;
+    }
+
+    private static final class RecordingCanvasProcessor extends PdfCanvasProcessor {
+        private final List<PdfObject[]> operators = new ArrayList<>();
+        private int contentDepth;
+
+        RecordingCanvasProcessor(IEventListener listener) {
+            super(listener);
+        }
+
+        @Override
+        public void processContent(byte[] contentBytes, PdfResources resources) {
+            ++contentDepth;
+            try {
+                super.processContent(contentBytes, resources);
+            } finally {
+                --contentDepth;
+            }
+        }
+
+        @Override
+        protected void invokeOperator(PdfLiteral operator, List<PdfObject> operands) {
+            if (contentDepth == 1) {
+                // the parser reuses the list of operands, so it is copied
+                operators.add(operands.toArray(new PdfObject[0]));
+            }
+            super.invokeOperator(operator, operands);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.io.source.PdfTokenizer;
+import com.itextpdf.io.source.RandomAccessFileOrArray;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
+import com.itextpdf.kernel.pdf.canvas.parser.util.PdfCanvasParser;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recognizes the pages of scanned documents: pages which only draw a single image XObject and, optionally,
+ * invisible text on top of it, like the text layer added by OCR. Such pages are cleaned up by
+ * {@link ScannedPageCleaner} instead of the general {@link PdfCleanUpProcessor}.
+ * <p>
+ * The classification only tokenizes the content stream, neither fonts nor images are read.
+ */
+final class ScannedPageClassifier {
+
+    private static final Set<String> TEXT_SHOWING_OPERATORS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("TJ", "Tj", "'", "\"")));
+
+    /**
+     * Operators which neither draw anything nor affect the way the image is drawn, apart from the text
+     * rendering mode operator Tr, which is checked separately.
+     */
+    private static final Set<String> ALLOWED_OPERATORS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("q", "Q", "cm", "Do", "BT", "ET", "Tc", "Tw", "Tz", "TL", "Tf", "Ts", "Td", "TD", "Tm", "T*",
+                    "TJ", "Tj", "'", "\"", "BMC", "BDC", "EMC", "MP", "DP", "CS", "SC", "SCN", "G", "RG", "K", "cs",
+                    "sc", "scn", "g", "rg", "k")));
+
+    private ScannedPageClassifier() {
+    }
+
+    /**
+     * Checks whether the page is a scanned page: its content draws exactly one image XObject, all the text
+     * of the page is shown with the invisible text rendering mode, and there are no other drawing operations.
+     *
+     * @param page the page to be checked
+     * @return {@code true} if the page is a scanned page
+     */
+    static boolean isScannedPage(PdfPage page) {
+        PdfResources resources = page.getResources();
+        PdfDictionary xObjects = resources.getResource(PdfName.XObject);
+        if (xObjects == null || xObjects.size() != 1) {
+            return false;
+        }
+        PdfStream xObject = xObjects.getAsStream(xObjects.keySet().iterator().next());
+        if (xObject == null || !PdfName.Image.equals(xObject.getAsName(PdfName.Subtype))) {
+            return false;
+        }
+
+        PdfCanvasParser parser = new PdfCanvasParser(new PdfTokenizer(new RandomAccessFileOrArray(
+                new RandomAccessSourceFactory().createSource(page.getContentBytes()))), resources);
+        List<PdfObject> operands = new ArrayList<>();
+        Deque<Integer> textRenderingModes = new ArrayDeque<>();
+        int textRenderingMode = PdfCanvasConstants.TextRenderingMode.FILL;
+        int imagesCount = 0;
+        boolean inText = false;
+        try {
+            while (parser.parse(operands).size() > 0) {
+                String operator = operands.get(operands.size() - 1).toString();
+                if ("Tr".equals(operator)) {
+                    textRenderingMode = ((PdfNumber) operands.get(0)).intValue();
+                    continue;
+                }
+                if (!ALLOWED_OPERATORS.contains(operator)) {
+                    return false;
+                }
+                if ("q".equals(operator)) {
+                    textRenderingModes.push(textRenderingMode);
+                } else if ("Q".equals(operator)) {
+                    if (!textRenderingModes.isEmpty()) {
+                        textRenderingMode = (int) textRenderingModes.pop();
+                    }
+                } else if ("BT".equals(operator)) {
+                    inText = true;
+                } else if ("ET".equals(operator)) {
+                    inText = false;
+                } else if ("Do".equals(operator)) {
+                    if (inText || !xObjects.containsKey((PdfName) operands.get(0)) || ++imagesCount > 1) {
+                        return false;
+                    }
+                } else if (TEXT_SHOWING_OPERATORS.contains(operator)
+                        && textRenderingMode != PdfCanvasConstants.TextRenderingMode.INVISIBLE) {
+                    return false;
+                }
+            }
+        } catch (IOException | ClassCastException e) {
+            // malformed content is left to the general processor
+            return false;
+        }
+        return imagesCount == 1;
+    }
+}
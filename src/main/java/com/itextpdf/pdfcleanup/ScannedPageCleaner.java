@@ -0,0 +1,168 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfTextArray;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cleans up the pages recognized by {@link ScannedPageClassifier}. The content stream is copied operator by
+ * operator, only the image and the text showing operators are replaced:
+ * <ul>
+ * <li>the image is cleaned up once with all the regions by the {@link PdfCleanUpProcessor}, and written under
+ * the same resource name,
+ * <li>the glyphs of the invisible text whose bounding boxes intersect any region are replaced with the
+ * corresponding text position adjustments.
+ * </ul>
+ * As the text is invisible and no other content is drawn, neither the graphics state nor the marked content
+ * has to be tracked and rewritten the way {@link PdfCleanUpProcessor} does it.
+ */
+final class ScannedPageCleaner extends PdfCanvasProcessor {
+
+    private static final Set<String> TEXT_SHOWING_OPERATORS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("TJ", "Tj", "'", "\"")));
+
+    private final PdfCleanUpProcessor imageProcessor;
+    private final PdfCleanUpFilter filter;
+    private PdfCanvas canvas;
+    private PdfDictionary cleanedXObjects;
+
+    /**
+     * Creates a cleaner of scanned pages.
+     *
+     * @param imageProcessor the processor which cleans up the image of the page
+     * @param filter         the filter of the regions to be cleaned up
+     */
+    ScannedPageCleaner(PdfCleanUpProcessor imageProcessor, PdfCleanUpFilter filter) {
+        super(new PdfCleanUpEventListener());
+        this.imageProcessor = imageProcessor;
+        this.filter = filter;
+    }
+
+    /**
+     * Cleans up the content of the scanned page.
+     *
+     * @param page the page recognized by {@link ScannedPageClassifier#isScannedPage(PdfPage)}
+     * @return the canvas with the cleaned content and its resources
+     */
+    PdfCanvas cleanUp(PdfPage page) {
+        // all the resources except for the image are used as they are
+        PdfDictionary resources = new PdfDictionary(page.getResources().getPdfObject());
+        cleanedXObjects = new PdfDictionary();
+        resources.put(PdfName.XObject, cleanedXObjects);
+        canvas = new PdfCanvas(new PdfStream(), new PdfResources(resources), page.getDocument());
+
+        canvas.saveState();
+        processPageContent(page);
+        canvas.restoreState();
+
+        if (cleanedXObjects.isEmpty()) {
+            resources.remove(PdfName.XObject);
+        }
+        return canvas;
+    }
+
+    @Override
+    protected void invokeOperator(PdfLiteral operator, List<PdfObject> operands) {
+        super.invokeOperator(operator, operands);
+
+        String operatorString = operator.toString();
+        if ("Do".equals(operatorString)) {
+            writeImage(operands);
+        } else if (TEXT_SHOWING_OPERATORS.contains(operatorString)) {
+            writeText(operatorString, operands);
+        } else {
+            PdfCleanUpProcessor.writeOperands(canvas, operands);
+        }
+    }
+
+    @Override
+    protected void eventOccurred(IEventData data, EventType type) {
+        // the render infos are processed right after the operator, so their graphics state isn't released
+        getEventListener().eventOccurred(data, type);
+    }
+
+    private void writeImage(List<PdfObject> operands) {
+        PdfImageXObject imageToWrite = imageProcessor.filterImage(
+                ((PdfCleanUpEventListener) getEventListener()).getEncounteredImage());
+        if (imageToWrite != null) {
+            cleanedXObjects.put((PdfName) operands.get(0), imageToWrite.getPdfObject());
+            PdfCleanUpProcessor.writeOperands(canvas, operands);
+        }
+    }
+
+    private void writeText(String operator, List<PdfObject> operands) {
+        PdfArray textElements = "TJ".equals(operator) ? (PdfArray) operands.get(0)
+                : new PdfArray(operands.get(operands.size() - 2));
+        List<TextRenderInfo> textChunks = null;
+        int i = 0; // text chunk index in the text elements
+        boolean modified = false;
+        PdfTextArray cleanedText = new PdfTextArray();
+        for (PdfObject element : textElements) {
+            if (element.isString()) {
+                if (textChunks == null) {
+                    textChunks = ((PdfCleanUpEventListener) getEventListener()).getEncounteredText();
+                }
+                PdfCleanUpFilter.FilterResult<PdfArray> filterResult =
+                        filter.filterTextByBoundingBoxes(textChunks.get(i++));
+                modified |= filterResult.isModified();
+                cleanedText.addAll(filterResult.getFilterResult());
+            } else {
+                cleanedText.add(element);
+            }
+        }
+
+        if (!modified) {
+            PdfCleanUpProcessor.writeOperands(canvas, operands);
+            return;
+        }
+        if ("\"".equals(operator)) {
+            PdfCleanUpProcessor.writeOperands(canvas, Arrays.asList(operands.get(0), new PdfLiteral("Tw")));
+            PdfCleanUpProcessor.writeOperands(canvas, Arrays.asList(operands.get(1), new PdfLiteral("Tc")));
+        }
+        if ("'".equals(operator) || "\"".equals(operator)) {
+            PdfCleanUpProcessor.writeOperands(canvas, Collections.<PdfObject>singletonList(new PdfLiteral("T*")));
+        }
+        PdfCleanUpProcessor.writeOperands(canvas, Arrays.<PdfObject>asList(cleanedText, new PdfLiteral("TJ")));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.io.source.IRandomAccessSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * {@link IRandomAccessSource} which reads the data of a {@link SeekableByteChannel} on demand.
+ *
+ * <p>
+ * Only a single window of the channel is kept in memory. Single byte reads are served from this window and reads
+ * which are bigger than the window go directly to the channel, so the whole content of the channel is never
+ * materialized. The channel is not closed by {@link #close()}, it stays owned by the caller.
+ */
+final class SeekableByteChannelRandomAccessSource implements IRandomAccessSource {
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 16;
+
+    private final SeekableByteChannel channel;
+
+    private final long length;
+
+    private final ByteBuffer window;
+
+    private long windowStart = -1;
+
+    private int windowLength = 0;
+
+    SeekableByteChannelRandomAccessSource(SeekableByteChannel channel) throws IOException {
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    SeekableByteChannelRandomAccessSource(SeekableByteChannel channel, int windowSize) throws IOException {
+        this.channel = channel;
+        this.length = channel.size();
+        this.window = ByteBuffer.allocate(windowSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int get(long position) throws IOException {
+        if (position < 0 || position >= length) {
+            return -1;
+        }
+        if (!isInWindow(position) && !fillWindow(position)) {
+            return -1;
+        }
+        return window.get((int) (position - windowStart)) & 0xff;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int get(long position, byte[] bytes, int off, int len) throws IOException {
+        if (position < 0 || position >= length) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int toRead = (int) Math.min(len, length - position);
+        int read = 0;
+        while (read < toRead) {
+            long current = position + read;
+            if (!isInWindow(current)) {
+                if (toRead - read >= window.capacity()) {
+                    int directlyRead = readDirectly(current, bytes, off + read, toRead - read);
+                    read += directlyRead;
+                    break;
+                }
+                if (!fillWindow(current)) {
+                    break;
+                }
+            }
+            int offsetInWindow = (int) (current - windowStart);
+            int chunk = Math.min(windowLength - offsetInWindow, toRead - read);
+            System.arraycopy(window.array(), offsetInWindow, bytes, off + read, chunk);
+            read += chunk;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        windowStart = -1;
+        windowLength = 0;
+    }
+
+    private boolean isInWindow(long position) {
+        return windowStart >= 0 && position >= windowStart && position < windowStart + windowLength;
+    }
+
+    private boolean fillWindow(long position) throws IOException {
+        window.clear();
+        channel.position(position);
+        while (window.hasRemaining()) {
+            if (channel.read(window) < 0) {
+                break;
+            }
+        }
+        windowStart = position;
+        windowLength = window.position();
+        return windowLength > 0;
+    }
+
+    private int readDirectly(long position, byte[] bytes, int off, int len) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(bytes, off, len);
+        channel.position(position);
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) {
+                break;
+            }
+        }
+        return target.position() - off;
+    }
+}
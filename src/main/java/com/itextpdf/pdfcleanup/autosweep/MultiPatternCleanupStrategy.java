@@ -0,0 +1,308 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup.autosweep;
+
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.CharacterRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.DefaultPdfTextLocation;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IPdfTextLocation;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.ITextChunkLocation;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.RegexBasedLocationExtractionStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class represents a cleanup strategy based on a number of regular expressions.
+ * <p>
+ * Unlike a {@link CompositeCleanupStrategy} of {@link RegexBasedCleanupStrategy} objects, where every inner strategy
+ * collects the characters of the page and builds its text on its own, this strategy collects the characters and
+ * builds the text of the page once and searches it for every pattern. The patterns are matched independently of each
+ * other, with their own flags and groups, and the areas found by all of them are redacted, like the areas of the
+ * inner strategies of a {@link CompositeCleanupStrategy}. The areas found by different patterns may overlap.
+ * <p>
+ * All the patterns are to be added before the strategy is used.
+ */
+public class MultiPatternCleanupStrategy implements ICleanupStrategy {
+
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<Color> redactionColors = new ArrayList<>();
+    private final CharacterCollector characterCollector = new CharacterCollector();
+    private final List<CharacterRenderInfo> characterRenderInfos = new ArrayList<>();
+    private final Map<IPdfTextLocation, Color> locationColors = new IdentityHashMap<>();
+
+    /**
+     * Creates a {@link MultiPatternCleanupStrategy multi-pattern cleanup strategy} without any patterns.
+     */
+    public MultiPatternCleanupStrategy() {
+    }
+
+    /**
+     * Adds a regular expression, the areas of which are to be redacted in black.
+     *
+     * @param regex the regular expression to be added
+     *
+     * @return this {@link MultiPatternCleanupStrategy strategy}
+     */
+    public MultiPatternCleanupStrategy add(String regex) {
+        return add(Pattern.compile(regex), ColorConstants.BLACK);
+    }
+
+    /**
+     * Adds a regular expression pattern.
+     *
+     * @param pattern        the {@link Pattern} to be added
+     * @param redactionColor the color in which the areas matched by the pattern are to be redacted
+     *
+     * @return this {@link MultiPatternCleanupStrategy strategy}
+     */
+    public MultiPatternCleanupStrategy add(Pattern pattern, Color redactionColor) {
+        patterns.add(pattern);
+        redactionColors.add(redactionColor);
+        return this;
+    }
+
+    /**
+     * Adds the pattern and the redaction color of a {@link RegexBasedCleanupStrategy regular expression based
+     * cleanup strategy}.
+     *
+     * @param strategy the {@link RegexBasedCleanupStrategy strategy} the pattern of which is to be added
+     *
+     * @return this {@link MultiPatternCleanupStrategy strategy}
+     */
+    public MultiPatternCleanupStrategy add(RegexBasedCleanupStrategy strategy) {
+        return add(strategy.getPattern(), strategy.getRedactionColor(null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<IPdfTextLocation> getResultantLocations() {
+        locationColors.clear();
+        if (patterns.isEmpty() || characterRenderInfos.isEmpty()) {
+            return Collections.<IPdfTextLocation>emptyList();
+        }
+
+        // align characters in logical order and build the text of the page once for all the patterns
+        List<CharacterRenderInfo> characters = new ArrayList<>(characterRenderInfos);
+        Collections.sort(characters, new CharacterLocationComparator());
+        PageText pageText = new PageText(characters);
+
+        List<IPdfTextLocation> locations = new ArrayList<>();
+        for (int i = 0; i < patterns.size(); ++i) {
+            Matcher matcher = patterns.get(i).matcher(pageText.text);
+            while (matcher.find()) {
+                int start = pageText.getStartIndex(matcher.start());
+                int end = pageText.getEndIndex(matcher.end() - 1);
+                if (start < 0 || end < 0 || start > end) {
+                    continue;
+                }
+                for (Rectangle rectangle : characterCollector.getRectangles(characters.subList(start, end + 1))) {
+                    IPdfTextLocation location = new DefaultPdfTextLocation(rectangle, matcher.group());
+                    locations.add(location);
+                    locationColors.put(location, redactionColors.get(i));
+                }
+            }
+        }
+        Collections.sort(locations, new LocationComparator());
+        return locations;
+    }
+
+    /**
+     * Gets the redaction color of the pattern which has found the location. For a location which hasn't been
+     * found by this strategy, the color of the first pattern matching its text is returned.
+     *
+     * @param location where to get the redaction color from
+     *
+     * @return a {@link Color}
+     */
+    @Override
+    public Color getRedactionColor(IPdfTextLocation location) {
+        if (locationColors.containsKey(location)) {
+            return locationColors.get(location);
+        }
+        String text = location.getText();
+        if (text != null) {
+            for (int i = 0; i < patterns.size(); ++i) {
+                if (patterns.get(i).matcher(text).find()) {
+                    return redactionColors.get(i);
+                }
+            }
+        }
+        return ColorConstants.BLACK;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void eventOccurred(IEventData data, EventType type) {
+        if (!patterns.isEmpty() && data instanceof TextRenderInfo) {
+            characterRenderInfos.addAll(characterCollector.getCharacterRenderInfos((TextRenderInfo) data));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<EventType> getSupportedEvents() {
+        return patterns.isEmpty() ? null : characterCollector.getSupportedEvents();
+    }
+
+    /**
+     * Returns a {@link ICleanupStrategy cleanup strategy} which is set to the same patterns and redaction colors.
+     *
+     * @return a reset {@link MultiPatternCleanupStrategy multi-pattern cleanup strategy}
+     */
+    public ICleanupStrategy reset() {
+        MultiPatternCleanupStrategy resetStrategy = new MultiPatternCleanupStrategy();
+        resetStrategy.patterns.addAll(patterns);
+        resetStrategy.redactionColors.addAll(redactionColors);
+        return resetStrategy;
+    }
+
+    /**
+     * The text of the characters of the page, with a space inserted between the characters on the same line which
+     * are at a word boundary, as {@link RegexBasedLocationExtractionStrategy} does.
+     */
+    private static final class PageText {
+        final String text;
+
+        /**
+         * The index of the character for every position of the text, or -1 for the inserted spaces.
+         */
+        private int[] characterIndices;
+
+        PageText(List<CharacterRenderInfo> characters) {
+            StringBuilder builder = new StringBuilder();
+            characterIndices = new int[characters.size()];
+            CharacterRenderInfo previous = null;
+            for (int i = 0; i < characters.size(); ++i) {
+                CharacterRenderInfo character = characters.get(i);
+                String characterText = character.getText();
+                if (previous != null && character.getLocation().sameLine(previous.getLocation())
+                        && character.getLocation().isAtWordBoundary(previous.getLocation())
+                        && !characterText.startsWith(" ") && !characterText.endsWith(" ")) {
+                    append(builder, " ", -1);
+                }
+                append(builder, characterText, i);
+                previous = character;
+            }
+            text = builder.toString();
+            characterIndices = Arrays.copyOf(characterIndices, text.length());
+        }
+
+        int getStartIndex(int position) {
+            while (position < characterIndices.length && characterIndices[position] < 0) {
+                ++position;
+            }
+            return position < characterIndices.length ? characterIndices[position] : -1;
+        }
+
+        int getEndIndex(int position) {
+            while (position >= 0 && characterIndices[position] < 0) {
+                --position;
+            }
+            return position >= 0 ? characterIndices[position] : -1;
+        }
+
+        private void append(StringBuilder builder, String characterText, int characterIndex) {
+            int newLength = builder.length() + characterText.length();
+            if (newLength > characterIndices.length) {
+                characterIndices = Arrays.copyOf(characterIndices, Math.max(newLength, characterIndices.length * 2));
+            }
+            Arrays.fill(characterIndices, builder.length(), newLength, characterIndex);
+            builder.append(characterText);
+        }
+    }
+
+    /**
+     * Gives access to the conversion of the text render events into characters and of the characters into
+     * rectangles of {@link RegexBasedLocationExtractionStrategy}, so that the characters and their areas are the
+     * same as for {@link RegexBasedCleanupStrategy}.
+     */
+    private static final class CharacterCollector extends RegexBasedLocationExtractionStrategy {
+        CharacterCollector() {
+            // the pattern is never used, as the text of the collected characters is built and searched outside
+            super(Pattern.compile("$^"));
+        }
+
+        List<CharacterRenderInfo> getCharacterRenderInfos(TextRenderInfo renderInfo) {
+            return toCRI(renderInfo);
+        }
+
+        List<Rectangle> getRectangles(List<CharacterRenderInfo> characters) {
+            return toRectangles(characters);
+        }
+    }
+
+    /**
+     * Orders the characters by the orientation of their text, then by the distance of their line from the origin
+     * and by their position in the line.
+     */
+    private static final class CharacterLocationComparator implements Comparator<CharacterRenderInfo> {
+        @Override
+        public int compare(CharacterRenderInfo first, CharacterRenderInfo second) {
+            ITextChunkLocation firstLocation = first.getLocation();
+            ITextChunkLocation secondLocation = second.getLocation();
+            int result = Integer.compare(firstLocation.orientationMagnitude(), secondLocation.orientationMagnitude());
+            if (result != 0) {
+                return result;
+            }
+            result = Integer.compare(firstLocation.distPerpendicular(), secondLocation.distPerpendicular());
+            if (result != 0) {
+                return result;
+            }
+            return Float.compare(firstLocation.distParallelStart(), secondLocation.distParallelStart());
+        }
+    }
+
+    /**
+     * Orders the locations as {@link CompositeCleanupStrategy} does: from bottom to top and from left to right.
+     */
+    private static final class LocationComparator implements Comparator<IPdfTextLocation> {
+        @Override
+        public int compare(IPdfTextLocation first, IPdfTextLocation second) {
+            Rectangle firstRectangle = first.getRectangle();
+            Rectangle secondRectangle = second.getRectangle();
+            int result = Float.compare(firstRectangle.getY(), secondRectangle.getY());
+            return result != 0 ? result : Float.compare(firstRectangle.getX(), secondRectangle.getX());
+        }
+    }
+}
@@ -33,8 +33,12 @@ import com.itextpdf.kernel.pdf.annot.PdfRedactAnnotation;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.itextpdf.kernel.pdf.canvas.parser.PdfDocumentContentParser;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.IPdfTextLocation;
+import com.itextpdf.pdfcleanup.CleanUpProperties;
 import com.itextpdf.pdfcleanup.PdfCleanUpLocation;
+import com.itextpdf.pdfcleanup.PdfCleanUpLocationsManifest;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -192,6 +196,20 @@ public class PdfAutoSweepTools {
         return toClean;
     }
 
+    /**
+     * Finds all the areas of interest in a given {@link PdfDocument} and writes them as a
+     * {@link PdfCleanUpLocationsManifest}, so that the redaction can be performed later, e.g. after a review,
+     * with {@link com.itextpdf.pdfcleanup.PdfCleaner#cleanUp(PdfDocument, java.nio.file.Path, CleanUpProperties)}.
+     *
+     * @param doc          the {@link PdfDocument} to be processed
+     * @param outputStream the stream to write the manifest to, it is not closed by this method
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeLocationsManifest(PdfDocument doc, OutputStream outputStream) throws IOException {
+        PdfCleanUpLocationsManifest.write(doc, getPdfCleanUpLocations(doc), outputStream);
+    }
+
     private void resetStrategy() {
         strategy = strategy.reset();
     }
@@ -77,6 +77,15 @@ public class RegexBasedCleanupStrategy extends RegexBasedLocationExtractionStrat
         return this;
     }
 
+    /**
+     * Gets the pattern on which this cleanup strategy is based.
+     *
+     * @return the {@link Pattern} of this cleanup strategy
+     */
+    Pattern getPattern() {
+        return pattern;
+    }
+
     /**
      * Returns an {@link ICleanupStrategy} object which is set to this regular pattern and redaction color.
      *
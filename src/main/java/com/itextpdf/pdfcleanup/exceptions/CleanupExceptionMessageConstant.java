@@ -26,11 +26,27 @@ package com.itextpdf.pdfcleanup.exceptions;
  * Class that bundles all the error message templates as constants.
  */
 public final class CleanupExceptionMessageConstant {
+    public static final String CLEANUP_REGIONS_COLORS_COUNT_MISMATCH = "The number of cleanup colors should be equal "
+            + "to the number of cleanup regions.";
+    public static final String CLEANUP_REGIONS_COORDINATES_LENGTH_INVALID = "Cleanup regions should be defined by four "
+            + "coordinates each: x, y, width and height.";
+    public static final String CLEANUP_REGIONS_SHOULD_BE_SORTED_BY_PAGE = "Cleanup regions should be sorted by page "
+            + "number when pages are flushed after clean up.";
     public static final String DEFAULT_APPEARANCE_NOT_FOUND = "DefaultAppearance is required but not found";
+    public static final String FILTERED_IMAGES_CACHE_BUDGET_SHOULD_NOT_BE_NEGATIVE = "Filtered images cache budget "
+            + "should not be negative.";
+    public static final String IMAGE_MEMORY_BUDGET_SHOULD_BE_POSITIVE = "Image memory budget should be positive.";
+    public static final String LOCATIONS_MANIFEST_DOES_NOT_MATCH_DOCUMENT = "Cleanup locations manifest has been "
+            + "produced from a different document.";
+    public static final String LOCATIONS_MANIFEST_IS_CORRUPTED = "Cleanup locations manifest is corrupted.";
+    public static final String LOCATIONS_MANIFEST_VERSION_IS_NOT_SUPPORTED = "Cleanup locations manifest version {0} is "
+            + "not supported.";
     public static final String NONINVERTIBLE_MATRIX_CANNOT_BE_PROCESSED = "A noninvertible matrix has been parsed. "
             + "The behaviour is unpredictable.";
     public static final String PDF_DOCUMENT_MUST_BE_OPENED_IN_STAMPING_MODE = "PdfDocument must be opened in stamping "
             + "mode.";
+    public static final String PERSISTENT_IMAGES_CACHE_MAX_SIZE_SHOULD_BE_POSITIVE = "Persistent images cache maximum "
+            + "size should be positive.";
     // Do not remove, it's used in .NET
     // This same exception message is thrown in CleanUpImageUtil#cleanImage when the image format is unsupported
     public static final String UNSUPPORTED_IMAGE_TYPE = "Unsupported image type";
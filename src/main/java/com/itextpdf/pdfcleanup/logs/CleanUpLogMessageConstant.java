@@ -40,6 +40,10 @@ public class CleanUpLogMessageConstant {
             "Partial clean up of transparent images with mask encoded with one of the following filters is not "
                     + "supported: JBIG2Decode, DCTDecode, JPXDecode. Image will become non-transparent.";
 
+    /** The Constant PERSISTENT_IMAGES_CACHE_IS_NOT_ACCESSIBLE. */
+    public static final String PERSISTENT_IMAGES_CACHE_IS_NOT_ACCESSIBLE =
+            "Persistent filtered images cache in {0} is not accessible: {1}";
+
     /** The Constant REDACTION_OF_ANNOTATION_TYPE_WATERMARK_IS_NOT_SUPPORTED. */
     public static final String REDACTION_OF_ANNOTATION_TYPE_WATERMARK_IS_NOT_SUPPORTED =
             "Redaction of annotation subtype /Watermark is not supported";
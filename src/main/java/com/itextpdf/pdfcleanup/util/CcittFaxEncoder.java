@@ -0,0 +1,295 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup.util;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encoder of bilevel images with the CCITT facsimile encodings used by the CCITTFaxDecode filter: Group 4
+ * (ITU-T T.6), Group 3 one-dimensional (modified Huffman, ITU-T T.4) and Group 3 mixed encoding, for which every
+ * line is encoded one-dimensionally.
+ */
+final class CcittFaxEncoder {
+
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    private static final int MAX_MAKEUP_RUN = 2560;
+
+    // codes are {code, length}
+    private static final int[] EOL = {0x001, 12};
+    private static final int[] PASS = {0x1, 4};
+    private static final int[] HORIZONTAL = {0x1, 3};
+
+    /**
+     * Vertical mode codes for a1 - b1 from -3 to 3.
+     */
+    private static final int[][] VERTICAL = {
+            {0x02, 7}, {0x02, 6}, {0x2, 3}, {0x1, 1}, {0x3, 3}, {0x03, 6}, {0x03, 7}
+    };
+
+    private static final int[][] WHITE_TERMINATING = {
+            {0x35, 8}, {0x07, 6}, {0x07, 4}, {0x08, 4}, {0x0B, 4}, {0x0C, 4}, {0x0E, 4}, {0x0F, 4},
+            {0x13, 5}, {0x14, 5}, {0x07, 5}, {0x08, 5}, {0x08, 6}, {0x03, 6}, {0x34, 6}, {0x35, 6},
+            {0x2A, 6}, {0x2B, 6}, {0x27, 7}, {0x0C, 7}, {0x08, 7}, {0x17, 7}, {0x03, 7}, {0x04, 7},
+            {0x28, 7}, {0x2B, 7}, {0x13, 7}, {0x24, 7}, {0x18, 7}, {0x02, 8}, {0x03, 8}, {0x1A, 8},
+            {0x1B, 8}, {0x12, 8}, {0x13, 8}, {0x14, 8}, {0x15, 8}, {0x16, 8}, {0x17, 8}, {0x28, 8},
+            {0x29, 8}, {0x2A, 8}, {0x2B, 8}, {0x2C, 8}, {0x2D, 8}, {0x04, 8}, {0x05, 8}, {0x0A, 8},
+            {0x0B, 8}, {0x52, 8}, {0x53, 8}, {0x54, 8}, {0x55, 8}, {0x24, 8}, {0x25, 8}, {0x58, 8},
+            {0x59, 8}, {0x5A, 8}, {0x5B, 8}, {0x4A, 8}, {0x4B, 8}, {0x32, 8}, {0x33, 8}, {0x34, 8}
+    };
+
+    /**
+     * White makeup codes for runs from 64 to 1728, by 64.
+     */
+    private static final int[][] WHITE_MAKEUP = {
+            {0x1B, 5}, {0x12, 5}, {0x17, 6}, {0x37, 7}, {0x36, 8}, {0x37, 8}, {0x64, 8}, {0x65, 8},
+            {0x68, 8}, {0x67, 8}, {0xCC, 9}, {0xCD, 9}, {0xD2, 9}, {0xD3, 9}, {0xD4, 9}, {0xD5, 9},
+            {0xD6, 9}, {0xD7, 9}, {0xD8, 9}, {0xD9, 9}, {0xDA, 9}, {0xDB, 9}, {0x98, 9}, {0x99, 9},
+            {0x9A, 9}, {0x18, 6}, {0x9B, 9}
+    };
+
+    private static final int[][] BLACK_TERMINATING = {
+            {0x37, 10}, {0x02, 3}, {0x03, 2}, {0x02, 2}, {0x03, 3}, {0x03, 4}, {0x02, 4}, {0x03, 5},
+            {0x05, 6}, {0x04, 6}, {0x04, 7}, {0x05, 7}, {0x07, 7}, {0x04, 8}, {0x07, 8}, {0x18, 9},
+            {0x17, 10}, {0x18, 10}, {0x08, 10}, {0x67, 11}, {0x68, 11}, {0x6C, 11}, {0x37, 11}, {0x28, 11},
+            {0x17, 11}, {0x18, 11}, {0xCA, 12}, {0xCB, 12}, {0xCC, 12}, {0xCD, 12}, {0x68, 12}, {0x69, 12},
+            {0x6A, 12}, {0x6B, 12}, {0xD2, 12}, {0xD3, 12}, {0xD4, 12}, {0xD5, 12}, {0xD6, 12}, {0xD7, 12},
+            {0x6C, 12}, {0x6D, 12}, {0xDA, 12}, {0xDB, 12}, {0x54, 12}, {0x55, 12}, {0x56, 12}, {0x57, 12},
+            {0x64, 12}, {0x65, 12}, {0x52, 12}, {0x53, 12}, {0x24, 12}, {0x37, 12}, {0x38, 12}, {0x27, 12},
+            {0x28, 12}, {0x58, 12}, {0x59, 12}, {0x2B, 12}, {0x2C, 12}, {0x5A, 12}, {0x66, 12}, {0x67, 12}
+    };
+
+    /**
+     * Black makeup codes for runs from 64 to 1728, by 64.
+     */
+    private static final int[][] BLACK_MAKEUP = {
+            {0x0F, 10}, {0xC8, 12}, {0xC9, 12}, {0x5B, 12}, {0x33, 12}, {0x34, 12}, {0x35, 12}, {0x6C, 13},
+            {0x6D, 13}, {0x4A, 13}, {0x4B, 13}, {0x4C, 13}, {0x4D, 13}, {0x72, 13}, {0x73, 13}, {0x74, 13},
+            {0x75, 13}, {0x76, 13}, {0x77, 13}, {0x52, 13}, {0x53, 13}, {0x54, 13}, {0x55, 13}, {0x5A, 13},
+            {0x5B, 13}, {0x64, 13}, {0x65, 13}
+    };
+
+    /**
+     * Makeup codes shared by white and black runs, from 1792 to 2560, by 64.
+     */
+    private static final int[][] EXTENDED_MAKEUP = {
+            {0x08, 11}, {0x0C, 11}, {0x0D, 11}, {0x12, 12}, {0x13, 12}, {0x14, 12}, {0x15, 12}, {0x16, 12},
+            {0x17, 12}, {0x1C, 12}, {0x1D, 12}, {0x1E, 12}, {0x1F, 12}
+    };
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private int bitBuffer;
+
+    private int bitCount;
+
+    private CcittFaxEncoder() {
+    }
+
+    /**
+     * Encodes the bilevel image data, as decoded by the CCITTFaxDecode filter with the given parameters.
+     *
+     * @param data       the image data, rows of {@code columns} 1-bit samples, each row starting at a byte boundary
+     * @param k          the K parameter: negative for Group 4, 0 for Group 3 one-dimensional and positive for Group 3
+     *                   mixed encoding
+     * @param columns    the width of the image in pixels
+     * @param endOfLine  whether every line is prefixed with an end-of-line code
+     * @param byteAlign  whether every encoded line begins at a byte boundary
+     * @param endOfBlock whether the data is terminated with an end-of-block code
+     * @param blackIs1   whether 1 bits in the data are black pixels
+     * @return the encoded data
+     */
+    static byte[] encode(byte[] data, int k, int columns, boolean endOfLine, boolean byteAlign, boolean endOfBlock,
+            boolean blackIs1) {
+        int rowLength = (columns + 7) / 8;
+        int rows = data.length / rowLength;
+        // the encoder works with black pixels set to 1
+        byte[] pixels = new byte[rows * rowLength];
+        for (int i = 0; i < pixels.length; ++i) {
+            pixels[i] = blackIs1 ? data[i] : (byte) ~data[i];
+        }
+
+        CcittFaxEncoder encoder = new CcittFaxEncoder();
+        // the reference line of the first row is white
+        byte[] referenceLine = new byte[rowLength];
+        int referenceOffset = 0;
+        for (int row = 0; row < rows; ++row) {
+            if (k < 0) {
+                if (byteAlign) {
+                    encoder.alignToByte();
+                }
+                encoder.encode2DRow(pixels, row * rowLength, referenceLine, referenceOffset, columns);
+                referenceLine = pixels;
+                referenceOffset = row * rowLength;
+            } else {
+                if (endOfLine) {
+                    if (byteAlign) {
+                        // fill bits are placed before the end-of-line code, so that the line starts at a byte boundary
+                        encoder.fillTo(EOL[1]);
+                    }
+                    encoder.writeCode(EOL);
+                } else if (byteAlign) {
+                    encoder.alignToByte();
+                }
+                if (k > 0) {
+                    // tag bit of a one-dimensionally encoded line
+                    encoder.writeBits(1, 1);
+                }
+                encoder.encode1DRow(pixels, row * rowLength, columns);
+            }
+        }
+        if (endOfBlock) {
+            int eolCount = k < 0 ? 2 : 6;
+            for (int i = 0; i < eolCount; ++i) {
+                encoder.writeCode(EOL);
+                if (k > 0) {
+                    encoder.writeBits(1, 1);
+                }
+            }
+        }
+        encoder.alignToByte();
+        return encoder.output.toByteArray();
+    }
+
+    private void encode1DRow(byte[] pixels, int offset, int columns) {
+        int position = 0;
+        int color = WHITE;
+        while (position < columns) {
+            int next = findChange(pixels, offset, position, columns, color);
+            writeRun(next - position, color);
+            position = next;
+            color ^= 1;
+        }
+    }
+
+    /**
+     * Encodes the row relative to the reference line, as described in ITU-T T.4, 4.2.1.3.
+     */
+    private void encode2DRow(byte[] pixels, int offset, byte[] referenceLine, int referenceOffset, int columns) {
+        int a0 = 0;
+        int a1 = getPixel(pixels, offset, 0) != WHITE ? 0 : findChange(pixels, offset, 0, columns, WHITE);
+        int b1 = getPixel(referenceLine, referenceOffset, 0) != WHITE ? 0
+                : findChange(referenceLine, referenceOffset, 0, columns, WHITE);
+        while (true) {
+            int b2 = b1 >= columns ? columns
+                    : findChange(referenceLine, referenceOffset, b1, columns, getPixel(referenceLine, referenceOffset, b1));
+            if (b2 >= a1) {
+                int delta = a1 - b1;
+                if (delta < -3 || delta > 3) {
+                    int a2 = a1 >= columns ? columns
+                            : findChange(pixels, offset, a1, columns, getPixel(pixels, offset, a1));
+                    writeCode(HORIZONTAL);
+                    // at the start of the row a0 is an imaginary white element
+                    int a0Color = a0 + a1 == 0 ? WHITE : getPixel(pixels, offset, a0);
+                    writeRun(a1 - a0, a0Color);
+                    writeRun(a2 - a1, a0Color ^ 1);
+                    a0 = a2;
+                } else {
+                    writeCode(VERTICAL[delta + 3]);
+                    a0 = a1;
+                }
+            } else {
+                writeCode(PASS);
+                a0 = b2;
+            }
+            if (a0 >= columns) {
+                break;
+            }
+            int color = getPixel(pixels, offset, a0);
+            a1 = findChange(pixels, offset, a0, columns, color);
+            b1 = findChange(referenceLine, referenceOffset, a0, columns, color ^ 1);
+            b1 = findChange(referenceLine, referenceOffset, b1, columns, color);
+        }
+    }
+
+    private void writeRun(int run, int color) {
+        int[][] terminating = color == WHITE ? WHITE_TERMINATING : BLACK_TERMINATING;
+        int[][] makeup = color == WHITE ? WHITE_MAKEUP : BLACK_MAKEUP;
+        while (run >= MAX_MAKEUP_RUN) {
+            writeCode(EXTENDED_MAKEUP[EXTENDED_MAKEUP.length - 1]);
+            run -= MAX_MAKEUP_RUN;
+        }
+        if (run >= 64) {
+            int index = run / 64 - 1;
+            writeCode(index < makeup.length ? makeup[index] : EXTENDED_MAKEUP[index - makeup.length]);
+            run %= 64;
+        }
+        writeCode(terminating[run]);
+    }
+
+    private void writeCode(int[] code) {
+        writeBits(code[0], code[1]);
+    }
+
+    private void writeBits(int bits, int length) {
+        for (int i = length - 1; i >= 0; --i) {
+            bitBuffer = (bitBuffer << 1) | ((bits >> i) & 1);
+            if (++bitCount == 8) {
+                output.write(bitBuffer);
+                bitBuffer = 0;
+                bitCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes zero fill bits so that a code of the given length ends at a byte boundary.
+     */
+    private void fillTo(int codeLength) {
+        while ((bitCount + codeLength) % 8 != 0) {
+            writeBits(0, 1);
+        }
+    }
+
+    private void alignToByte() {
+        if (bitCount > 0) {
+            writeBits(0, 8 - bitCount);
+        }
+    }
+
+    private static int getPixel(byte[] pixels, int offset, int x) {
+        return (pixels[offset + (x >> 3)] >> (7 - (x & 7))) & 1;
+    }
+
+    /**
+     * Finds the first pixel at or after the start position which doesn't have the given color.
+     *
+     * @return the position of the pixel or the row width if there is no such pixel
+     */
+    private static int findChange(byte[] pixels, int offset, int start, int columns, int color) {
+        int sameColorByte = color == WHITE ? 0 : 0xFF;
+        int x = start;
+        while (x < columns) {
+            if ((x & 7) == 0 && x + 8 <= columns && (pixels[offset + (x >> 3)] & 0xFF) == sameColorByte) {
+                x += 8;
+                continue;
+            }
+            if (getPixel(pixels, offset, x) != color) {
+                return x;
+            }
+            ++x;
+        }
+        return columns;
+    }
+}
@@ -22,9 +22,13 @@
  */
 package com.itextpdf.pdfcleanup.util;
 
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.kernel.exceptions.PdfException;
 import com.itextpdf.kernel.pdf.PdfArray;
 import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
 import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.colorspace.PdfColorSpace;
 import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
 import com.itextpdf.pdfcleanup.logs.CleanUpLogMessageConstant;
 import org.apache.commons.imaging.ImageInfo;
@@ -68,7 +72,51 @@ public final class CleanUpCsCompareUtil {
         }
     }
 
+    /**
+     * Check whether the color space of the passed original image can be used for the cleared image data.
+     * Unlike {@link #isOriginalCsCompatible(PdfImageXObject, PdfImageXObject)}, the images are not decoded:
+     * the number of color components, the bits per component and the transparency of the original image are
+     * taken from its dictionary and compared to the parameters the cleared image data has been encoded with.
+     *
+     * @param originalImage    {@link PdfImageXObject} of the original image
+     * @param clearedImageData {@link ImageData} of the cleared image
+     * @return true if the color space of the original image is applicable to the cleared image
+     */
+    public static boolean isOriginalCsCompatible(PdfImageXObject originalImage, ImageData clearedImageData) {
+        PdfObject originalCs = originalImage.getPdfObject().get(PdfName.ColorSpace);
+        PdfNumber originalBpc = originalImage.getPdfObject().getAsNumber(PdfName.BitsPerComponent);
+        if (originalCs == null || originalBpc == null) {
+            return false;
+        }
+        int originalComponentsNumber;
+        try {
+            PdfColorSpace originalColorSpace = PdfColorSpace.makeColorSpace(originalCs);
+            if (originalColorSpace == null) {
+                return false;
+            }
+            originalComponentsNumber = originalColorSpace.getNumberOfComponents();
+        } catch (PdfException | ClassCastException | IndexOutOfBoundsException e) {
+            // malformed or unsupported color spaces are not applied to the cleared image
+            return false;
+        }
+        // samples of PDF images don't contain alpha, so the original images are not transparent by themselves
+        boolean clearedImageTransparent = clearedImageData.getImageMask() != null
+                || clearedImageData.getTransparency() != null;
+        if (clearedImageTransparent) {
+            return false;
+        }
+        return (originalComponentsNumber == clearedImageData.getColorEncodingComponentsNumber()
+                && originalBpc.intValue() == clearedImageData.getBpc())
+                || isCSApplicable(originalImage, clearedImageData.getColorEncodingComponentsNumber() == 1
+                && clearedImageData.getBpc() == 8);
+    }
+
     private static boolean isCSApplicable(PdfImageXObject originalImage, ImageInfo clearedImageInfo) {
+        return isCSApplicable(originalImage, clearedImageInfo.getBitsPerPixel() == 8
+                && clearedImageInfo.getColorType() == ImageInfo.ColorType.GRAYSCALE);
+    }
+
+    private static boolean isCSApplicable(PdfImageXObject originalImage, boolean clearedImageIs8BitGray) {
         PdfObject pdfColorSpace = originalImage.getPdfObject().get(PdfName.ColorSpace);
         PdfName name;
         if (pdfColorSpace.isArray()) {
@@ -83,8 +131,7 @@ public final class CleanUpCsCompareUtil {
         // For Separation and DeviceGray color spaces we need to be sure that
         // the result image is 8 bit grayscale image
         if (PdfName.Separation.equals(name) || PdfName.DeviceGray.equals(name)) {
-            return clearedImageInfo.getBitsPerPixel() == 8
-                    && clearedImageInfo.getColorType() == ImageInfo.ColorType.GRAYSCALE;
+            return clearedImageIs8BitGray;
         }
         return false;
     }
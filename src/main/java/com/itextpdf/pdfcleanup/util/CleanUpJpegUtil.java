@@ -0,0 +1,1064 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup.util;
+
+import com.itextpdf.kernel.geom.Rectangle;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility class providing methods to clean up baseline JPEG images in the DCT coefficient domain.
+ *
+ * <p>
+ * The entropy coded data is decoded into quantized DCT coefficients, the blocks which lie within the areas to be
+ * cleaned are replaced with flat white blocks and the coefficients are entropy coded again with optimized Huffman
+ * tables. The blocks which are only partially covered by the areas are decoded, their covered samples are set to
+ * white and they are quantized again, so the cleanup is clipped at the edges of the areas. Other blocks keep their
+ * coefficients unchanged, so the quality of the rest of the image is preserved.
+ *
+ * <p>
+ * The chroma samples of subsampled images are neutralized if any pixel they cover is cleaned, so the pixels next to
+ * the edges of the areas may lose a little of their color, but no color of the cleaned pixels is kept.
+ *
+ * <p>
+ * Only baseline and extended sequential Huffman coded JPEGs with 8-bit samples and one or three components are
+ * supported. For other images the methods return {@code null}.
+ */
+public final class CleanUpJpegUtil {
+
+    /**
+     * DC coefficient of a block filled with the maximum sample value: 8 * (255 - 128).
+     */
+    private static final int WHITE_DC = 1016;
+
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * Keeps the quantized coefficients and the differences of DC coefficients within the baseline categories.
+     */
+    private static final int MAX_COEFFICIENT = 1023;
+
+    /**
+     * The natural order indices of the coefficients in zig-zag order, see ISO/IEC 10918-1, Figure A.6.
+     */
+    private static final int[] ZIGZAG = new int[] {
+            0, 1, 8, 16, 9, 2, 3, 10, 17, 24, 32, 25, 18, 11, 4, 5,
+            12, 19, 26, 33, 40, 48, 41, 34, 27, 20, 13, 6, 7, 14, 21, 28,
+            35, 42, 49, 56, 57, 50, 43, 36, 29, 22, 15, 23, 30, 37, 44, 51,
+            58, 59, 52, 45, 38, 31, 39, 46, 53, 60, 61, 54, 47, 55, 62, 63};
+
+    /**
+     * The basis functions of the orthonormal 8x8 DCT, indexed by frequency * 8 + sample.
+     */
+    private static final double[] COSINES = createCosines();
+
+    private CleanUpJpegUtil() {
+    }
+
+    /**
+     * Cleans up the areas of a JPEG image by filling their pixels with white.
+     *
+     * @param jpegBytes        the bytes of the JPEG image
+     * @param areasToBeCleaned areas to be cleaned with coordinates in (0,1)x(0,1) image space
+     * @return the bytes of the cleaned up JPEG image or {@code null} if the image is not supported
+     */
+    public static byte[] cleanUpJpeg(byte[] jpegBytes, List<Rectangle> areasToBeCleaned) {
+        try {
+            return new JpegCleaner(jpegBytes).cleanUp(areasToBeCleaned);
+        } catch (UnsupportedJpegException e) {
+            return null;
+        }
+    }
+
+    private static final class UnsupportedJpegException extends RuntimeException {
+        UnsupportedJpegException() {
+            super("Unsupported or corrupted JPEG image");
+        }
+    }
+
+    private static final class Component {
+        int id;
+        int h;
+        int v;
+        int quantTable;
+        int blocksPerLine;
+        int blocksPerColumn;
+        short[] coefficients;
+        int[] quantization;
+        int whiteDc;
+        int whiteSample;
+    }
+
+    private static final class JpegCleaner {
+        private final byte[] data;
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final int[][] quantTables = new int[4][];
+        private final HuffmanDecodingTable[] dcTables = new HuffmanDecodingTable[4];
+        private final HuffmanDecodingTable[] acTables = new HuffmanDecodingTable[4];
+        private Component[] components;
+        private int width;
+        private int height;
+        private int maxH;
+        private int maxV;
+        private int mcusPerLine;
+        private int mcusPerColumn;
+        private boolean[] cleanedMcus;
+        private final List<int[]> cleanedRects = new ArrayList<>();
+        private int restartInterval = 0;
+        private int adobeTransform = -1;
+
+        JpegCleaner(byte[] data) {
+            this.data = data;
+        }
+
+        byte[] cleanUp(List<Rectangle> areasToBeCleaned) {
+            if (data.length < 4 || (data[0] & 0xff) != 0xFF || (data[1] & 0xff) != 0xD8) {
+                throw new UnsupportedJpegException();
+            }
+            output.write(0xFF);
+            output.write(0xD8);
+            int pos = 2;
+            while (true) {
+                if (pos + 1 >= data.length || (data[pos] & 0xff) != 0xFF) {
+                    throw new UnsupportedJpegException();
+                }
+                int marker = data[pos + 1] & 0xff;
+                if (marker == 0xFF) {
+                    ++pos;
+                    continue;
+                }
+                if (marker == 0xD9) {
+                    break;
+                }
+                if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                    pos += 2;
+                    continue;
+                }
+                int segmentEnd = pos + 2 + readUnsignedShort(pos + 2);
+                if (segmentEnd > data.length) {
+                    throw new UnsupportedJpegException();
+                }
+                switch (marker) {
+                    case 0xC0:
+                    case 0xC1:
+                        readFrameHeader(pos + 4);
+                        markCleanedMcus(areasToBeCleaned);
+                        copySegment(pos, segmentEnd);
+                        break;
+                    case 0xC4:
+                        // Huffman tables are optimized and written anew before every scan
+                        readHuffmanTables(pos + 4, segmentEnd);
+                        break;
+                    case 0xDB:
+                        readQuantizationTables(pos + 4, segmentEnd);
+                        copySegment(pos, segmentEnd);
+                        break;
+                    case 0xDD:
+                        restartInterval = readUnsignedShort(pos + 4);
+                        copySegment(pos, segmentEnd);
+                        break;
+                    case 0xEE:
+                        readAdobeSegment(pos + 4, segmentEnd);
+                        copySegment(pos, segmentEnd);
+                        break;
+                    case 0xDA:
+                        segmentEnd = processScan(pos, segmentEnd);
+                        break;
+                    case 0xC8:
+                    case 0xDC:
+                        throw new UnsupportedJpegException();
+                    default:
+                        if (marker >= 0xC2 && marker <= 0xCF && marker != 0xC4 && marker != 0xCC) {
+                            // progressive, lossless, hierarchical and arithmetic coded images
+                            throw new UnsupportedJpegException();
+                        }
+                        copySegment(pos, segmentEnd);
+                        break;
+                }
+                pos = segmentEnd;
+            }
+            output.write(0xFF);
+            output.write(0xD9);
+            return output.toByteArray();
+        }
+
+        private int readUnsignedShort(int pos) {
+            if (pos + 1 >= data.length) {
+                throw new UnsupportedJpegException();
+            }
+            return ((data[pos] & 0xff) << 8) | (data[pos + 1] & 0xff);
+        }
+
+        private void copySegment(int start, int end) {
+            output.write(data, start, end - start);
+        }
+
+        private void readFrameHeader(int pos) {
+            if (components != null || (data[pos] & 0xff) != 8) {
+                throw new UnsupportedJpegException();
+            }
+            height = readUnsignedShort(pos + 1);
+            width = readUnsignedShort(pos + 3);
+            int componentsCount = data[pos + 5] & 0xff;
+            // CMYK and YCCK images are not supported: their white is not the maximum of every component
+            if (height == 0 || width == 0 || (componentsCount != 1 && componentsCount != 3)) {
+                throw new UnsupportedJpegException();
+            }
+            components = new Component[componentsCount];
+            for (int i = 0; i < componentsCount; ++i) {
+                int offset = pos + 6 + i * 3;
+                Component component = new Component();
+                component.id = data[offset] & 0xff;
+                component.h = (data[offset + 1] & 0xff) >> 4;
+                component.v = data[offset + 1] & 0xf;
+                component.quantTable = data[offset + 2] & 0xff;
+                if (component.h < 1 || component.h > 4 || component.v < 1 || component.v > 4
+                        || component.quantTable > 3) {
+                    throw new UnsupportedJpegException();
+                }
+                maxH = Math.max(maxH, component.h);
+                maxV = Math.max(maxV, component.v);
+                components[i] = component;
+            }
+            mcusPerLine = (width + 8 * maxH - 1) / (8 * maxH);
+            mcusPerColumn = (height + 8 * maxV - 1) / (8 * maxV);
+            for (Component component : components) {
+                component.blocksPerLine = mcusPerLine * component.h;
+                component.blocksPerColumn = mcusPerColumn * component.v;
+            }
+        }
+
+        private void markCleanedMcus(List<Rectangle> areasToBeCleaned) {
+            cleanedMcus = new boolean[mcusPerLine * mcusPerColumn];
+            int mcuWidth = 8 * maxH;
+            int mcuHeight = 8 * maxV;
+            for (Rectangle area : areasToBeCleaned) {
+                int[] rect = CleanUpHelperUtil.getImageRectToClean(area, width, height);
+                int startX = Math.max(rect[0], 0);
+                int endX = Math.min(rect[0] + rect[2], width);
+                int startY = Math.max(rect[1], 0);
+                int endY = Math.min(rect[1] + rect[3], height);
+                if (startX >= endX || startY >= endY) {
+                    continue;
+                }
+                cleanedRects.add(new int[] {startX, startY, endX, endY});
+                for (int my = startY / mcuHeight; my <= (endY - 1) / mcuHeight; ++my) {
+                    for (int mx = startX / mcuWidth; mx <= (endX - 1) / mcuWidth; ++mx) {
+                        cleanedMcus[my * mcusPerLine + mx] = true;
+                    }
+                }
+            }
+        }
+
+        private void readQuantizationTables(int pos, int end) {
+            while (pos < end) {
+                int precision = (data[pos] & 0xff) >> 4;
+                int id = data[pos] & 0xf;
+                int entrySize = precision == 0 ? 1 : 2;
+                if (id > 3 || pos + 1 + BLOCK_SIZE * entrySize > end) {
+                    throw new UnsupportedJpegException();
+                }
+                int[] table = new int[BLOCK_SIZE];
+                for (int k = 0; k < BLOCK_SIZE; ++k) {
+                    table[k] = precision == 0 ? data[pos + 1 + k] & 0xff : readUnsignedShort(pos + 1 + k * 2);
+                }
+                quantTables[id] = table;
+                pos += 1 + BLOCK_SIZE * entrySize;
+            }
+        }
+
+        private void readHuffmanTables(int pos, int end) {
+            while (pos < end) {
+                int tableClass = (data[pos] & 0xff) >> 4;
+                int id = data[pos] & 0xf;
+                if (id > 3 || tableClass > 1) {
+                    throw new UnsupportedJpegException();
+                }
+                int[] bits = new int[17];
+                int count = 0;
+                for (int i = 1; i <= 16; ++i) {
+                    bits[i] = data[pos + i] & 0xff;
+                    count += bits[i];
+                }
+                if (pos + 17 + count > end) {
+                    throw new UnsupportedJpegException();
+                }
+                byte[] values = Arrays.copyOfRange(data, pos + 17, pos + 17 + count);
+                HuffmanDecodingTable table = new HuffmanDecodingTable(bits, values);
+                if (tableClass == 0) {
+                    dcTables[id] = table;
+                } else {
+                    acTables[id] = table;
+                }
+                pos += 17 + count;
+            }
+        }
+
+        private void readAdobeSegment(int pos, int end) {
+            if (end - pos >= 12 && data[pos] == 'A' && data[pos + 1] == 'd' && data[pos + 2] == 'o'
+                    && data[pos + 3] == 'b' && data[pos + 4] == 'e') {
+                adobeTransform = data[pos + 11] & 0xff;
+            }
+        }
+
+        private void initWhiteDc() {
+            boolean ycc = components.length == 3 && adobeTransform != 0
+                    && !(components[0].id == 'R' && components[1].id == 'G' && components[2].id == 'B');
+            for (int i = 0; i < components.length; ++i) {
+                int[] quantization = quantTables[components[i].quantTable];
+                if (quantization == null) {
+                    throw new UnsupportedJpegException();
+                }
+                for (int quant : quantization) {
+                    if (quant <= 0) {
+                        throw new UnsupportedJpegException();
+                    }
+                }
+                components[i].quantization = quantization;
+                // chroma components of YCbCr are neutral at the middle of the sample range
+                boolean chroma = ycc && i > 0;
+                components[i].whiteSample = chroma ? 128 : 255;
+                components[i].whiteDc = chroma ? 0 : Math.round((float) WHITE_DC / quantization[0]);
+            }
+        }
+
+        private int processScan(int sosStart, int headerEnd) {
+            if (components == null) {
+                throw new UnsupportedJpegException();
+            }
+            int pos = sosStart + 4;
+            int scanComponentsCount = data[pos] & 0xff;
+            if (scanComponentsCount < 1 || scanComponentsCount > components.length) {
+                throw new UnsupportedJpegException();
+            }
+            Component[] scanComponents = new Component[scanComponentsCount];
+            int[] dcTableIds = new int[scanComponentsCount];
+            int[] acTableIds = new int[scanComponentsCount];
+            for (int i = 0; i < scanComponentsCount; ++i) {
+                int selector = data[pos + 1 + i * 2] & 0xff;
+                for (Component component : components) {
+                    if (component.id == selector) {
+                        scanComponents[i] = component;
+                    }
+                }
+                dcTableIds[i] = (data[pos + 2 + i * 2] & 0xff) >> 4;
+                acTableIds[i] = data[pos + 2 + i * 2] & 0xf;
+                if (scanComponents[i] == null || dcTableIds[i] > 3 || acTableIds[i] > 3
+                        || dcTables[dcTableIds[i]] == null || acTables[acTableIds[i]] == null) {
+                    throw new UnsupportedJpegException();
+                }
+                scanComponents[i].coefficients = new short[scanComponents[i].blocksPerLine
+                        * scanComponents[i].blocksPerColumn * BLOCK_SIZE];
+            }
+            int spectralStart = data[pos + 1 + scanComponentsCount * 2] & 0xff;
+            int spectralEnd = data[pos + 2 + scanComponentsCount * 2] & 0xff;
+            int approximation = data[pos + 3 + scanComponentsCount * 2] & 0xff;
+            if (spectralStart != 0 || spectralEnd != 63 || approximation != 0) {
+                throw new UnsupportedJpegException();
+            }
+            // quantization tables may be redefined between scans
+            initWhiteDc();
+
+            HuffmanDecodingTable[] scanDcTables = new HuffmanDecodingTable[scanComponentsCount];
+            HuffmanDecodingTable[] scanAcTables = new HuffmanDecodingTable[scanComponentsCount];
+            for (int i = 0; i < scanComponentsCount; ++i) {
+                scanDcTables[i] = dcTables[dcTableIds[i]];
+                scanAcTables[i] = acTables[acTableIds[i]];
+            }
+            ScanDecoder decoder = new ScanDecoder(data, headerEnd, scanComponents, scanDcTables, scanAcTables);
+            iterateScan(scanComponents, decoder);
+            int scanEnd = decoder.reader.getEndPosition();
+
+            for (Component component : scanComponents) {
+                whitenCleanedBlocks(component);
+            }
+
+            SymbolCounter counter = new SymbolCounter(scanComponents, dcTableIds, acTableIds);
+            iterateScan(scanComponents, counter);
+            HuffmanEncodingTable[] dcEncodingTables = new HuffmanEncodingTable[4];
+            HuffmanEncodingTable[] acEncodingTables = new HuffmanEncodingTable[4];
+            ByteArrayOutputStream dht = new ByteArrayOutputStream();
+            for (int id = 0; id < 4; ++id) {
+                if (counter.dcUsed[id]) {
+                    dcEncodingTables[id] = HuffmanEncodingTable.createOptimal(counter.dcFrequencies[id]);
+                    dcEncodingTables[id].writeDefinition(dht, 0, id);
+                }
+                if (counter.acUsed[id]) {
+                    acEncodingTables[id] = HuffmanEncodingTable.createOptimal(counter.acFrequencies[id]);
+                    acEncodingTables[id].writeDefinition(dht, 1, id);
+                }
+            }
+            output.write(0xFF);
+            output.write(0xC4);
+            output.write(((dht.size() + 2) >> 8) & 0xff);
+            output.write((dht.size() + 2) & 0xff);
+            byte[] dhtBytes = dht.toByteArray();
+            output.write(dhtBytes, 0, dhtBytes.length);
+            copySegment(sosStart, headerEnd);
+
+            ScanEncoder encoder = new ScanEncoder(output, scanComponents, dcTableIds, acTableIds,
+                    dcEncodingTables, acEncodingTables);
+            iterateScan(scanComponents, encoder);
+            encoder.writer.flush();
+
+            for (Component component : scanComponents) {
+                component.coefficients = null;
+            }
+            return scanEnd;
+        }
+
+        private void whitenCleanedBlocks(Component component) {
+            boolean[] cleanedSamples = new boolean[BLOCK_SIZE];
+            for (int by = 0; by < component.blocksPerColumn; ++by) {
+                for (int bx = 0; bx < component.blocksPerLine; ++bx) {
+                    int mcu = (by / component.v) * mcusPerLine + bx / component.h;
+                    if (!cleanedMcus[mcu]) {
+                        continue;
+                    }
+                    int offset = (by * component.blocksPerLine + bx) * BLOCK_SIZE;
+                    int keptSamplesCount = markCleanedSamples(component, bx, by, cleanedSamples);
+                    if (keptSamplesCount == 0) {
+                        component.coefficients[offset] = (short) component.whiteDc;
+                        Arrays.fill(component.coefficients, offset + 1, offset + BLOCK_SIZE, (short) 0);
+                    } else if (keptSamplesCount < BLOCK_SIZE) {
+                        whitenSamples(component, offset, cleanedSamples);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks the samples of the block which cover cleaned pixels of the image.
+         *
+         * @return the number of the samples within the image which are kept
+         */
+        private int markCleanedSamples(Component component, int bx, int by, boolean[] cleanedSamples) {
+            int keptSamplesCount = 0;
+            for (int y = 0; y < 8; ++y) {
+                int sampleY = by * 8 + y;
+                int startY = sampleY * maxV / component.v;
+                int endY = ((sampleY + 1) * maxV + component.v - 1) / component.v;
+                for (int x = 0; x < 8; ++x) {
+                    int sampleX = bx * 8 + x;
+                    int startX = sampleX * maxH / component.h;
+                    int endX = ((sampleX + 1) * maxH + component.h - 1) / component.h;
+                    boolean cleaned = false;
+                    for (int[] rect : cleanedRects) {
+                        if (rect[0] < endX && startX < rect[2] && rect[1] < endY && startY < rect[3]) {
+                            cleaned = true;
+                            break;
+                        }
+                    }
+                    cleanedSamples[y * 8 + x] = cleaned;
+                    // the samples padding the image to whole blocks are not displayed
+                    if (!cleaned && startX < width && startY < height) {
+                        ++keptSamplesCount;
+                    }
+                }
+            }
+            return keptSamplesCount;
+        }
+
+        private void whitenSamples(Component component, int offset, boolean[] cleanedSamples) {
+            short[] coefficients = component.coefficients;
+            int[] quantization = component.quantization;
+            double[] block = new double[BLOCK_SIZE];
+            for (int k = 0; k < BLOCK_SIZE; ++k) {
+                block[ZIGZAG[k]] = coefficients[offset + k] * quantization[k];
+            }
+            double[] samples = transform(block, true);
+            for (int i = 0; i < BLOCK_SIZE; ++i) {
+                // samples are level shifted by 128 and clamped to the sample range as decoders do
+                int sample = cleanedSamples[i] ? component.whiteSample : (int) Math.round(samples[i]) + 128;
+                samples[i] = Math.max(0, Math.min(255, sample)) - 128;
+            }
+            block = transform(samples, false);
+            for (int k = 0; k < BLOCK_SIZE; ++k) {
+                int value = (int) Math.round(block[ZIGZAG[k]] / quantization[k]);
+                coefficients[offset + k] = (short) Math.max(-MAX_COEFFICIENT, Math.min(MAX_COEFFICIENT, value));
+            }
+        }
+
+        /**
+         * Visits the blocks of the scan in the order they are coded, see ISO/IEC 10918-1, A.2.
+         */
+        private void iterateScan(Component[] scanComponents, BlockVisitor visitor) {
+            int mcuCount = 0;
+            if (scanComponents.length == 1) {
+                Component component = scanComponents[0];
+                // non-interleaved scan codes only the blocks which contain samples of the image
+                int componentWidth = (width * component.h + maxH - 1) / maxH;
+                int componentHeight = (height * component.v + maxV - 1) / maxV;
+                int blocksPerLine = (componentWidth + 7) / 8;
+                int blocksPerColumn = (componentHeight + 7) / 8;
+                for (int by = 0; by < blocksPerColumn; ++by) {
+                    for (int bx = 0; bx < blocksPerLine; ++bx) {
+                        if (restartInterval > 0 && mcuCount > 0 && mcuCount % restartInterval == 0) {
+                            visitor.restart(mcuCount / restartInterval - 1);
+                        }
+                        visitor.visit(0, (by * component.blocksPerLine + bx) * BLOCK_SIZE);
+                        ++mcuCount;
+                    }
+                }
+            } else {
+                for (int my = 0; my < mcusPerColumn; ++my) {
+                    for (int mx = 0; mx < mcusPerLine; ++mx) {
+                        if (restartInterval > 0 && mcuCount > 0 && mcuCount % restartInterval == 0) {
+                            visitor.restart(mcuCount / restartInterval - 1);
+                        }
+                        for (int i = 0; i < scanComponents.length; ++i) {
+                            Component component = scanComponents[i];
+                            for (int v = 0; v < component.v; ++v) {
+                                for (int h = 0; h < component.h; ++h) {
+                                    int bx = mx * component.h + h;
+                                    int by = my * component.v + v;
+                                    visitor.visit(i, (by * component.blocksPerLine + bx) * BLOCK_SIZE);
+                                }
+                            }
+                        }
+                        ++mcuCount;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the separable 8x8 DCT to the block in natural order, see ISO/IEC 10918-1, A.3.3.
+     */
+    private static double[] transform(double[] block, boolean inverse) {
+        double[] rows = new double[BLOCK_SIZE];
+        for (int row = 0; row < 8; ++row) {
+            for (int i = 0; i < 8; ++i) {
+                double sum = 0;
+                for (int j = 0; j < 8; ++j) {
+                    sum += (inverse ? COSINES[j * 8 + i] : COSINES[i * 8 + j]) * block[row * 8 + j];
+                }
+                rows[row * 8 + i] = sum;
+            }
+        }
+        double[] result = new double[BLOCK_SIZE];
+        for (int column = 0; column < 8; ++column) {
+            for (int i = 0; i < 8; ++i) {
+                double sum = 0;
+                for (int j = 0; j < 8; ++j) {
+                    sum += (inverse ? COSINES[j * 8 + i] : COSINES[i * 8 + j]) * rows[j * 8 + column];
+                }
+                result[i * 8 + column] = sum;
+            }
+        }
+        return result;
+    }
+
+    private static double[] createCosines() {
+        double[] cosines = new double[BLOCK_SIZE];
+        for (int frequency = 0; frequency < 8; ++frequency) {
+            double scale = frequency == 0 ? Math.sqrt(0.125) : 0.5;
+            for (int sample = 0; sample < 8; ++sample) {
+                cosines[frequency * 8 + sample] = scale * Math.cos((2 * sample + 1) * frequency * Math.PI / 16);
+            }
+        }
+        return cosines;
+    }
+
+    private interface BlockVisitor {
+        void visit(int scanComponent, int blockOffset);
+
+        void restart(int restartNumber);
+    }
+
+    private static final class ScanDecoder implements BlockVisitor {
+        private final EntropyReader reader;
+        private final Component[] components;
+        private final HuffmanDecodingTable[] dcTables;
+        private final HuffmanDecodingTable[] acTables;
+        private final int[] predictions;
+
+        ScanDecoder(byte[] data, int start, Component[] components, HuffmanDecodingTable[] dcTables,
+                HuffmanDecodingTable[] acTables) {
+            this.reader = new EntropyReader(data, start);
+            this.components = components;
+            this.dcTables = dcTables;
+            this.acTables = acTables;
+            this.predictions = new int[components.length];
+        }
+
+        @Override
+        public void visit(int scanComponent, int blockOffset) {
+            short[] coefficients = components[scanComponent].coefficients;
+            int category = dcTables[scanComponent].decode(reader);
+            if (category > 11) {
+                throw new UnsupportedJpegException();
+            }
+            int diff = category == 0 ? 0 : extend(reader.receive(category), category);
+            predictions[scanComponent] += diff;
+            coefficients[blockOffset] = (short) predictions[scanComponent];
+            int k = 1;
+            while (k < BLOCK_SIZE) {
+                int rs = acTables[scanComponent].decode(reader);
+                int run = rs >> 4;
+                int size = rs & 0xf;
+                if (size == 0) {
+                    if (run != 15) {
+                        break;
+                    }
+                    k += 16;
+                    continue;
+                }
+                k += run;
+                if (k >= BLOCK_SIZE || size > 10) {
+                    throw new UnsupportedJpegException();
+                }
+                coefficients[blockOffset + k] = (short) extend(reader.receive(size), size);
+                ++k;
+            }
+        }
+
+        @Override
+        public void restart(int restartNumber) {
+            reader.restart();
+            Arrays.fill(predictions, 0);
+        }
+
+        private static int extend(int value, int size) {
+            return value < (1 << (size - 1)) ? value - (1 << size) + 1 : value;
+        }
+    }
+
+    private static final class SymbolCounter implements BlockVisitor {
+        final long[][] dcFrequencies = new long[4][257];
+        final long[][] acFrequencies = new long[4][257];
+        final boolean[] dcUsed = new boolean[4];
+        final boolean[] acUsed = new boolean[4];
+        private final Component[] components;
+        private final int[] dcTableIds;
+        private final int[] acTableIds;
+        private final int[] predictions;
+
+        SymbolCounter(Component[] components, int[] dcTableIds, int[] acTableIds) {
+            this.components = components;
+            this.dcTableIds = dcTableIds;
+            this.acTableIds = acTableIds;
+            this.predictions = new int[components.length];
+            for (int i = 0; i < components.length; ++i) {
+                dcUsed[dcTableIds[i]] = true;
+                acUsed[acTableIds[i]] = true;
+            }
+        }
+
+        @Override
+        public void visit(int scanComponent, int blockOffset) {
+            short[] coefficients = components[scanComponent].coefficients;
+            int dc = coefficients[blockOffset];
+            ++dcFrequencies[dcTableIds[scanComponent]][getCategory(dc - predictions[scanComponent])];
+            predictions[scanComponent] = dc;
+            long[] acFrequency = acFrequencies[acTableIds[scanComponent]];
+            int run = 0;
+            for (int k = 1; k < BLOCK_SIZE; ++k) {
+                int value = coefficients[blockOffset + k];
+                if (value == 0) {
+                    ++run;
+                    continue;
+                }
+                while (run > 15) {
+                    ++acFrequency[0xF0];
+                    run -= 16;
+                }
+                ++acFrequency[(run << 4) | getCategory(value)];
+                run = 0;
+            }
+            if (run > 0) {
+                ++acFrequency[0];
+            }
+        }
+
+        @Override
+        public void restart(int restartNumber) {
+            Arrays.fill(predictions, 0);
+        }
+    }
+
+    private static final class ScanEncoder implements BlockVisitor {
+        final EntropyWriter writer;
+        private final Component[] components;
+        private final HuffmanEncodingTable[] dcTables;
+        private final HuffmanEncodingTable[] acTables;
+        private final int[] predictions;
+
+        ScanEncoder(ByteArrayOutputStream output, Component[] components, int[] dcTableIds, int[] acTableIds,
+                HuffmanEncodingTable[] dcEncodingTables, HuffmanEncodingTable[] acEncodingTables) {
+            this.writer = new EntropyWriter(output);
+            this.components = components;
+            this.predictions = new int[components.length];
+            this.dcTables = new HuffmanEncodingTable[components.length];
+            this.acTables = new HuffmanEncodingTable[components.length];
+            for (int i = 0; i < components.length; ++i) {
+                dcTables[i] = dcEncodingTables[dcTableIds[i]];
+                acTables[i] = acEncodingTables[acTableIds[i]];
+            }
+        }
+
+        @Override
+        public void visit(int scanComponent, int blockOffset) {
+            short[] coefficients = components[scanComponent].coefficients;
+            int dc = coefficients[blockOffset];
+            writeValue(dcTables[scanComponent], 0, dc - predictions[scanComponent]);
+            predictions[scanComponent] = dc;
+            HuffmanEncodingTable acTable = acTables[scanComponent];
+            int run = 0;
+            for (int k = 1; k < BLOCK_SIZE; ++k) {
+                int value = coefficients[blockOffset + k];
+                if (value == 0) {
+                    ++run;
+                    continue;
+                }
+                while (run > 15) {
+                    acTable.write(writer, 0xF0);
+                    run -= 16;
+                }
+                writeValue(acTable, run, value);
+                run = 0;
+            }
+            if (run > 0) {
+                acTable.write(writer, 0);
+            }
+        }
+
+        @Override
+        public void restart(int restartNumber) {
+            writer.flush();
+            writer.writeMarker(0xD0 + (restartNumber & 7));
+            Arrays.fill(predictions, 0);
+        }
+
+        private void writeValue(HuffmanEncodingTable table, int run, int value) {
+            int category = getCategory(value);
+            table.write(writer, (run << 4) | category);
+            if (category > 0) {
+                writer.writeBits(value < 0 ? value - 1 : value, category);
+            }
+        }
+    }
+
+    private static int getCategory(int value) {
+        int magnitude = Math.abs(value);
+        int category = 0;
+        while (magnitude > 0) {
+            ++category;
+            magnitude >>= 1;
+        }
+        return category;
+    }
+
+    private static final class EntropyReader {
+        private final byte[] data;
+        private int pos;
+        private int bitBuffer;
+        private int bitsCount;
+        private boolean markerReached;
+
+        EntropyReader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        int readBit() {
+            if (bitsCount == 0) {
+                fill();
+            }
+            --bitsCount;
+            return (bitBuffer >> bitsCount) & 1;
+        }
+
+        int receive(int length) {
+            int value = 0;
+            for (int i = 0; i < length; ++i) {
+                value = (value << 1) | readBit();
+            }
+            return value;
+        }
+
+        void restart() {
+            bitsCount = 0;
+            markerReached = false;
+            if (pos + 1 >= data.length || (data[pos] & 0xff) != 0xFF
+                    || (data[pos + 1] & 0xff) < 0xD0 || (data[pos + 1] & 0xff) > 0xD7) {
+                throw new UnsupportedJpegException();
+            }
+            pos += 2;
+        }
+
+        /**
+         * Gets the position of the marker which follows the entropy coded data.
+         */
+        int getEndPosition() {
+            while (pos + 1 < data.length) {
+                int next = data[pos + 1] & 0xff;
+                if ((data[pos] & 0xff) == 0xFF && next != 0 && (next < 0xD0 || next > 0xD7)) {
+                    return pos;
+                }
+                ++pos;
+            }
+            throw new UnsupportedJpegException();
+        }
+
+        private void fill() {
+            bitsCount = 8;
+            if (markerReached || pos >= data.length) {
+                // as decoders do, zero bits are fed after the end of the entropy coded segment
+                bitBuffer = 0;
+                return;
+            }
+            int value = data[pos] & 0xff;
+            if (value == 0xFF) {
+                if (pos + 1 < data.length && data[pos + 1] == 0) {
+                    pos += 2;
+                } else {
+                    markerReached = true;
+                    value = 0;
+                }
+            } else {
+                ++pos;
+            }
+            bitBuffer = value;
+        }
+    }
+
+    private static final class EntropyWriter {
+        private final ByteArrayOutputStream output;
+        private int bitBuffer;
+        private int bitsCount;
+
+        EntropyWriter(ByteArrayOutputStream output) {
+            this.output = output;
+        }
+
+        void writeBits(int value, int length) {
+            for (int i = length - 1; i >= 0; --i) {
+                bitBuffer = (bitBuffer << 1) | ((value >> i) & 1);
+                if (++bitsCount == 8) {
+                    writeByte();
+                }
+            }
+        }
+
+        void flush() {
+            // the last byte is padded with 1-bits
+            if (bitsCount > 0) {
+                writeBits(0x7F, 8 - bitsCount);
+            }
+        }
+
+        void writeMarker(int marker) {
+            output.write(0xFF);
+            output.write(marker);
+        }
+
+        private void writeByte() {
+            output.write(bitBuffer);
+            if (bitBuffer == 0xFF) {
+                output.write(0);
+            }
+            bitBuffer = 0;
+            bitsCount = 0;
+        }
+    }
+
+    private static final class HuffmanDecodingTable {
+        private final int[] maxCode = new int[18];
+        private final int[] minCode = new int[17];
+        private final int[] valuesPointer = new int[17];
+        private final byte[] values;
+
+        HuffmanDecodingTable(int[] bits, byte[] values) {
+            this.values = values;
+            int code = 0;
+            int index = 0;
+            for (int length = 1; length <= 16; ++length) {
+                if (bits[length] == 0) {
+                    maxCode[length] = -1;
+                } else {
+                    valuesPointer[length] = index;
+                    minCode[length] = code;
+                    code += bits[length];
+                    index += bits[length];
+                    maxCode[length] = code - 1;
+                }
+                code <<= 1;
+            }
+            maxCode[17] = Integer.MAX_VALUE;
+        }
+
+        int decode(EntropyReader reader) {
+            int code = reader.readBit();
+            int length = 1;
+            while (code > maxCode[length]) {
+                if (++length > 16) {
+                    throw new UnsupportedJpegException();
+                }
+                code = (code << 1) | reader.readBit();
+            }
+            int index = valuesPointer[length] + code - minCode[length];
+            if (index >= values.length) {
+                throw new UnsupportedJpegException();
+            }
+            return values[index] & 0xff;
+        }
+    }
+
+    private static final class HuffmanEncodingTable {
+        private final int[] bits;
+        private final int[] values;
+        private final int[] codes = new int[256];
+        private final int[] codeLengths = new int[256];
+
+        private HuffmanEncodingTable(int[] bits, int[] values) {
+            this.bits = bits;
+            this.values = values;
+            int code = 0;
+            int index = 0;
+            for (int length = 1; length <= 16; ++length) {
+                for (int i = 0; i < bits[length]; ++i) {
+                    codes[values[index]] = code;
+                    codeLengths[values[index]] = length;
+                    ++code;
+                    ++index;
+                }
+                code <<= 1;
+            }
+        }
+
+        /**
+         * Generates the optimal table for the symbol frequencies, see ISO/IEC 10918-1, K.2.
+         */
+        static HuffmanEncodingTable createOptimal(long[] symbolFrequencies) {
+            long[] frequencies = Arrays.copyOf(symbolFrequencies, 257);
+            boolean hasSymbols = false;
+            for (int i = 0; i < 256; ++i) {
+                hasSymbols |= frequencies[i] > 0;
+            }
+            if (!hasSymbols) {
+                frequencies[0] = 1;
+            }
+            // reserved symbol guarantees that no code consists of 1-bits only
+            frequencies[256] = 1;
+            int[] codeSizes = new int[257];
+            int[] others = new int[257];
+            Arrays.fill(others, -1);
+            while (true) {
+                int c1 = findLeastFrequent(frequencies, -1);
+                int c2 = findLeastFrequent(frequencies, c1);
+                if (c2 < 0) {
+                    break;
+                }
+                frequencies[c1] += frequencies[c2];
+                frequencies[c2] = 0;
+                ++codeSizes[c1];
+                while (others[c1] >= 0) {
+                    c1 = others[c1];
+                    ++codeSizes[c1];
+                }
+                others[c1] = c2;
+                ++codeSizes[c2];
+                while (others[c2] >= 0) {
+                    c2 = others[c2];
+                    ++codeSizes[c2];
+                }
+            }
+            int[] sizeCounts = new int[33];
+            for (int i = 0; i < 257; ++i) {
+                if (codeSizes[i] > 0) {
+                    if (codeSizes[i] > 32) {
+                        throw new UnsupportedJpegException();
+                    }
+                    ++sizeCounts[codeSizes[i]];
+                }
+            }
+            // limit the code lengths to 16 bits
+            for (int i = 32; i > 16; --i) {
+                while (sizeCounts[i] > 0) {
+                    int j = i - 2;
+                    while (sizeCounts[j] == 0) {
+                        --j;
+                    }
+                    sizeCounts[i] -= 2;
+                    ++sizeCounts[i - 1];
+                    sizeCounts[j + 1] += 2;
+                    --sizeCounts[j];
+                }
+            }
+            int longest = 16;
+            while (sizeCounts[longest] == 0) {
+                --longest;
+            }
+            --sizeCounts[longest];
+            int[] bits = Arrays.copyOf(sizeCounts, 17);
+            int valuesCount = 0;
+            for (int i = 1; i <= 16; ++i) {
+                valuesCount += bits[i];
+            }
+            int[] values = new int[valuesCount];
+            int index = 0;
+            for (int size = 1; size <= 32 && index < valuesCount; ++size) {
+                for (int symbol = 0; symbol < 256; ++symbol) {
+                    if (codeSizes[symbol] == size) {
+                        values[index++] = symbol;
+                    }
+                }
+            }
+            return new HuffmanEncodingTable(bits, values);
+        }
+
+        void write(EntropyWriter writer, int symbol) {
+            if (codeLengths[symbol] == 0) {
+                throw new UnsupportedJpegException();
+            }
+            writer.writeBits(codes[symbol], codeLengths[symbol]);
+        }
+
+        void writeDefinition(ByteArrayOutputStream output, int tableClass, int id) {
+            output.write((tableClass << 4) | id);
+            for (int i = 1; i <= 16; ++i) {
+                output.write(bits[i]);
+            }
+            for (int value : values) {
+                output.write(value);
+            }
+        }
+
+        private static int findLeastFrequent(long[] frequencies, int excluded) {
+            int result = -1;
+            long minFrequency = Long.MAX_VALUE;
+            for (int i = 0; i < frequencies.length; ++i) {
+                if (i != excluded && frequencies[i] > 0 && frequencies[i] <= minFrequency) {
+                    minFrequency = frequencies[i];
+                    result = i;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup.util;
+
+import com.itextpdf.io.source.DeflaterOutputStream;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility class providing methods to encode decoded stream data with the filters of the stream, so that cleaned
+ * up data can be written back with the same filter chain as the original data. Bilevel images encoded with
+ * CCITTFaxDecode are re-encoded with the same CCITT encoding, see {@link CcittFaxEncoder}.
+ */
+public final class CleanUpStreamEncodeUtil {
+
+    private static final int LZW_CLEAR_TABLE = 256;
+    private static final int LZW_EOD = 257;
+    private static final int LZW_FIRST_CODE = 258;
+    private static final int LZW_TABLE_LIMIT = 4094;
+
+    private static final int PNG_PREDICTOR_NONE = 0;
+    private static final int PNG_PREDICTOR_SUB = 1;
+    private static final int PNG_PREDICTOR_UP = 2;
+    private static final int PNG_PREDICTOR_AVERAGE = 3;
+    private static final int PNG_PREDICTOR_PAETH = 4;
+
+    private static final int CCITT_DEFAULT_COLUMNS = 1728;
+
+    private CleanUpStreamEncodeUtil() {
+    }
+
+    /**
+     * Checks whether the filter chain of the stream, including its decode parameters, can be reproduced by
+     * {@link #encode(byte[], PdfStream)}.
+     *
+     * @param stream the stream which filters are checked
+     * @return true if the data can be encoded with the filters of the stream
+     */
+    public static boolean isFilterChainSupported(PdfStream stream) {
+        PdfArray filters = getFilters(stream);
+        for (int i = 0; i < filters.size(); ++i) {
+            if (!isFilterSupported(filters.getAsName(i), getDecodeParams(stream, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the decoded data with the filters and decode parameters of the given stream, so that the
+     * result can be set as the raw content of a stream with the same Filter and DecodeParms entries.
+     *
+     * @param data   the decoded data
+     * @param stream the stream which Filter and DecodeParms entries define the encoding
+     * @return the encoded data or {@code null} if the filter chain of the stream is not supported
+     */
+    public static byte[] encode(byte[] data, PdfStream stream) {
+        if (!isFilterChainSupported(stream)) {
+            return null;
+        }
+        PdfArray filters = getFilters(stream);
+        byte[] encoded = data;
+        // filters are listed in decoding order, so encoding goes in reverse order
+        for (int i = filters.size() - 1; i >= 0 && encoded != null; --i) {
+            encoded = encode(encoded, filters.getAsName(i), getDecodeParams(stream, i));
+        }
+        return encoded;
+    }
+
+    private static byte[] encode(byte[] data, PdfName filter, PdfDictionary decodeParams) {
+        if (PdfName.FlateDecode.equals(filter) || PdfName.Fl.equals(filter)) {
+            byte[] predicted = applyPredictor(data, decodeParams);
+            return predicted == null ? null : deflate(predicted);
+        } else if (PdfName.LZWDecode.equals(filter) || PdfName.LZW.equals(filter)) {
+            byte[] predicted = applyPredictor(data, decodeParams);
+            return predicted == null ? null : lzwEncode(predicted);
+        } else if (PdfName.RunLengthDecode.equals(filter) || PdfName.RL.equals(filter)) {
+            return runLengthEncode(data);
+        } else if (PdfName.ASCIIHexDecode.equals(filter) || PdfName.AHx.equals(filter)) {
+            return asciiHexEncode(data);
+        } else if (PdfName.ASCII85Decode.equals(filter) || PdfName.A85.equals(filter)) {
+            return ascii85Encode(data);
+        } else if (PdfName.CCITTFaxDecode.equals(filter) || PdfName.CCF.equals(filter)) {
+            return ccittFaxEncode(data, decodeParams);
+        }
+        return null;
+    }
+
+    private static boolean isFilterSupported(PdfName filter, PdfDictionary decodeParams) {
+        if (PdfName.FlateDecode.equals(filter) || PdfName.Fl.equals(filter)) {
+            return isPredictorSupported(decodeParams);
+        } else if (PdfName.LZWDecode.equals(filter) || PdfName.LZW.equals(filter)) {
+            PdfNumber earlyChange = decodeParams == null ? null : decodeParams.getAsNumber(PdfName.EarlyChange);
+            return (earlyChange == null || earlyChange.intValue() == 1) && isPredictorSupported(decodeParams);
+        } else if (PdfName.CCITTFaxDecode.equals(filter) || PdfName.CCF.equals(filter)) {
+            return isCcittFaxEncodingSupported(decodeParams);
+        }
+        return PdfName.RunLengthDecode.equals(filter) || PdfName.RL.equals(filter)
+                || PdfName.ASCIIHexDecode.equals(filter) || PdfName.AHx.equals(filter)
+                || PdfName.ASCII85Decode.equals(filter) || PdfName.A85.equals(filter);
+    }
+
+    /**
+     * Checks whether the CCITT facsimile encoding can be reproduced. Group 4 data with end-of-line codes and
+     * byte-aligned Group 3 mixed data are rarely produced and are not supported.
+     */
+    private static boolean isCcittFaxEncodingSupported(PdfDictionary decodeParams) {
+        int k = getIntParam(decodeParams, PdfName.K, 0);
+        if (k < 0) {
+            return !getBooleanParam(decodeParams, PdfName.EndOfLine, false);
+        }
+        return k == 0 || !getBooleanParam(decodeParams, PdfName.EncodedByteAlign, false);
+    }
+
+    private static byte[] ccittFaxEncode(byte[] data, PdfDictionary decodeParams) {
+        return CcittFaxEncoder.encode(data, getIntParam(decodeParams, PdfName.K, 0),
+                getIntParam(decodeParams, PdfName.Columns, CCITT_DEFAULT_COLUMNS),
+                getBooleanParam(decodeParams, PdfName.EndOfLine, false),
+                getBooleanParam(decodeParams, PdfName.EncodedByteAlign, false),
+                getBooleanParam(decodeParams, PdfName.EndOfBlock, true),
+                getBooleanParam(decodeParams, PdfName.BlackIs1, false));
+    }
+
+    private static PdfArray getFilters(PdfStream stream) {
+        PdfObject filter = stream.get(PdfName.Filter);
+        if (filter == null) {
+            return new PdfArray();
+        } else if (filter.isArray()) {
+            return (PdfArray) filter;
+        }
+        PdfArray filters = new PdfArray();
+        filters.add(filter);
+        return filters;
+    }
+
+    private static PdfDictionary getDecodeParams(PdfStream stream, int filterIndex) {
+        PdfObject decodeParams = stream.get(PdfName.DecodeParms);
+        if (decodeParams == null) {
+            return null;
+        } else if (decodeParams.isDictionary()) {
+            return filterIndex == 0 ? (PdfDictionary) decodeParams : null;
+        } else if (decodeParams.isArray()) {
+            PdfArray decodeParamsArray = (PdfArray) decodeParams;
+            return filterIndex < decodeParamsArray.size() ? decodeParamsArray.getAsDictionary(filterIndex) : null;
+        }
+        return null;
+    }
+
+    private static int getIntParam(PdfDictionary decodeParams, PdfName key, int defaultValue) {
+        PdfNumber value = decodeParams == null ? null : decodeParams.getAsNumber(key);
+        return value == null ? defaultValue : value.intValue();
+    }
+
+    private static boolean getBooleanParam(PdfDictionary decodeParams, PdfName key, boolean defaultValue) {
+        Boolean value = decodeParams == null ? null : decodeParams.getAsBool(key);
+        return value == null ? defaultValue : (boolean) value;
+    }
+
+    private static boolean isPredictorSupported(PdfDictionary decodeParams) {
+        int predictor = getIntParam(decodeParams, PdfName.Predictor, 1);
+        if (predictor == 2) {
+            // TIFF predictor is decoded only for 8 bits per component
+            return getIntParam(decodeParams, PdfName.BitsPerComponent, 8) == 8;
+        }
+        return predictor == 1 || (predictor >= 10 && predictor <= 15);
+    }
+
+    private static byte[] applyPredictor(byte[] data, PdfDictionary decodeParams) {
+        int predictor = getIntParam(decodeParams, PdfName.Predictor, 1);
+        if (predictor == 1) {
+            return data;
+        }
+        int colors = getIntParam(decodeParams, PdfName.Colors, 1);
+        int bpc = getIntParam(decodeParams, PdfName.BitsPerComponent, 8);
+        int columns = getIntParam(decodeParams, PdfName.Columns, 1);
+        int bytesPerPixel = Math.max(1, colors * bpc / 8);
+        int rowLength = (colors * bpc * columns + 7) / 8;
+        if (rowLength <= 0 || data.length % rowLength != 0) {
+            return null;
+        }
+        int rows = data.length / rowLength;
+        if (predictor == 2) {
+            byte[] result = new byte[data.length];
+            for (int row = 0; row < rows; ++row) {
+                int rowStart = row * rowLength;
+                for (int i = 0; i < rowLength; ++i) {
+                    int left = i >= colors ? data[rowStart + i - colors] : 0;
+                    result[rowStart + i] = (byte) (data[rowStart + i] - left);
+                }
+            }
+            return result;
+        }
+
+        byte[] result = new byte[rows * (rowLength + 1)];
+        byte[] candidate = new byte[rowLength];
+        byte[] best = new byte[rowLength];
+        for (int row = 0; row < rows; ++row) {
+            int rowStart = row * rowLength;
+            int previousRowStart = row == 0 ? -1 : rowStart - rowLength;
+            int filterType;
+            if (predictor == 15) {
+                // the same heuristic as recommended by the PNG specification: the smallest sum of absolute differences
+                filterType = PNG_PREDICTOR_NONE;
+                long bestSum = Long.MAX_VALUE;
+                for (int type = PNG_PREDICTOR_NONE; type <= PNG_PREDICTOR_PAETH; ++type) {
+                    long sum = applyPngFilter(data, rowStart, previousRowStart, rowLength, bytesPerPixel, type,
+                            candidate);
+                    if (sum < bestSum) {
+                        bestSum = sum;
+                        filterType = type;
+                        byte[] temp = best;
+                        best = candidate;
+                        candidate = temp;
+                    }
+                }
+            } else {
+                filterType = predictor - 10;
+                applyPngFilter(data, rowStart, previousRowStart, rowLength, bytesPerPixel, filterType, best);
+            }
+            int resultRowStart = row * (rowLength + 1);
+            result[resultRowStart] = (byte) filterType;
+            System.arraycopy(best, 0, result, resultRowStart + 1, rowLength);
+        }
+        return result;
+    }
+
+    private static long applyPngFilter(byte[] data, int rowStart, int previousRowStart, int rowLength,
+            int bytesPerPixel, int filterType, byte[] output) {
+        long sum = 0;
+        for (int i = 0; i < rowLength; ++i) {
+            int current = data[rowStart + i] & 0xff;
+            int left = i >= bytesPerPixel ? data[rowStart + i - bytesPerPixel] & 0xff : 0;
+            int up = previousRowStart >= 0 ? data[previousRowStart + i] & 0xff : 0;
+            int upLeft = previousRowStart >= 0 && i >= bytesPerPixel
+                    ? data[previousRowStart + i - bytesPerPixel] & 0xff : 0;
+            int predicted;
+            switch (filterType) {
+                case PNG_PREDICTOR_SUB:
+                    predicted = left;
+                    break;
+                case PNG_PREDICTOR_UP:
+                    predicted = up;
+                    break;
+                case PNG_PREDICTOR_AVERAGE:
+                    predicted = (left + up) / 2;
+                    break;
+                case PNG_PREDICTOR_PAETH:
+                    predicted = paethPredictor(left, up, upLeft);
+                    break;
+                default:
+                    predicted = 0;
+                    break;
+            }
+            byte filtered = (byte) (current - predicted);
+            output[i] = filtered;
+            sum += Math.abs((int) filtered);
+        }
+        return sum;
+    }
+
+    private static int paethPredictor(int left, int up, int upLeft) {
+        int p = left + up - upLeft;
+        int pa = Math.abs(p - left);
+        int pb = Math.abs(p - up);
+        int pc = Math.abs(p - upLeft);
+        if (pa <= pb && pa <= pc) {
+            return left;
+        } else if (pb <= pc) {
+            return up;
+        }
+        return upLeft;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(output,
+                CompressionConstants.DEFAULT_COMPRESSION)) {
+            deflater.write(data);
+            deflater.finish();
+        } catch (IOException e) {
+            return null;
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] lzwEncode(byte[] data) {
+        LzwBitWriter writer = new LzwBitWriter();
+        Map<Integer, Integer> table = new HashMap<>();
+        int nextCode = LZW_FIRST_CODE;
+        writer.write(LZW_CLEAR_TABLE, getLzwCodeLength(nextCode));
+        if (data.length == 0) {
+            writer.write(LZW_EOD, getLzwCodeLength(nextCode + 1));
+            return writer.toByteArray();
+        }
+        int prefix = data[0] & 0xff;
+        for (int i = 1; i < data.length; ++i) {
+            int current = data[i] & 0xff;
+            int key = (prefix << 8) | current;
+            Integer code = table.get(key);
+            if (code != null) {
+                prefix = (int) code;
+                continue;
+            }
+            writer.write(prefix, getLzwCodeLength(nextCode));
+            table.put(key, nextCode++);
+            if (nextCode >= LZW_TABLE_LIMIT) {
+                writer.write(LZW_CLEAR_TABLE, getLzwCodeLength(nextCode));
+                table.clear();
+                nextCode = LZW_FIRST_CODE;
+            }
+            prefix = current;
+        }
+        writer.write(prefix, getLzwCodeLength(nextCode));
+        // the decoder adds a table entry for the last code, so it expects a longer code one entry earlier
+        writer.write(LZW_EOD, getLzwCodeLength(nextCode + 1));
+        return writer.toByteArray();
+    }
+
+    /**
+     * Gets the length of the code written when the next free table entry is the given one, taking into account
+     * that the decoder adds its table entries one code later than the encoder (EarlyChange equal to 1).
+     */
+    private static int getLzwCodeLength(int nextCode) {
+        if (nextCode >= 2048) {
+            return 12;
+        } else if (nextCode >= 1024) {
+            return 11;
+        } else if (nextCode >= 512) {
+            return 10;
+        }
+        return 9;
+    }
+
+    private static byte[] runLengthEncode(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < data.length) {
+            int runLength = 1;
+            while (i + runLength < data.length && runLength < 128 && data[i + runLength] == data[i]) {
+                ++runLength;
+            }
+            if (runLength > 1) {
+                output.write(257 - runLength);
+                output.write(data[i]);
+                i += runLength;
+                continue;
+            }
+            int literalStart = i;
+            int literalLength = 0;
+            while (i < data.length && literalLength < 128
+                    && (i + 1 >= data.length || data[i + 1] != data[i])) {
+                ++i;
+                ++literalLength;
+            }
+            if (literalLength == 0) {
+                // a run starts right here, it is handled by the next iteration
+                continue;
+            }
+            output.write(literalLength - 1);
+            output.write(data, literalStart, literalLength);
+        }
+        output.write(128);
+        return output.toByteArray();
+    }
+
+    private static byte[] asciiHexEncode(byte[] data) {
+        final byte[] hexDigits = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+        byte[] result = new byte[data.length * 2 + 1];
+        for (int i = 0; i < data.length; ++i) {
+            result[2 * i] = hexDigits[(data[i] >> 4) & 0xf];
+            result[2 * i + 1] = hexDigits[data[i] & 0xf];
+        }
+        result[result.length - 1] = '>';
+        return result;
+    }
+
+    private static byte[] ascii85Encode(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chars = new byte[5];
+        for (int i = 0; i < data.length; i += 4) {
+            int groupLength = Math.min(4, data.length - i);
+            long value = 0;
+            for (int j = 0; j < 4; ++j) {
+                value = (value << 8) | (j < groupLength ? data[i + j] & 0xff : 0);
+            }
+            if (value == 0 && groupLength == 4) {
+                output.write('z');
+                continue;
+            }
+            for (int j = 4; j >= 0; --j) {
+                chars[j] = (byte) (value % 85 + '!');
+                value /= 85;
+            }
+            output.write(chars, 0, groupLength + 1);
+        }
+        output.write('~');
+        output.write('>');
+        return output.toByteArray();
+    }
+
+    private static final class LzwBitWriter {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int buffer = 0;
+        private int bitsInBuffer = 0;
+
+        void write(int code, int codeLength) {
+            buffer = (buffer << codeLength) | code;
+            bitsInBuffer += codeLength;
+            while (bitsInBuffer >= 8) {
+                output.write((buffer >> (bitsInBuffer - 8)) & 0xff);
+                bitsInBuffer -= 8;
+            }
+            buffer &= (1 << bitsInBuffer) - 1;
+        }
+
+        byte[] toByteArray() {
+            if (bitsInBuffer > 0) {
+                output.write((buffer << (8 - bitsInBuffer)) & 0xff);
+                bitsInBuffer = 0;
+                buffer = 0;
+            }
+            return output.toByteArray();
+        }
+    }
+}
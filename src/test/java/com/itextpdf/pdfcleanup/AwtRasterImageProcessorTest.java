@@ -0,0 +1,63 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.io.image.ImageType;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.test.ExtendedITextTest;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("UnitTest")
+public class AwtRasterImageProcessorTest extends ExtendedITextTest {
+
+    @Test
+    public void warmUpImageProcessingTest() {
+        Assertions.assertDoesNotThrow(() -> PdfCleaner.warmUpImageProcessing());
+        // subsequent calls do nothing
+        Assertions.assertDoesNotThrow(() -> PdfCleaner.warmUpImageProcessing());
+    }
+
+    @Test
+    public void cleanUpImageKeepsFormatTest() throws IOException {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream imageBytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", imageBytes);
+
+        byte[] cleanedImageBytes = AwtRasterImageProcessor.getInstance().cleanUpImage(imageBytes.toByteArray(),
+                Collections.singletonList(new Rectangle(0, 0, 0.5f, 1)));
+
+        ImageData cleanedImage = ImageDataFactory.create(cleanedImageBytes);
+        Assertions.assertEquals(ImageType.PNG, cleanedImage.getOriginalType());
+        Assertions.assertEquals(4, (int) cleanedImage.getWidth());
+        Assertions.assertEquals(4, (int) cleanedImage.getHeight());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.itextpdf.test.ExtendedITextTest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import javax.imageio.ImageIO;
+
+@Tag("UnitTest")
+public class BandedImageCleanerTest extends ExtendedITextTest {
+
+    private static final int WIDTH = 50;
+    private static final int HEIGHT = 40;
+
+    @Test
+    public void grayImageInBandsTest() throws IOException {
+        assertBandedCleanUp(BufferedImage.TYPE_BYTE_GRAY, PdfName.DeviceGray, 1);
+    }
+
+    @Test
+    public void rgbImageInBandsTest() throws IOException {
+        assertBandedCleanUp(BufferedImage.TYPE_INT_RGB, PdfName.DeviceRGB, 3);
+    }
+
+    @Test
+    public void supportedImagesTest() {
+        PdfStream imageStream = new PdfStream();
+        imageStream.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+        imageStream.put(PdfName.Filter, PdfName.DCTDecode);
+        Assertions.assertTrue(BandedImageCleaner.isSupported(imageStream));
+
+        imageStream.put(PdfName.Mask, new PdfStream());
+        Assertions.assertTrue(BandedImageCleaner.isSupported(imageStream));
+
+        // the color key mask refers to the original samples
+        imageStream.put(PdfName.Mask, new PdfArray(new int[] {0, 10, 0, 10, 0, 10}));
+        Assertions.assertFalse(BandedImageCleaner.isSupported(imageStream));
+        imageStream.remove(PdfName.Mask);
+
+        imageStream.put(PdfName.Decode, new PdfArray(new int[] {1, 0, 1, 0, 1, 0}));
+        Assertions.assertFalse(BandedImageCleaner.isSupported(imageStream));
+        imageStream.remove(PdfName.Decode);
+
+        imageStream.put(PdfName.ColorSpace, PdfName.DeviceCMYK);
+        Assertions.assertFalse(BandedImageCleaner.isSupported(imageStream));
+        imageStream.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+
+        // only JPEG images are read as they are encoded
+        imageStream.put(PdfName.Filter, PdfName.FlateDecode);
+        Assertions.assertFalse(BandedImageCleaner.isSupported(imageStream));
+        imageStream.remove(PdfName.Filter);
+        Assertions.assertFalse(BandedImageCleaner.isSupported(imageStream));
+    }
+
+    private static void assertBandedCleanUp(int imageType, PdfName expectedColorSpace, int components)
+            throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, imageType);
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                int gray = (x + y) % 200;
+                if (components == 1) {
+                    image.getRaster().setSample(x, y, 0, gray);
+                } else {
+                    image.setRGB(x, y, gray << 16 | gray << 8 | gray);
+                }
+            }
+        }
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", jpeg);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg.toByteArray()));
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        try (PdfDocument document = new PdfDocument(new PdfWriter(pdf))) {
+            // rows 10 .. 29 and columns 10 .. 19 of the image, read in bands of 7 rows
+            PdfStream imageStream = BandedImageCleaner.cleanUp(jpeg.toByteArray(), Collections.singletonList(
+                    new Rectangle(0.2f, 0.25f, 0.2f, 0.5f)), BandedImageCleaner.getDecodedImageSize(WIDTH, 7),
+                    document);
+            Assertions.assertNotNull(imageStream);
+            Assertions.assertEquals(expectedColorSpace, imageStream.getAsName(PdfName.ColorSpace));
+            new PdfCanvas(document.addNewPage()).addXObjectAt(new PdfImageXObject(imageStream), 0, 0);
+        }
+
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            PdfStream imageStream = document.getFirstPage().getResources().getResource(PdfName.XObject)
+                    .getAsStream(new PdfName("Im1"));
+            byte[] samples = imageStream.getBytes();
+            Assertions.assertEquals(WIDTH * HEIGHT * components, samples.length);
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    boolean cleaned = x >= 10 && x < 20 && y >= 10 && y < 30;
+                    int expected = cleaned ? 0xFF : decoded.getRGB(x, y) >> 16 & 0xFF;
+                    Assertions.assertEquals(expected, samples[(y * WIDTH + x) * components] & 0xFF);
+                }
+            }
+        }
+    }
+}
@@ -38,6 +38,10 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -92,6 +96,35 @@ public class BigDocumentCleanUpTest extends ExtendedITextTest {
         compareByContent(cmp, output, outputPath, "4");
     }
 
+    @Test
+    public void bigUntaggedDocumentFromPath() throws IOException, InterruptedException {
+        String input = inputPath + "iphone_user_guide_untagged.pdf";
+        String output = outputPath + "bigUntaggedDocumentFromPath.pdf";
+        String cmp = inputPath + "cmp_bigUntaggedDocument.pdf";
+
+        List<Rectangle> rects = Arrays.asList(new Rectangle(60f, 80f, 460f, 65f), new Rectangle(300f, 370f, 215f, 260f));
+        PdfCleaner.cleanUp(Paths.get(input), Paths.get(output), initLocations(rects, 130));
+        compareByContent(cmp, output, outputPath, "4");
+    }
+
+    @Test
+    public void bigUntaggedDocumentFromChannel() throws IOException, InterruptedException {
+        String input = inputPath + "iphone_user_guide_untagged.pdf";
+        String output = outputPath + "bigUntaggedDocumentFromChannel.pdf";
+        String cmp = inputPath + "cmp_bigUntaggedDocument.pdf";
+
+        List<Rectangle> rects = Arrays.asList(new Rectangle(60f, 80f, 460f, 65f), new Rectangle(300f, 370f, 215f, 260f));
+        try (
+                SeekableByteChannel inputChannel = Files.newByteChannel(Paths.get(input), StandardOpenOption.READ);
+                SeekableByteChannel outputChannel = Files.newByteChannel(Paths.get(output),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+        ) {
+            PdfCleaner.cleanUp(inputChannel, outputChannel, initLocations(rects, 130));
+            Assertions.assertTrue(outputChannel.isOpen());
+        }
+        compareByContent(cmp, output, outputPath, "4");
+    }
+
     @Test
     public void textPositioning() throws IOException, InterruptedException {
         String input = inputPath + "textPositioning.pdf";
@@ -22,6 +22,9 @@
  */
 package com.itextpdf.pdfcleanup;
 
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.pdf.PdfArray;
 import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfNumber;
 import com.itextpdf.kernel.pdf.PdfStream;
@@ -85,6 +88,56 @@ public class CleanUpCsCompareUtilTest extends ExtendedITextTest {
         Assertions.assertFalse(CleanUpCsCompareUtil.isOriginalCsCompatible(image1, image2));
     }
 
+    @Test
+    public void sameImageDataParametersTest() {
+        PdfImageXObject image = createMockedPdfImageXObject(PdfName.DeviceRGB, 8);
+        ImageData imageData = ImageDataFactory.create(1, 1, 3, 8, new byte[3], null);
+
+        Assertions.assertTrue(CleanUpCsCompareUtil.isOriginalCsCompatible(image, imageData));
+    }
+
+    @Test
+    public void differentImageDataBitsPerComponentTest() {
+        PdfImageXObject image = createMockedPdfImageXObject(PdfName.DeviceRGB, 8);
+        ImageData imageData = ImageDataFactory.create(1, 1, 3, 16, new byte[6], null);
+
+        Assertions.assertFalse(CleanUpCsCompareUtil.isOriginalCsCompatible(image, imageData));
+    }
+
+    @Test
+    public void differentImageDataComponentsTest() {
+        PdfImageXObject image = createMockedPdfImageXObject(PdfName.DeviceCMYK, 8);
+        ImageData imageData = ImageDataFactory.create(1, 1, 3, 8, new byte[3], null);
+
+        Assertions.assertFalse(CleanUpCsCompareUtil.isOriginalCsCompatible(image, imageData));
+    }
+
+    @Test
+    public void transparentImageDataTest() {
+        PdfImageXObject image = createMockedPdfImageXObject(PdfName.DeviceGray, 8);
+        ImageData imageData = ImageDataFactory.create(1, 1, 1, 8, new byte[1], new int[] {0, 0});
+
+        Assertions.assertFalse(CleanUpCsCompareUtil.isOriginalCsCompatible(image, imageData));
+    }
+
+    @Test
+    public void grayImageDataCsApplicableTest() {
+        PdfImageXObject image = createMockedPdfImageXObject(PdfName.DeviceGray, 4);
+        ImageData imageData = ImageDataFactory.create(1, 1, 1, 8, new byte[1], null);
+
+        Assertions.assertTrue(CleanUpCsCompareUtil.isOriginalCsCompatible(image, imageData));
+    }
+
+    @Test
+    public void malformedColorSpaceImageDataTest() {
+        PdfImageXObject image = createMockedPdfImageXObject(PdfName.DeviceRGB, 8);
+        // ICCBased color space without the ICC profile stream
+        image.getPdfObject().put(PdfName.ColorSpace, new PdfArray(PdfName.ICCBased));
+        ImageData imageData = ImageDataFactory.create(1, 1, 3, 8, new byte[3], null);
+
+        Assertions.assertFalse(CleanUpCsCompareUtil.isOriginalCsCompatible(image, imageData));
+    }
+
     private PdfImageXObject createMockedPdfImageXObject(PdfName colorSpace, int bitsPerComponent) {
         PdfStream stream1 = new PdfStream();
         stream1.put(PdfName.BitsPerComponent, new PdfNumber(bitsPerComponent));
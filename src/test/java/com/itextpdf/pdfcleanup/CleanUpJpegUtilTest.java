@@ -0,0 +1,168 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.itextpdf.pdfcleanup.util.CleanUpHelperUtil;
+import com.itextpdf.pdfcleanup.util.CleanUpJpegUtil;
+import com.itextpdf.test.ExtendedITextTest;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("UnitTest")
+public class CleanUpJpegUtilTest extends ExtendedITextTest {
+
+    private static final int WIDTH = 203;
+    private static final int HEIGHT = 141;
+
+    @Test
+    public void grayJpegTest() throws IOException {
+        BufferedImage original = readJpeg(createJpeg(BufferedImage.TYPE_BYTE_GRAY));
+        Rectangle area = new Rectangle(0.25f, 0.25f, 0.3f, 0.3f);
+        byte[] cleaned = CleanUpJpegUtil.cleanUpJpeg(createJpeg(BufferedImage.TYPE_BYTE_GRAY),
+                Collections.singletonList(area));
+        Assertions.assertNotNull(cleaned);
+
+        BufferedImage result = readJpeg(cleaned);
+        int[] rect = CleanUpHelperUtil.getImageRectToClean(area, WIDTH, HEIGHT);
+        // gray MCU is a single 8x8 block, so every block not overlapping the area is decoded identically
+        int startX = rect[0] / 8 * 8;
+        int endX = (rect[0] + rect[2] + 7) / 8 * 8;
+        int startY = rect[1] / 8 * 8;
+        int endY = (rect[1] + rect[3] + 7) / 8 * 8;
+        long edgeDifference = 0;
+        int edgePixelsCount = 0;
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                int gray = result.getRGB(x, y) & 0xFF;
+                if (x >= rect[0] && x < rect[0] + rect[2] && y >= rect[1] && y < rect[1] + rect[3]) {
+                    // re-quantization of the partially cleaned blocks may slightly darken the pixels
+                    Assertions.assertTrue(gray > 0xF0);
+                } else if (x >= startX && x < endX && y >= startY && y < endY) {
+                    edgeDifference += Math.abs(gray - (original.getRGB(x, y) & 0xFF));
+                    ++edgePixelsCount;
+                } else {
+                    Assertions.assertEquals(original.getRGB(x, y), result.getRGB(x, y));
+                }
+            }
+        }
+        // the pixels of the partially cleaned blocks outside of the area are kept, not whitened
+        Assertions.assertTrue(edgeDifference < 16L * edgePixelsCount);
+    }
+
+    @Test
+    public void rgbJpegTest() throws IOException {
+        Rectangle area = new Rectangle(0.5f, 0.1f, 0.2f, 0.4f);
+        byte[] cleaned = CleanUpJpegUtil.cleanUpJpeg(createJpeg(BufferedImage.TYPE_INT_RGB),
+                Collections.singletonList(area));
+        Assertions.assertNotNull(cleaned);
+
+        BufferedImage result = readJpeg(cleaned);
+        int[] rect = CleanUpHelperUtil.getImageRectToClean(area, WIDTH, HEIGHT);
+        for (int y = rect[1]; y < rect[1] + rect[3]; ++y) {
+            for (int x = rect[0]; x < rect[0] + rect[2]; ++x) {
+                int rgb = result.getRGB(x, y);
+                // re-quantization of the partially cleaned blocks and chroma upsampling of the decoder may slightly
+                // tint the pixels at the borders of the area
+                Assertions.assertTrue((rgb & 0xFF) > 216 && (rgb >> 8 & 0xFF) > 216 && (rgb >> 16 & 0xFF) > 216);
+            }
+        }
+    }
+
+    @Test
+    public void noAreasTest() throws IOException {
+        byte[] jpeg = createJpeg(BufferedImage.TYPE_INT_RGB);
+        byte[] cleaned = CleanUpJpegUtil.cleanUpJpeg(jpeg, Collections.<Rectangle>emptyList());
+        Assertions.assertNotNull(cleaned);
+
+        BufferedImage original = readJpeg(jpeg);
+        BufferedImage result = readJpeg(cleaned);
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                Assertions.assertEquals(original.getRGB(x, y), result.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void notJpegTest() {
+        List<Rectangle> areas = Collections.singletonList(new Rectangle(0, 0, 1, 1));
+        Assertions.assertNull(CleanUpJpegUtil.cleanUpJpeg(new byte[] {1, 2, 3, 4, 5}, areas));
+    }
+
+    @Test
+    public void cmykJpegTest() {
+        // SOI and a baseline frame header of a 16x16 image with four components
+        byte[] jpeg = new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xC0, 0, 20, 8, 0, 16, 0, 16, 4,
+                1, 0x11, 0, 2, 0x11, 0, 3, 0x11, 0, 4, 0x11, 0, (byte) 0xFF, (byte) 0xD9};
+        List<Rectangle> areas = Collections.singletonList(new Rectangle(0, 0, 1, 1));
+        Assertions.assertNull(CleanUpJpegUtil.cleanUpJpeg(jpeg, areas));
+    }
+
+    @Test
+    public void cmykJpegIsNotCleanedInDctDomainTest() {
+        Assertions.assertTrue(PdfCleanUpFilter.imageSupportsDctCleanup(createDctImage(PdfName.DeviceRGB)));
+        Assertions.assertFalse(PdfCleanUpFilter.imageSupportsDctCleanup(createDctImage(PdfName.DeviceCMYK)));
+    }
+
+    private static PdfImageXObject createDctImage(PdfName colorSpace) {
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Type, PdfName.XObject);
+        stream.put(PdfName.Subtype, PdfName.Image);
+        stream.put(PdfName.Width, new PdfNumber(WIDTH));
+        stream.put(PdfName.Height, new PdfNumber(HEIGHT));
+        stream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        stream.put(PdfName.ColorSpace, colorSpace);
+        stream.put(PdfName.Filter, PdfName.DCTDecode);
+        return new PdfImageXObject(stream);
+    }
+
+    private static byte[] createJpeg(int imageType) throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, imageType);
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                image.setRGB(x, y, ((x * 3 + y) & 0xFF) << 16 | ((y * 5) & 0xFF) << 8 | ((x * y) & 0xFF));
+            }
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", baos);
+        return baos.toByteArray();
+    }
+
+    private static BufferedImage readJpeg(byte[] jpeg) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(jpeg));
+    }
+}
@@ -82,6 +82,63 @@ public class CleanUpPropertiesUnitTest extends ExtendedITextTest {
         assertNull(properties.getOverlapRatio());
     }
 
+    @Test
+    public void allContentTypesAreProcessedByDefault(){
+        CleanUpProperties properties = new CleanUpProperties();
+        assertTrue(properties.isProcessText());
+        assertTrue(properties.isProcessPaths());
+        assertTrue(properties.isProcessImages());
+        assertTrue(properties.isProcessInlineImages());
+        assertTrue(properties.isProcessAnnotations());
+    }
+
+    @Test
+    public void scannedPagesAreNotOptimizedByDefault(){
+        CleanUpProperties properties = new CleanUpProperties();
+        assertFalse(properties.isOptimizeScannedPages());
+        assertTrue(properties.setOptimizeScannedPages(true).isOptimizeScannedPages());
+    }
+
+    @Test
+    public void jpegImagesAreNotCleanedUpInDctDomainByDefault(){
+        CleanUpProperties properties = new CleanUpProperties();
+        assertFalse(properties.isCleanUpJpegImagesInDctDomain());
+        assertTrue(properties.setCleanUpJpegImagesInDctDomain(true).isCleanUpJpegImagesInDctDomain());
+    }
+
+    @Test
+    public void imageMemoryBudgetIsNotLimitedByDefault(){
+        CleanUpProperties properties = new CleanUpProperties();
+        assertEquals(Long.MAX_VALUE, properties.getImageMemoryBudget());
+        assertEquals(1024, properties.setImageMemoryBudget(1024).getImageMemoryBudget());
+    }
+
+    @Test
+    public void setNonPositiveImageMemoryBudgetThrowsException(){
+        CleanUpProperties properties = new CleanUpProperties();
+        Exception e = assertThrows(IllegalArgumentException.class, () -> properties.setImageMemoryBudget(0));
+        assertEquals(CleanupExceptionMessageConstant.IMAGE_MEMORY_BUDGET_SHOULD_BE_POSITIVE, e.getMessage());
+    }
+
+    @Test
+    public void setNegativeFilteredImagesCacheBudgetThrowsException(){
+        CleanUpProperties properties = new CleanUpProperties();
+        assertEquals(0, properties.setFilteredImagesCacheBudget(0).getFilteredImagesCacheBudget());
+        Exception e = assertThrows(IllegalArgumentException.class, () -> properties.setFilteredImagesCacheBudget(-1));
+        assertEquals(CleanupExceptionMessageConstant.FILTERED_IMAGES_CACHE_BUDGET_SHOULD_NOT_BE_NEGATIVE,
+                e.getMessage());
+    }
+
+    @Test
+    public void setNonPositivePersistentImagesCacheMaxSizeThrowsException(){
+        CleanUpProperties properties = new CleanUpProperties();
+        assertEquals(1, properties.setPersistentImagesCacheMaxSize(1).getPersistentImagesCacheMaxSize());
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> properties.setPersistentImagesCacheMaxSize(0));
+        assertEquals(CleanupExceptionMessageConstant.PERSISTENT_IMAGES_CACHE_MAX_SIZE_SHOULD_BE_POSITIVE,
+                e.getMessage());
+    }
+
     @Test
     public void setGetPathOffsetApproximationPropertiesTest(){
         PathOffsetApproximationProperties pathOffsetApproximationProperties = new PathOffsetApproximationProperties()
@@ -0,0 +1,184 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfBoolean;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.pdfcleanup.util.CleanUpStreamEncodeUtil;
+import com.itextpdf.test.ExtendedITextTest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+@Tag("UnitTest")
+public class CleanUpStreamEncodeUtilTest extends ExtendedITextTest {
+
+    @Test
+    public void flateWithPngPredictorsTest() {
+        byte[] data = createSamples(3 * 20 * 10);
+        for (int predictor = 10; predictor <= 15; ++predictor) {
+            assertRoundTrip(data, PdfName.FlateDecode, createPredictorParams(predictor, 3, 8, 20));
+        }
+    }
+
+    @Test
+    public void flateWithTiffPredictorTest() {
+        assertRoundTrip(createSamples(4 * 7 * 5), PdfName.FlateDecode, createPredictorParams(2, 4, 8, 7));
+    }
+
+    @Test
+    public void lzwTest() {
+        // long enough to overflow the code table several times
+        assertRoundTrip(createSamples(100000), PdfName.LZWDecode, null);
+        assertRoundTrip(new byte[] {5}, PdfName.LZWDecode, null);
+        assertRoundTrip(createSamples(1 * 30 * 30), PdfName.LZWDecode, createPredictorParams(15, 1, 8, 30));
+    }
+
+    @Test
+    public void runLengthTest() {
+        byte[] data = new byte[300];
+        Arrays.fill(data, 0, 200, (byte) 7);
+        System.arraycopy(createSamples(100), 0, data, 200, 100);
+        assertRoundTrip(data, PdfName.RunLengthDecode, null);
+    }
+
+    @Test
+    public void asciiFiltersChainTest() {
+        byte[] data = createSamples(1001);
+        Arrays.fill(data, 100, 200, (byte) 0);
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Filter, new PdfArray(Arrays.<PdfObject>asList(PdfName.ASCII85Decode,
+                PdfName.ASCIIHexDecode, PdfName.FlateDecode)));
+        assertRoundTrip(data, stream);
+    }
+
+    @Test
+    public void unsupportedFilterTest() {
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Filter, PdfName.CCITTFaxDecode);
+        Assertions.assertFalse(CleanUpStreamEncodeUtil.isFilterChainSupported(stream));
+        Assertions.assertNull(CleanUpStreamEncodeUtil.encode(new byte[10], stream));
+
+        PdfDictionary earlyChange = new PdfDictionary();
+        earlyChange.put(PdfName.EarlyChange, new PdfNumber(0));
+        stream.put(PdfName.Filter, PdfName.LZWDecode);
+        stream.put(PdfName.DecodeParms, earlyChange);
+        Assertions.assertFalse(CleanUpStreamEncodeUtil.isFilterChainSupported(stream));
+    }
+
+    @Test
+    public void ccittGroup4Test() {
+        assertRoundTrip(createBilevelSamples(40, 30), createCcittImageStream(40, 30, -1, false));
+    }
+
+    @Test
+    public void ccittGroup3Test() {
+        PdfStream stream = createCcittImageStream(2600, 3, 0, true);
+        stream.getAsDictionary(PdfName.DecodeParms).put(PdfName.EndOfLine, PdfBoolean.TRUE);
+        stream.getAsDictionary(PdfName.DecodeParms).put(PdfName.EncodedByteAlign, PdfBoolean.TRUE);
+        assertRoundTrip(createBilevelSamples(2600, 3), stream);
+        PdfStream mixedStream = createCcittImageStream(64, 20, 4, false);
+        mixedStream.getAsDictionary(PdfName.DecodeParms).put(PdfName.EndOfLine, PdfBoolean.TRUE);
+        assertRoundTrip(createBilevelSamples(64, 20), mixedStream);
+    }
+
+    @Test
+    public void unsupportedCcittParamsTest() {
+        PdfStream stream = createCcittImageStream(8, 8, -1, false);
+        stream.getAsDictionary(PdfName.DecodeParms).put(PdfName.EndOfLine, PdfBoolean.TRUE);
+        Assertions.assertFalse(CleanUpStreamEncodeUtil.isFilterChainSupported(stream));
+    }
+
+    private static void assertRoundTrip(byte[] data, PdfName filter, PdfDictionary decodeParams) {
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Filter, filter);
+        if (decodeParams != null) {
+            stream.put(PdfName.DecodeParms, decodeParams);
+        }
+        assertRoundTrip(data, stream);
+    }
+
+    private static void assertRoundTrip(byte[] data, PdfStream stream) {
+        Assertions.assertTrue(CleanUpStreamEncodeUtil.isFilterChainSupported(stream));
+        byte[] encoded = CleanUpStreamEncodeUtil.encode(data, stream);
+        Assertions.assertArrayEquals(data, PdfReader.decodeBytes(encoded, stream));
+    }
+
+    private static PdfDictionary createPredictorParams(int predictor, int colors, int bpc, int columns) {
+        PdfDictionary decodeParams = new PdfDictionary();
+        decodeParams.put(PdfName.Predictor, new PdfNumber(predictor));
+        decodeParams.put(PdfName.Colors, new PdfNumber(colors));
+        decodeParams.put(PdfName.BitsPerComponent, new PdfNumber(bpc));
+        decodeParams.put(PdfName.Columns, new PdfNumber(columns));
+        return decodeParams;
+    }
+
+    private static PdfStream createCcittImageStream(int width, int height, int k, boolean blackIs1) {
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Width, new PdfNumber(width));
+        stream.put(PdfName.Height, new PdfNumber(height));
+        stream.put(PdfName.BitsPerComponent, new PdfNumber(1));
+        stream.put(PdfName.Filter, PdfName.CCITTFaxDecode);
+        PdfDictionary decodeParams = new PdfDictionary();
+        decodeParams.put(PdfName.K, new PdfNumber(k));
+        decodeParams.put(PdfName.Columns, new PdfNumber(width));
+        decodeParams.put(PdfName.Rows, new PdfNumber(height));
+        decodeParams.put(PdfName.BlackIs1, PdfBoolean.valueOf(blackIs1));
+        stream.put(PdfName.DecodeParms, decodeParams);
+        return stream;
+    }
+
+    private static byte[] createBilevelSamples(int width, int height) {
+        // width is a multiple of 8, so that there are no padding bits
+        byte[] samples = new byte[width / 8 * height];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                // text-like pattern: short black strokes on white, shifted from row to row
+                if ((x + y / 3) % 11 < 2 || (x * 7 + y) % 97 < 5) {
+                    samples[y * width / 8 + x / 8] |= (byte) (0x80 >> (x % 8));
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static byte[] createSamples(int length) {
+        byte[] samples = new byte[length];
+        int value = 17;
+        for (int i = 0; i < length; ++i) {
+            // mix of smooth gradients and noise, so that all the predictors are exercised
+            value = (value * 31 + i) % 251;
+            samples[i] = (byte) (i % 3 == 0 ? i / 7 : value);
+        }
+        return samples;
+    }
+}
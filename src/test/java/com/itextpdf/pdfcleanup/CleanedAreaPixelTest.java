@@ -0,0 +1,159 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.test.ExtendedITextTest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+@Tag("UnitTest")
+public class CleanedAreaPixelTest extends ExtendedITextTest {
+
+    @Test
+    public void deviceGrayIsFilledWithZeroTest() {
+        PdfStream imageStream = createImageStream(PdfName.DeviceGray);
+        byte[] expected = new byte[] {(byte) 0xFF, 0, 0, (byte) 0xFF};
+        Assertions.assertArrayEquals(expected, fill(imageStream, 8, 4, 1, 3, (byte) 0xFF));
+    }
+
+    @Test
+    public void singleComponentIccBasedIsFilledWithZeroTest() {
+        PdfStream iccProfile = new PdfStream();
+        iccProfile.put(PdfName.N, new PdfNumber(1));
+        PdfStream imageStream = createImageStream(new PdfArray(Arrays.<PdfObject>asList(PdfName.ICCBased,
+                iccProfile)));
+        byte[] expected = new byte[] {(byte) 0xFF, 0, 0, (byte) 0xFF};
+        Assertions.assertArrayEquals(expected, fill(imageStream, 8, 4, 1, 3, (byte) 0xFF));
+    }
+
+    @Test
+    public void deviceRgbIsFilledWithWhiteTest() {
+        PdfStream imageStream = createImageStream(PdfName.DeviceRGB);
+        byte[] expected = new byte[] {0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0, 0};
+        Assertions.assertArrayEquals(expected, fill(imageStream, 8, 9, 1, 2));
+    }
+
+    @Test
+    public void deviceCmykIsFilledWithWhiteTest() {
+        PdfStream imageStream = createImageStream(PdfName.DeviceCMYK);
+        byte[] expected = new byte[] {0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        Assertions.assertArrayEquals(expected, fill(imageStream, 8, 8, 0, 1));
+    }
+
+    @Test
+    public void invertedDecodeArrayTest() {
+        PdfStream imageStream = createImageStream(PdfName.DeviceRGB);
+        imageStream.put(PdfName.Decode, new PdfArray(new float[] {0, 1, 1, 0, 0, 1}));
+        byte[] expected = new byte[] {(byte) 0xFF, 0, (byte) 0xFF};
+        Assertions.assertArrayEquals(expected, fill(imageStream, 8, 3, 0, 1));
+    }
+
+    @Test
+    public void lowBitDepthRgbTest() {
+        PdfStream imageStream = createImageStream(PdfName.DeviceRGB);
+        // the second and the third pixels of 2 bits per component samples
+        byte[] expected = new byte[] {0x03, (byte) 0xFF, (byte) 0xC0};
+        Assertions.assertArrayEquals(expected, fill(imageStream, 2, 3, 1, 3));
+    }
+
+    @Test
+    public void indexedWhitePaletteEntryTest() {
+        PdfStream imageStream = createImageStream(createIndexed(new byte[] {0, 0, 0, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, 0x10, 0x20, 0x30}));
+        Assertions.assertTrue(CleanedAreaPixel.isSupported(imageStream));
+        Assertions.assertArrayEquals(new byte[] {2, 1, 1, 2}, fill(imageStream, 8, 4, 1, 3, (byte) 2));
+    }
+
+    @Test
+    public void indexedGrayBaseWhitePaletteEntryTest() {
+        PdfStream imageStream = createImageStream(createIndexed(PdfName.DeviceGray, 1,
+                new byte[] {0, 0x40, (byte) 0xFF}));
+        Assertions.assertTrue(CleanedAreaPixel.isSupported(imageStream));
+        Assertions.assertArrayEquals(new byte[] {0, 2, 2, 0}, fill(imageStream, 8, 4, 1, 3));
+    }
+
+    @Test
+    public void indexedCmykBaseWhitePaletteEntryTest() {
+        PdfStream imageStream = createImageStream(createIndexed(PdfName.DeviceCMYK, 4,
+                new byte[] {0, 0, 0, (byte) 0xFF, 0, 0, 0, 0}));
+        Assertions.assertTrue(CleanedAreaPixel.isSupported(imageStream));
+        Assertions.assertArrayEquals(new byte[] {0, 1, 1, 0}, fill(imageStream, 8, 4, 1, 3));
+    }
+
+    @Test
+    public void indexedWithoutWhitePaletteEntryTest() {
+        PdfStream imageStream = createImageStream(createIndexed(new byte[] {0, 0, 0, 0x10, 0x20, 0x30, 0, 0, 0}));
+        Assertions.assertFalse(CleanedAreaPixel.isSupported(imageStream));
+        Assertions.assertNull(CleanedAreaPixel.create(imageStream, 8));
+    }
+
+    @Test
+    public void indexedWithDecodeArrayTest() {
+        PdfStream imageStream = createImageStream(createIndexed(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                0, 0, 0, 0, 0, 0}));
+        imageStream.put(PdfName.Decode, new PdfArray(new float[] {2, 0}));
+        Assertions.assertFalse(CleanedAreaPixel.isSupported(imageStream));
+    }
+
+    private static byte[] fill(PdfStream imageStream, int bpc, int length, long startPixel, long endPixel) {
+        return fill(imageStream, bpc, length, startPixel, endPixel, (byte) 0);
+    }
+
+    private static byte[] fill(PdfStream imageStream, int bpc, int length, long startPixel, long endPixel,
+            byte initialValue) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, initialValue);
+        CleanedAreaPixel.create(imageStream, bpc).fill(bytes, 0, startPixel, endPixel);
+        return bytes;
+    }
+
+    private static PdfStream createImageStream(PdfObject colorSpace) {
+        PdfStream imageStream = new PdfStream();
+        imageStream.put(PdfName.Subtype, PdfName.Image);
+        imageStream.put(PdfName.ColorSpace, colorSpace);
+        return imageStream;
+    }
+
+    private static PdfArray createIndexed(byte[] palette) {
+        return createIndexed(PdfName.DeviceRGB, 3, palette);
+    }
+
+    private static PdfArray createIndexed(PdfName baseColorSpace, int baseComponentsCount, byte[] palette) {
+        PdfArray indexed = new PdfArray();
+        indexed.add(PdfName.Indexed);
+        indexed.add(baseColorSpace);
+        indexed.add(new PdfNumber(palette.length / baseComponentsCount - 1));
+        indexed.add(new PdfString(palette));
+        return indexed;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.pdfcleanup.util.CleanUpTestDocuments;
+import com.itextpdf.test.ExtendedITextTest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("IntegrationTest")
+public class ContentTypeFilteringTest extends ExtendedITextTest {
+
+    private static final byte[] IMAGE_SAMPLES = new byte[] {1, 2, 3, 4};
+
+    @Test
+    public void onlyTextIsProcessedTest() throws IOException {
+        byte[] output = cleanUp(new CleanUpProperties().setProcessPaths(false).setProcessImages(false));
+
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output)) {
+            Assertions.assertFalse(CleanUpTestDocuments.getText(pdfDocument, 1).contains("Secret"));
+            byte[] samples = CleanUpTestDocuments.getSingleXObject(pdfDocument.getPage(1)).getBytes();
+            Assertions.assertArrayEquals(IMAGE_SAMPLES, samples);
+            // the rectangle is written as it was, it isn't replaced by the path remaining after the clean up
+            String content = new String(pdfDocument.getPage(1).getContentBytes(), StandardCharsets.ISO_8859_1);
+            Assertions.assertTrue(content.contains("0 0 m\n"));
+        }
+    }
+
+    @Test
+    public void onlyImagesAreProcessedTest() throws IOException {
+        byte[] output = cleanUp(new CleanUpProperties().setProcessText(false).setProcessPaths(false));
+
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output)) {
+            Assertions.assertTrue(CleanUpTestDocuments.getText(pdfDocument, 1).contains("Secret"));
+            byte[] samples = CleanUpTestDocuments.getSingleXObject(pdfDocument.getPage(1)).getBytes();
+            Assertions.assertFalse(Arrays.equals(IMAGE_SAMPLES, samples));
+        }
+    }
+
+    private static byte[] cleanUp(CleanUpProperties properties) throws IOException {
+        byte[] input = CleanUpTestDocuments.createDocument(pdfDocument -> {
+            PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+            canvas.rectangle(0, 0, 100, 100).fill();
+            canvas.addXObjectWithTransformationMatrix(CleanUpTestDocuments.createGrayImage(2, 2, IMAGE_SAMPLES),
+                    100, 0, 0, 100, 0, 0);
+            CleanUpTestDocuments.showText(canvas, "Secret", 10, 50);
+        });
+        return CleanUpTestDocuments.cleanUp(input, Collections.singletonList(
+                new PdfCleanUpLocation(1, new Rectangle(0, 0, 50, 100), null)), properties);
+    }
+}
@@ -27,13 +27,17 @@ import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfNumber;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
 import com.itextpdf.pdfcleanup.util.CleanUpImagesCompareTool;
 import com.itextpdf.test.ExtendedITextTest;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -43,6 +47,110 @@ import org.junit.jupiter.api.Test;
 @Tag("IntegrationTest")
 public class FilteredImagesCacheTest extends ExtendedITextTest {
 
+    @Test
+    public void identicalImagesIdentifiedByContentTest() {
+        try (PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            document.addNewPage();
+            PdfImageXObject image = createGrayImage(document, new byte[] {1, 2, 3, 4});
+            PdfImageXObject imageCopy = createGrayImage(document, new byte[] {1, 2, 3, 4});
+            PdfImageXObject differentImage = createGrayImage(document, new byte[] {1, 2, 3, 5});
+            PdfImageXObject filteredImage = createGrayImage(document, new byte[] {0, 2, 3, 4});
+            List<Rectangle> areas = Collections.singletonList(new Rectangle(0, 0.5f, 0.5f, 0.5f));
+
+            FilteredImagesCache cache = new FilteredImagesCache();
+            cache.put(FilteredImagesCache.createFilteredImageKey(image, areas, document, true), filteredImage);
+
+            Assertions.assertSame(filteredImage,
+                    cache.get(FilteredImagesCache.createFilteredImageKey(imageCopy, areas, document, true)));
+            Assertions.assertNull(
+                    cache.get(FilteredImagesCache.createFilteredImageKey(differentImage, areas, document, true)));
+            Assertions.assertNull(
+                    cache.get(FilteredImagesCache.createFilteredImageKey(imageCopy, areas, document, false)));
+        }
+    }
+
+    @Test
+    public void differentlySplitAreasShareFilteredImageTest() {
+        try (PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            document.addNewPage();
+            PdfImageXObject image = createGrayImage(document, new byte[] {1, 2, 3, 4});
+            PdfImageXObject filteredImage = createGrayImage(document, new byte[] {0, 0, 3, 4});
+
+            FilteredImagesCache cache = new FilteredImagesCache();
+            cache.put(FilteredImagesCache.createFilteredImageKey(image, Collections.singletonList(
+                    new Rectangle(0, 0.5f, 1, 0.5f)), document), filteredImage);
+
+            List<Rectangle> splitAreas = new ArrayList<>();
+            splitAreas.add(new Rectangle(0, 0.5f, 0.5f, 0.5f));
+            splitAreas.add(new Rectangle(0.4f, 0.6f, 0.6f, 0.4f));
+            Assertions.assertSame(filteredImage,
+                    cache.get(FilteredImagesCache.createFilteredImageKey(image, splitAreas, document)));
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedImageIsEvictedTest() {
+        try (PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            document.addNewPage();
+            PdfImageXObject image1 = createGrayImage(document, new byte[] {1, 2, 3, 4});
+            PdfImageXObject image2 = createGrayImage(document, new byte[] {5, 6, 7, 8});
+            PdfImageXObject image3 = createGrayImage(document, new byte[] {9, 10, 11, 12});
+            List<Rectangle> areas = Collections.singletonList(new Rectangle(0, 0.5f, 0.5f, 0.5f));
+
+            // every filtered image holds 4 bytes
+            FilteredImagesCache cache = new FilteredImagesCache(8, false);
+            cache.put(FilteredImagesCache.createFilteredImageKey(image1, areas, document),
+                    createGrayImage(document, new byte[] {0, 2, 3, 4}));
+            cache.put(FilteredImagesCache.createFilteredImageKey(image2, areas, document),
+                    createGrayImage(document, new byte[] {0, 6, 7, 8}));
+            Assertions.assertNotNull(cache.get(FilteredImagesCache.createFilteredImageKey(image1, areas, document)));
+            cache.put(FilteredImagesCache.createFilteredImageKey(image3, areas, document),
+                    createGrayImage(document, new byte[] {0, 10, 11, 12}));
+
+            Assertions.assertNotNull(cache.get(FilteredImagesCache.createFilteredImageKey(image1, areas, document)));
+            Assertions.assertNull(cache.get(FilteredImagesCache.createFilteredImageKey(image2, areas, document)));
+            Assertions.assertNotNull(cache.get(FilteredImagesCache.createFilteredImageKey(image3, areas, document)));
+
+            FilteredImagesCacheStatistics statistics = cache.getStatistics();
+            Assertions.assertEquals(3, statistics.getHitsCount());
+            Assertions.assertEquals(1, statistics.getMissesCount());
+            Assertions.assertEquals(1, statistics.getEvictionsCount());
+            Assertions.assertEquals(2, statistics.getCachedImagesCount());
+            Assertions.assertEquals(8, statistics.getCachedBytes());
+            Assertions.assertEquals(4, statistics.getEvictedBytes());
+        }
+    }
+
+    @Test
+    public void imageExceedingBudgetIsFlushedWhenReleasedTest() {
+        try (PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            document.addNewPage();
+            PdfImageXObject image = createGrayImage(document, new byte[] {1, 2, 3, 4});
+            List<Rectangle> areas = Collections.singletonList(new Rectangle(0, 0.5f, 0.5f, 0.5f));
+            PdfImageXObject filteredImage = createGrayImage(document, new byte[] {0, 2, 3, 4});
+
+            FilteredImagesCache cache = new FilteredImagesCache(2, true);
+            cache.put(FilteredImagesCache.createFilteredImageKey(image, areas, document), filteredImage);
+            Assertions.assertNull(cache.get(FilteredImagesCache.createFilteredImageKey(image, areas, document)));
+            Assertions.assertFalse(filteredImage.getPdfObject().isFlushed());
+
+            cache.flushReleasedImages();
+            Assertions.assertTrue(filteredImage.getPdfObject().isFlushed());
+        }
+    }
+
+    private static PdfImageXObject createGrayImage(PdfDocument document, byte[] samples) {
+        PdfStream imageStream = new PdfStream(samples);
+        imageStream.put(PdfName.Type, PdfName.XObject);
+        imageStream.put(PdfName.Subtype, PdfName.Image);
+        imageStream.put(PdfName.Width, new PdfNumber(2));
+        imageStream.put(PdfName.Height, new PdfNumber(2));
+        imageStream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        imageStream.put(PdfName.ColorSpace, PdfName.DeviceGray);
+        imageStream.makeIndirect(document);
+        return new PdfImageXObject(imageStream);
+    }
+
     private static final String inputPath = "./src/test/resources/com/itextpdf/pdfcleanup/FilteredImagesCacheTest/";
     private static final String outputPath = "./target/test/com/itextpdf/pdfcleanup/FilteredImagesCacheTest/";
 
@@ -0,0 +1,175 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.pdfcleanup.util.CleanUpStreamEncodeUtil;
+import com.itextpdf.test.ExtendedITextTest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+@Tag("UnitTest")
+public class FlateImageRowCleanerTest extends ExtendedITextTest {
+
+    private static final int WIDTH = 20;
+    private static final int HEIGHT = 10;
+    private static final int COLORS = 3;
+
+    @Test
+    public void pngPredictorsTest() throws IOException {
+        for (int predictor = 10; predictor <= 15; ++predictor) {
+            assertRowCleanUp(createPredictorParams(predictor));
+        }
+    }
+
+    @Test
+    public void tiffPredictorTest() throws IOException {
+        assertRowCleanUp(createPredictorParams(2));
+    }
+
+    @Test
+    public void noPredictorTest() throws IOException {
+        assertRowCleanUp(null);
+    }
+
+    @Test
+    public void supportedFiltersTest() {
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Filter, new PdfArray(PdfName.FlateDecode));
+        Assertions.assertTrue(FlateImageRowCleaner.isSupported(stream));
+
+        stream.put(PdfName.Filter, new PdfArray(Arrays.<PdfObject>asList(PdfName.ASCIIHexDecode,
+                PdfName.FlateDecode)));
+        Assertions.assertFalse(FlateImageRowCleaner.isSupported(stream));
+
+        stream.put(PdfName.Filter, PdfName.FlateDecode);
+        PdfDictionary decodeParams = createPredictorParams(2);
+        decodeParams.put(PdfName.BitsPerComponent, new PdfNumber(16));
+        stream.put(PdfName.DecodeParms, decodeParams);
+        Assertions.assertFalse(FlateImageRowCleaner.isSupported(stream));
+    }
+
+    @Test
+    public void truncatedCleanedRowIsDroppedTest() throws IOException {
+        byte[] samples = createSamples();
+        int rowLength = WIDTH * COLORS;
+        PdfStream stream = createTruncatedImageStream(samples, rowLength);
+
+        // the last row of the image
+        ImagePixelAreas areas = ImagePixelAreas.create(Collections.singletonList(
+                new Rectangle(0, 0, 1, 0.1f)), WIDTH, HEIGHT);
+        byte[] encoded = FlateImageRowCleaner.cleanUp(stream, rowLength, HEIGHT,
+                CleanedAreaPixel.create(stream, 8), areas);
+
+        byte[] expected = Arrays.copyOf(samples, (HEIGHT - 1) * rowLength);
+        Assertions.assertArrayEquals(expected, PdfReader.decodeBytes(encoded, stream));
+    }
+
+    @Test
+    public void truncatedUncleanedRowIsKeptTest() throws IOException {
+        byte[] samples = createSamples();
+        int rowLength = WIDTH * COLORS;
+        PdfStream stream = createTruncatedImageStream(samples, rowLength);
+
+        // the first row of the image
+        ImagePixelAreas areas = ImagePixelAreas.create(Collections.singletonList(
+                new Rectangle(0, 0.9f, 1, 0.1f)), WIDTH, HEIGHT);
+        byte[] encoded = FlateImageRowCleaner.cleanUp(stream, rowLength, HEIGHT,
+                CleanedAreaPixel.create(stream, 8), areas);
+
+        byte[] expected = Arrays.copyOf(samples, (HEIGHT - 1) * rowLength + 10);
+        Arrays.fill(expected, 0, rowLength, (byte) 0xFF);
+        Assertions.assertArrayEquals(expected, PdfReader.decodeBytes(encoded, stream));
+    }
+
+    private static PdfStream createTruncatedImageStream(byte[] samples, int rowLength) {
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Filter, PdfName.FlateDecode);
+        stream.setData(CleanUpStreamEncodeUtil.encode(Arrays.copyOf(samples, (HEIGHT - 1) * rowLength + 10),
+                stream));
+        stream.put(PdfName.Filter, PdfName.FlateDecode);
+        stream.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+        return stream;
+    }
+
+    private static void assertRowCleanUp(PdfDictionary decodeParams) throws IOException {
+        byte[] samples = createSamples();
+        PdfStream stream = new PdfStream();
+        stream.put(PdfName.Filter, PdfName.FlateDecode);
+        if (decodeParams != null) {
+            stream.put(PdfName.DecodeParms, decodeParams);
+        }
+        stream.setData(CleanUpStreamEncodeUtil.encode(samples, stream));
+        stream.put(PdfName.Filter, PdfName.FlateDecode);
+        if (decodeParams != null) {
+            stream.put(PdfName.DecodeParms, decodeParams);
+        }
+        Assertions.assertTrue(FlateImageRowCleaner.isSupported(stream));
+        stream.put(PdfName.ColorSpace, PdfName.DeviceRGB);
+
+        // rows 2 .. 5 and columns 5 .. 10 of the image
+        ImagePixelAreas areas = ImagePixelAreas.create(Collections.singletonList(
+                new Rectangle(0.25f, 0.4f, 0.25f, 0.4f)), WIDTH, HEIGHT);
+        byte[] encoded = FlateImageRowCleaner.cleanUp(stream, WIDTH * COLORS, HEIGHT,
+                CleanedAreaPixel.create(stream, 8), areas);
+
+        byte[] expected = samples.clone();
+        for (int row = 2; row < 6; ++row) {
+            // the cleaned pixels are white
+            Arrays.fill(expected, (row * WIDTH + 5) * COLORS, (row * WIDTH + 10) * COLORS, (byte) 0xFF);
+        }
+        Assertions.assertArrayEquals(expected, PdfReader.decodeBytes(encoded, stream));
+    }
+
+    private static PdfDictionary createPredictorParams(int predictor) {
+        PdfDictionary decodeParams = new PdfDictionary();
+        decodeParams.put(PdfName.Predictor, new PdfNumber(predictor));
+        decodeParams.put(PdfName.Colors, new PdfNumber(COLORS));
+        decodeParams.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        decodeParams.put(PdfName.Columns, new PdfNumber(WIDTH));
+        return decodeParams;
+    }
+
+    private static byte[] createSamples() {
+        byte[] samples = new byte[WIDTH * HEIGHT * COLORS];
+        int value = 17;
+        for (int i = 0; i < samples.length; ++i) {
+            value = (value * 31 + i) % 251;
+            samples[i] = (byte) (i % 3 == 0 ? i / 7 : value);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.test.ExtendedITextTest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@Tag("UnitTest")
+public class ImagePixelAreasTest extends ExtendedITextTest {
+
+    @Test
+    public void overlappingAreasAreMergedTest() {
+        // 10x10 image: rows are counted from the top, so y = 0.5 .. 1 in image space is rows 0 .. 5
+        ImagePixelAreas areas = ImagePixelAreas.create(Arrays.asList(
+                new Rectangle(0, 0.5f, 0.4f, 0.5f),
+                new Rectangle(0.3f, 0.7f, 0.3f, 0.3f),
+                new Rectangle(0.8f, 0.5f, 0.2f, 0.5f)), 10, 10);
+
+        Assertions.assertEquals(2, areas.getBandsCount());
+        Assertions.assertEquals(0, areas.getBandStart(0));
+        Assertions.assertEquals(3, areas.getBandEnd(0));
+        Assertions.assertArrayEquals(new int[] {0, 6, 8, 10}, areas.getBandIntervals(0));
+        Assertions.assertEquals(3, areas.getBandStart(1));
+        Assertions.assertEquals(5, areas.getBandEnd(1));
+        Assertions.assertArrayEquals(new int[] {0, 4, 8, 10}, areas.getBandIntervals(1));
+    }
+
+    @Test
+    public void differentlySplitAreasAreEqualTest() {
+        ImagePixelAreas whole = ImagePixelAreas.create(Collections.singletonList(
+                new Rectangle(0.2f, 0.2f, 0.6f, 0.6f)), 10, 10);
+        ImagePixelAreas split = ImagePixelAreas.create(Arrays.asList(
+                new Rectangle(0.2f, 0.2f, 0.6f, 0.3f),
+                new Rectangle(0.2f, 0.5f, 0.3f, 0.3f),
+                new Rectangle(0.5f, 0.5f, 0.3f, 0.3f)), 10, 10);
+
+        Assertions.assertEquals(1, whole.getBandsCount());
+        Assertions.assertEquals(whole, split);
+        Assertions.assertEquals(whole.hashCode(), split.hashCode());
+    }
+
+    @Test
+    public void areasOutsideOfImageTest() {
+        ImagePixelAreas areas = ImagePixelAreas.create(Collections.singletonList(
+                new Rectangle(0.01f, 0.01f, 0.02f, 0.02f)), 10, 10);
+        Assertions.assertTrue(areas.isEmpty());
+    }
+}
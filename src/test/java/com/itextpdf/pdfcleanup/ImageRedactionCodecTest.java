@@ -0,0 +1,118 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfBoolean;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.itextpdf.pdfcleanup.util.CleanUpTestDocuments;
+import com.itextpdf.test.ExtendedITextTest;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("IntegrationTest")
+public class ImageRedactionCodecTest extends ExtendedITextTest {
+
+    private static final PdfName CLEANED_BY_CODEC = new PdfName("CleanedByCodec");
+
+    @Test
+    public void registeredCodecCleansImageTest() throws IOException {
+        TestCodec codec = new TestCodec(true);
+        byte[] output = cleanUpImage(new CleanUpProperties().addImageRedactionCodec(codec));
+
+        Assertions.assertEquals(1, codec.cleanedImagesCount);
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output)) {
+            PdfStream cleanedImage = CleanUpTestDocuments.getSingleXObject(pdfDocument.getPage(1));
+            Assertions.assertEquals(Boolean.TRUE, cleanedImage.getAsBool(CLEANED_BY_CODEC));
+            Assertions.assertArrayEquals(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF},
+                    cleanedImage.getBytes());
+        }
+    }
+
+    @Test
+    public void builtInProcessingIsUsedIfCodecFailsTest() throws IOException {
+        TestCodec codec = new TestCodec(false);
+        byte[] output = cleanUpImage(new CleanUpProperties().addImageRedactionCodec(codec));
+
+        Assertions.assertEquals(1, codec.cleanedImagesCount);
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output)) {
+            PdfStream cleanedImage = CleanUpTestDocuments.getSingleXObject(pdfDocument.getPage(1));
+            Assertions.assertNull(cleanedImage.get(CLEANED_BY_CODEC));
+            Assertions.assertArrayEquals(new byte[] {0, 2, 0, 4}, cleanedImage.getBytes());
+        }
+    }
+
+    @Test
+    public void codecsAreConsultedInRegistrationOrderTest() {
+        TestCodec first = new TestCodec(true);
+        TestCodec second = new TestCodec(true);
+        CleanUpProperties properties = new CleanUpProperties().addImageRedactionCodec(first)
+                .addImageRedactionCodec(second);
+
+        Assertions.assertEquals(Arrays.<IImageRedactionCodec>asList(first, second),
+                properties.getImageRedactionCodecs());
+    }
+
+    private static byte[] cleanUpImage(CleanUpProperties properties) throws IOException {
+        PdfImageXObject image = CleanUpTestDocuments.createGrayImage(2, 2, new byte[] {1, 2, 3, 4});
+        byte[] input = CleanUpTestDocuments.createDocument(pdfDocument -> new PdfCanvas(pdfDocument.addNewPage())
+                .addXObjectWithTransformationMatrix(image, 100, 0, 0, 100, 0, 0));
+        return CleanUpTestDocuments.cleanUp(input, Collections.singletonList(
+                new PdfCleanUpLocation(1, new Rectangle(0, 0, 50, 100), null)), properties);
+    }
+
+    private static final class TestCodec implements IImageRedactionCodec {
+        private final boolean processImages;
+        private int cleanedImagesCount;
+
+        TestCodec(boolean processImages) {
+            this.processImages = processImages;
+        }
+
+        @Override
+        public boolean isSupported(PdfImageXObject image) {
+            return PdfName.DeviceGray.equals(image.getPdfObject().getAsName(PdfName.ColorSpace));
+        }
+
+        @Override
+        public PdfStream cleanUp(PdfImageXObject image, List<Rectangle> areasToBeCleaned, PdfDocument document) {
+            ++cleanedImagesCount;
+            if (!processImages) {
+                return null;
+            }
+            PdfStream cleanedImage = (PdfStream) image.getPdfObject().clone();
+            cleanedImage.setData(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+            cleanedImage.put(CLEANED_BY_CODEC, PdfBoolean.TRUE);
+            return cleanedImage;
+        }
+    }
+}
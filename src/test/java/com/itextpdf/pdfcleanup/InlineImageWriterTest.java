@@ -0,0 +1,122 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfVersion;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.test.ExtendedITextTest;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("UnitTest")
+public class InlineImageWriterTest extends ExtendedITextTest {
+
+    @Test
+    public void inlineImageIsWrittenWithAbbreviationsTest() {
+        try (PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            document.addNewPage();
+            PdfStream inlineImage = createInlineImage(PdfName.DeviceGray);
+            inlineImage.put(PdfName.Filter, new PdfArray(PdfName.ASCIIHexDecode));
+            PdfCanvas canvas = new PdfCanvas(new PdfStream(), new PdfResources(), document);
+
+            InlineImageWriter.writeInlineImage(canvas, inlineImage, new PdfResources(),
+                    new float[] {10, 0, 0, 20, 30, 40});
+
+            String content = new String(canvas.getContentStream().getBytes(), StandardCharsets.ISO_8859_1);
+            Assertions.assertTrue(content.contains("10 0 0 20 30 40 cm"));
+            Assertions.assertTrue(content.contains("/W 2"));
+            Assertions.assertTrue(content.contains("/H 1"));
+            Assertions.assertTrue(content.contains("/BPC 8"));
+            Assertions.assertTrue(content.contains("/CS /G"));
+            Assertions.assertTrue(content.contains("/F [/AHx]"));
+            Assertions.assertTrue(content.contains("ID 0a0b>\nEI"));
+        }
+    }
+
+    @Test
+    public void namedColorSpaceIsCopiedToResourcesTest() {
+        try (PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()))) {
+            document.addNewPage();
+            PdfArray calGray = new PdfArray(PdfName.CalGray);
+            PdfDictionary calGrayParams = new PdfDictionary();
+            calGrayParams.put(PdfName.WhitePoint, new PdfArray(new float[] {1, 1, 1}));
+            calGray.add(calGrayParams);
+            PdfResources originalResources = new PdfResources();
+            originalResources.addColorSpace(calGray);
+            PdfName originalName = originalResources.getResource(PdfName.ColorSpace).keySet().iterator().next();
+            PdfCanvas canvas = new PdfCanvas(new PdfStream(), new PdfResources(), document);
+
+            InlineImageWriter.writeInlineImage(canvas, createInlineImage(originalName), originalResources,
+                    new float[] {1, 0, 0, 1, 0, 0});
+
+            PdfDictionary colorSpaces = canvas.getResources().getResource(PdfName.ColorSpace);
+            Assertions.assertNotNull(colorSpaces);
+            Assertions.assertEquals(1, colorSpaces.size());
+            PdfName name = colorSpaces.keySet().iterator().next();
+            Assertions.assertEquals(PdfName.CalGray, colorSpaces.getAsArray(name).getAsName(0));
+            String content = new String(canvas.getContentStream().getBytes(), StandardCharsets.ISO_8859_1);
+            Assertions.assertTrue(content.contains("/CS " + name));
+        }
+    }
+
+    @Test
+    public void lengthIsOverwrittenForPdf20Test() {
+        WriterProperties writerProperties = new WriterProperties().setPdfVersion(PdfVersion.PDF_2_0);
+        try (PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream(), writerProperties))) {
+            document.addNewPage();
+            PdfStream inlineImage = createInlineImage(PdfName.DeviceGray);
+            // the length of the original image data
+            inlineImage.put(PdfName.L, new PdfNumber(100));
+            PdfCanvas canvas = new PdfCanvas(new PdfStream(), new PdfResources(), document);
+
+            InlineImageWriter.writeInlineImage(canvas, inlineImage, new PdfResources(),
+                    new float[] {1, 0, 0, 1, 0, 0});
+
+            String content = new String(canvas.getContentStream().getBytes(), StandardCharsets.ISO_8859_1);
+            Assertions.assertTrue(content.contains("/L 5"));
+            Assertions.assertFalse(content.contains("/L 100"));
+            Assertions.assertEquals(content.indexOf("/L "), content.lastIndexOf("/L "));
+        }
+    }
+
+    private static PdfStream createInlineImage(PdfName colorSpace) {
+        PdfStream inlineImage = new PdfStream("0a0b>".getBytes(StandardCharsets.ISO_8859_1));
+        inlineImage.put(PdfName.Width, new PdfNumber(2));
+        inlineImage.put(PdfName.Height, new PdfNumber(1));
+        inlineImage.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        inlineImage.put(PdfName.ColorSpace, colorSpace);
+        return inlineImage;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.pdfcleanup.autosweep.CommonRegex;
+import com.itextpdf.pdfcleanup.autosweep.CompositeCleanupStrategy;
+import com.itextpdf.pdfcleanup.autosweep.MultiPatternCleanupStrategy;
+import com.itextpdf.pdfcleanup.autosweep.PdfAutoSweepTools;
+import com.itextpdf.pdfcleanup.autosweep.RegexBasedCleanupStrategy;
+import com.itextpdf.pdfcleanup.util.CleanUpTestDocuments;
+import com.itextpdf.test.ExtendedITextTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("IntegrationTest")
+public class MultiPatternCleanupStrategyTest extends ExtendedITextTest {
+
+    @Test
+    public void locationsAndColorsTest() throws IOException {
+        MultiPatternCleanupStrategy strategy = new MultiPatternCleanupStrategy()
+                .add(Pattern.compile("secret", Pattern.CASE_INSENSITIVE), ColorConstants.RED)
+                .add(CommonRegex.US_SOCIAL_SECURITY_NUMBER, ColorConstants.GREEN);
+
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(createDocument())) {
+            List<PdfCleanUpLocation> locations = new PdfAutoSweepTools(strategy)
+                    .getPdfCleanUpLocations(pdfDocument.getPage(1));
+
+            Assertions.assertEquals(2, locations.size());
+            for (PdfCleanUpLocation location : locations) {
+                if (location.getRegion().getY() > 650) {
+                    Assertions.assertEquals(ColorConstants.RED, location.getCleanUpColor());
+                } else {
+                    Assertions.assertEquals(ColorConstants.GREEN, location.getCleanUpColor());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sameLocationsAsCompositeStrategyTest() throws IOException {
+        CompositeCleanupStrategy composite = new CompositeCleanupStrategy();
+        composite.add(new RegexBasedCleanupStrategy("Secret").setRedactionColor(ColorConstants.RED));
+        composite.add(new RegexBasedCleanupStrategy(CommonRegex.US_SOCIAL_SECURITY_NUMBER));
+        MultiPatternCleanupStrategy multiPattern = new MultiPatternCleanupStrategy()
+                .add(new RegexBasedCleanupStrategy("Secret").setRedactionColor(ColorConstants.RED))
+                .add(new RegexBasedCleanupStrategy(CommonRegex.US_SOCIAL_SECURITY_NUMBER));
+
+        assertSameLocations(composite, multiPattern, createDocument());
+    }
+
+    @Test
+    public void overlappingPatternsTest() throws IOException {
+        CompositeCleanupStrategy composite = new CompositeCleanupStrategy();
+        composite.add(new RegexBasedCleanupStrategy("abc").setRedactionColor(ColorConstants.RED));
+        composite.add(new RegexBasedCleanupStrategy("abcdef").setRedactionColor(ColorConstants.GREEN));
+        composite.add(new RegexBasedCleanupStrategy("def xyz").setRedactionColor(ColorConstants.BLUE));
+        MultiPatternCleanupStrategy multiPattern = new MultiPatternCleanupStrategy()
+                .add(Pattern.compile("abc"), ColorConstants.RED)
+                .add(Pattern.compile("abcdef"), ColorConstants.GREEN)
+                .add(Pattern.compile("def xyz"), ColorConstants.BLUE);
+        byte[] document = CleanUpTestDocuments.createDocument(pdfDocument ->
+                CleanUpTestDocuments.showText(new PdfCanvas(pdfDocument.addNewPage()), "abcdef xyz", 100, 700));
+
+        // every pattern is matched on its own, so the nested and the overlapping matches are all found
+        List<PdfCleanUpLocation> locations = assertSameLocations(composite, multiPattern, document);
+        Assertions.assertEquals(3, locations.size());
+    }
+
+    @Test
+    public void flagsAndNamedGroupsOfPatternsAreKeptTest() throws IOException {
+        MultiPatternCleanupStrategy strategy = new MultiPatternCleanupStrategy()
+                .add(Pattern.compile("(?<number>\\d{3})-\\k<number>", Pattern.CANON_EQ), ColorConstants.RED)
+                .add(Pattern.compile("(?<number>\\d{2})-", Pattern.CASE_INSENSITIVE), ColorConstants.GREEN)
+                .add(Pattern.compile("public", Pattern.CASE_INSENSITIVE | Pattern.LITERAL), ColorConstants.BLUE);
+        byte[] document = CleanUpTestDocuments.createDocument(pdfDocument -> {
+            PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+            CleanUpTestDocuments.showText(canvas, "123-123", 100, 700);
+            CleanUpTestDocuments.showText(canvas, "Public", 100, 500);
+        });
+
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(document)) {
+            List<PdfCleanUpLocation> locations = new PdfAutoSweepTools(strategy)
+                    .getPdfCleanUpLocations(pdfDocument.getPage(1));
+
+            // "123-123" is matched by the first two patterns, "Public" by the last one
+            Assertions.assertEquals(3, locations.size());
+            Assertions.assertEquals(ColorConstants.BLUE, locations.get(0).getCleanUpColor());
+        }
+    }
+
+    @Test
+    public void resetStrategyIsReusedForNextPageTest() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PdfCleaner.autoSweepCleanUp(new ByteArrayInputStream(createDocument()), output,
+                new MultiPatternCleanupStrategy().add("Secret").add(CommonRegex.US_SOCIAL_SECURITY_NUMBER, null));
+
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output.toByteArray())) {
+            for (int i = 1; i <= pdfDocument.getNumberOfPages(); ++i) {
+                String text = CleanUpTestDocuments.getText(pdfDocument, i);
+                Assertions.assertFalse(text.contains("Secret"));
+                Assertions.assertFalse(text.contains("123-45-6789"));
+                Assertions.assertTrue(text.contains("Public"));
+            }
+        }
+    }
+
+    @Test
+    public void noPatternsTest() {
+        Assertions.assertTrue(new MultiPatternCleanupStrategy().getResultantLocations().isEmpty());
+    }
+
+    private static List<PdfCleanUpLocation> assertSameLocations(CompositeCleanupStrategy composite,
+            MultiPatternCleanupStrategy multiPattern, byte[] document) throws IOException {
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(document)) {
+            List<PdfCleanUpLocation> expected = new PdfAutoSweepTools(composite).getPdfCleanUpLocations(pdfDocument);
+            List<PdfCleanUpLocation> actual = new PdfAutoSweepTools(multiPattern).getPdfCleanUpLocations(pdfDocument);
+
+            Assertions.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); ++i) {
+                Assertions.assertEquals(expected.get(i).getPage(), actual.get(i).getPage());
+                Assertions.assertTrue(expected.get(i).getRegion().equalsWithEpsilon(actual.get(i).getRegion()));
+                Assertions.assertEquals(expected.get(i).getCleanUpColor(), actual.get(i).getCleanUpColor());
+            }
+            return actual;
+        }
+    }
+
+    private static byte[] createDocument() throws IOException {
+        return CleanUpTestDocuments.createDocument(pdfDocument -> {
+            for (int i = 0; i < 2; ++i) {
+                PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+                CleanUpTestDocuments.showText(canvas, "Secret", 100, 700);
+                CleanUpTestDocuments.showText(canvas, "123-45-6789", 100, 600);
+                CleanUpTestDocuments.showText(canvas, "Public", 100, 500);
+            }
+        });
+    }
+}
@@ -23,9 +23,17 @@
 package com.itextpdf.pdfcleanup;
 
 import com.itextpdf.kernel.geom.Point;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.test.ExtendedITextTest;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -261,4 +269,48 @@ public class PdfCleanUpFilterUnitTest extends ExtendedITextTest {
         };
         Assertions.assertTrue(new PdfCleanUpFilter(new ArrayList<>(), new CleanUpProperties()).checkIfRectanglesIntersect(intersectSubject, intersecting));
     }
+
+    @Test
+    public void numberOfComponentsForDirectCleanupTest() {
+        Assertions.assertEquals(1, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(new PdfStream()));
+        Assertions.assertEquals(1, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(PdfName.DeviceGray)));
+        Assertions.assertEquals(3, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(PdfName.DeviceRGB)));
+        Assertions.assertEquals(4, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(PdfName.DeviceCMYK)));
+
+        PdfStream iccProfile = new PdfStream();
+        iccProfile.put(PdfName.N, new PdfNumber(3));
+        PdfArray iccBased = new PdfArray(Arrays.<PdfObject>asList(PdfName.ICCBased, iccProfile));
+        Assertions.assertEquals(3, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(iccBased)));
+
+        PdfArray indexed = new PdfArray(Arrays.<PdfObject>asList(PdfName.Indexed, PdfName.DeviceRGB,
+                new PdfNumber(1), new PdfString(new byte[6])));
+        Assertions.assertEquals(1, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(indexed)));
+
+        PdfArray indexedCmyk = new PdfArray(Arrays.<PdfObject>asList(PdfName.Indexed, PdfName.DeviceCMYK,
+                new PdfNumber(1), new PdfString(new byte[8])));
+        Assertions.assertEquals(1, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(indexedCmyk)));
+
+        PdfArray indexedSeparation = new PdfArray(Arrays.<PdfObject>asList(PdfName.Indexed,
+                new PdfArray(Arrays.<PdfObject>asList(PdfName.Separation, new PdfName("Spot"), PdfName.DeviceCMYK,
+                        new PdfDictionary())), new PdfNumber(1), new PdfString(new byte[2])));
+        Assertions.assertEquals(0, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(indexedSeparation)));
+
+        PdfArray separation = new PdfArray(Arrays.<PdfObject>asList(PdfName.Separation, new PdfName("Spot"),
+                PdfName.DeviceCMYK, new PdfDictionary()));
+        Assertions.assertEquals(0, PdfCleanUpFilter.getNumberOfComponentsForDirectCleanup(
+                createImageStream(separation)));
+    }
+
+    private static PdfStream createImageStream(PdfObject colorSpace) {
+        PdfStream imageStream = new PdfStream();
+        imageStream.put(PdfName.ColorSpace, colorSpace);
+        return imageStream;
+    }
 }
@@ -0,0 +1,188 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.io.source.ByteUtils;
+import com.itextpdf.kernel.colors.CalRgb;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.DeviceCmyk;
+import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.pdfcleanup.exceptions.CleanupExceptionMessageConstant;
+import com.itextpdf.test.ExtendedITextTest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+@Tag("UnitTest")
+public class PdfCleanUpLocationsManifestTest extends ExtendedITextTest {
+
+    @Test
+    public void writeAndReadManifestTest() throws IOException {
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        try (PdfDocument document = createDocument(3)) {
+            PdfCleanUpLocationsManifest.write(document, Arrays.asList(
+                    new PdfCleanUpLocation(3, new Rectangle(1, 2, 3, 4), ColorConstants.GREEN),
+                    new PdfCleanUpLocation(1, new Rectangle(5, 6, 7, 8)),
+                    new PdfCleanUpLocation(3, new Rectangle(9, 10, 11, 12), new DeviceCmyk(0, 0, 0, 100))
+            ), manifestBytes);
+
+            PdfCleanUpLocationsManifest manifest = PdfCleanUpLocationsManifest.read(manifestBytes.toByteArray());
+            manifest.checkDocument(document);
+            Assertions.assertArrayEquals(new int[] {1, 3}, manifest.getPages());
+            Assertions.assertNull(manifest.getPageRegions(2));
+
+            Iterator<PdfCleanUpPageRegions> iterator = manifest.iterator();
+            PdfCleanUpPageRegions firstPage = iterator.next();
+            Assertions.assertEquals(1, firstPage.getPage());
+            Assertions.assertEquals(1, firstPage.getRegionsCount());
+            Assertions.assertTrue(new Rectangle(5, 6, 7, 8).equalsWithEpsilon(firstPage.getRegion(0)));
+            Assertions.assertNull(firstPage.getCleanUpColor(0));
+
+            PdfCleanUpPageRegions thirdPage = iterator.next();
+            Assertions.assertEquals(3, thirdPage.getPage());
+            Assertions.assertEquals(2, thirdPage.getRegionsCount());
+            Assertions.assertTrue(new Rectangle(9, 10, 11, 12).equalsWithEpsilon(thirdPage.getRegion(1)));
+            Assertions.assertEquals(ColorConstants.GREEN, thirdPage.getCleanUpColor(0));
+            Assertions.assertEquals(new DeviceCmyk(0, 0, 0, 100), thirdPage.getCleanUpColor(1));
+            Assertions.assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void manifestOfDifferentDocumentTest() throws IOException {
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        try (PdfDocument document = createDocument(1)) {
+            PdfCleanUpLocationsManifest.write(document, Arrays.asList(
+                    new PdfCleanUpLocation(1, new Rectangle(1, 2, 3, 4))), manifestBytes);
+        }
+        PdfCleanUpLocationsManifest manifest = PdfCleanUpLocationsManifest.read(manifestBytes.toByteArray());
+        try (PdfDocument document = createDocument(2)) {
+            Exception e = Assertions.assertThrows(PdfException.class, () -> manifest.checkDocument(document));
+            Assertions.assertEquals(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_DOES_NOT_MATCH_DOCUMENT,
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void manifestOfDocumentWithDifferentContentTest() throws IOException {
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        try (PdfDocument document = createDocument(1)) {
+            PdfCleanUpLocationsManifest.write(document, Arrays.asList(
+                    new PdfCleanUpLocation(1, new Rectangle(1, 2, 3, 4))), manifestBytes);
+        }
+        PdfCleanUpLocationsManifest manifest = PdfCleanUpLocationsManifest.read(manifestBytes.toByteArray());
+        try (PdfDocument document = createDocument(1)) {
+            document.getPage(1).getFirstContentStream().setData(ByteUtils.getIsoBytes("0 0 10 10 re f"));
+            Exception e = Assertions.assertThrows(PdfException.class, () -> manifest.checkDocument(document));
+            Assertions.assertEquals(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_DOES_NOT_MATCH_DOCUMENT,
+                    e.getMessage());
+        }
+        try (PdfDocument document = createDocument(0)) {
+            document.addNewPage(PageSize.A3);
+            Exception e = Assertions.assertThrows(PdfException.class, () -> manifest.checkDocument(document));
+            Assertions.assertEquals(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_DOES_NOT_MATCH_DOCUMENT,
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void corruptedManifestTest() throws IOException {
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        try (PdfDocument document = createDocument(1)) {
+            PdfCleanUpLocationsManifest.write(document, Arrays.asList(
+                    new PdfCleanUpLocation(1, new Rectangle(1, 2, 3, 4))), manifestBytes);
+        }
+        byte[] truncated = Arrays.copyOf(manifestBytes.toByteArray(), manifestBytes.size() - 1);
+        Exception e = Assertions.assertThrows(PdfException.class, () -> PdfCleanUpLocationsManifest.read(truncated));
+        Assertions.assertEquals(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED, e.getMessage());
+
+        byte[] wrongMagic = manifestBytes.toByteArray();
+        wrongMagic[0] = 'X';
+        e = Assertions.assertThrows(PdfException.class, () -> PdfCleanUpLocationsManifest.read(wrongMagic));
+        Assertions.assertEquals(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED, e.getMessage());
+    }
+
+    @Test
+    public void corruptedCountsTest() throws IOException {
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        try (PdfDocument document = createDocument(1)) {
+            PdfCleanUpLocationsManifest.write(document, Arrays.asList(
+                    new PdfCleanUpLocation(1, new Rectangle(1, 2, 3, 4), ColorConstants.RED)), manifestBytes);
+        }
+        // magic bytes, version and fingerprint precede the colors count
+        int colorsCountOffset = 4 + 4 + 32;
+        int componentsCountOffset = colorsCountOffset + 4;
+        int pagesCountOffset = componentsCountOffset + 1 + 3 * 4;
+
+        for (int count : new int[] {-1, Integer.MAX_VALUE}) {
+            byte[] corruptedColorsCount = manifestBytes.toByteArray();
+            ByteBuffer.wrap(corruptedColorsCount).putInt(colorsCountOffset, count);
+            assertCorrupted(corruptedColorsCount);
+
+            byte[] corruptedPagesCount = manifestBytes.toByteArray();
+            ByteBuffer.wrap(corruptedPagesCount).putInt(pagesCountOffset, count);
+            assertCorrupted(corruptedPagesCount);
+        }
+
+        byte[] corruptedComponentsCount = manifestBytes.toByteArray();
+        corruptedComponentsCount[componentsCountOffset] = (byte) 0xFF;
+        assertCorrupted(corruptedComponentsCount);
+    }
+
+    @Test
+    public void nonDeviceColorIsNotStoredTest() throws IOException {
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        try (PdfDocument document = createDocument(1)) {
+            PdfCleanUpLocationsManifest.write(document, Arrays.asList(
+                    new PdfCleanUpLocation(1, new Rectangle(1, 2, 3, 4),
+                            new CalRgb(new float[] {0.9505f, 1, 1.089f}, new float[] {1, 0, 0}))), manifestBytes);
+        }
+        PdfCleanUpPageRegions regions = PdfCleanUpLocationsManifest.read(manifestBytes.toByteArray())
+                .getPageRegions(1);
+        Assertions.assertNull(regions.getCleanUpColor(0));
+    }
+
+    private static void assertCorrupted(byte[] manifest) {
+        Exception e = Assertions.assertThrows(PdfException.class, () -> PdfCleanUpLocationsManifest.read(manifest));
+        Assertions.assertEquals(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_IS_CORRUPTED, e.getMessage());
+    }
+
+    private static PdfDocument createDocument(int pagesCount) {
+        PdfDocument document = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        for (int i = 0; i < pagesCount; ++i) {
+            document.addNewPage();
+        }
+        return document;
+    }
+}
@@ -22,28 +22,39 @@
  */
 package com.itextpdf.pdfcleanup;
 
+import com.itextpdf.commons.utils.FileUtil;
 import com.itextpdf.io.logs.IoLogMessageConstant;
 import com.itextpdf.kernel.exceptions.PdfException;
+import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
 import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.WriterProperties;
 import com.itextpdf.kernel.pdf.annot.PdfAnnotation;
 import com.itextpdf.kernel.pdf.annot.PdfRedactAnnotation;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
 import com.itextpdf.kernel.utils.CompareTool;
 import com.itextpdf.pdfcleanup.autosweep.CompositeCleanupStrategy;
+import com.itextpdf.pdfcleanup.autosweep.PdfAutoSweepTools;
 import com.itextpdf.pdfcleanup.autosweep.RegexBasedCleanupStrategy;
 import com.itextpdf.pdfcleanup.exceptions.CleanupExceptionMessageConstant;
 import com.itextpdf.pdfcleanup.logs.CleanUpLogMessageConstant;
 import com.itextpdf.pdfcleanup.util.CleanUpImagesCompareTool;
+import com.itextpdf.pdfcleanup.util.CleanUpTestDocuments;
 import com.itextpdf.test.ExtendedITextTest;
 import com.itextpdf.test.annotations.LogMessage;
 import com.itextpdf.test.annotations.LogMessages;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -51,6 +62,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -963,6 +975,52 @@ public class PdfCleanUpToolTest extends ExtendedITextTest {
         compareByContent(cmp, output, OUTPUT_PATH, "diff_cleanUpDocument_");
     }
 
+    @Test
+    public void redactLipsumWithLocationsManifest() throws IOException, InterruptedException {
+        String input = INPUT_PATH + "Lipsum.pdf";
+        String manifest = OUTPUT_PATH + "cleanUpDocumentWithManifest.pslm";
+        String output = OUTPUT_PATH + "cleanUpDocumentWithManifest.pdf";
+        String cmp = INPUT_PATH + "cmp_cleanUpDocument.pdf";
+
+        CompositeCleanupStrategy strategy = new CompositeCleanupStrategy();
+        strategy.add(new RegexBasedCleanupStrategy("(D|d)olor").setRedactionColor(ColorConstants.GREEN));
+
+        // locate
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(input));
+                OutputStream manifestStream = FileUtil.getFileOutputStream(manifest)) {
+            new PdfAutoSweepTools(strategy).writeLocationsManifest(pdf, manifestStream);
+        }
+
+        // redact
+        PdfWriter writer = new PdfWriter(output);
+        writer.setCompressionLevel(0);
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(input), writer)) {
+            PdfCleaner.cleanUp(pdf, Paths.get(manifest), new CleanUpProperties());
+        }
+
+        compareByContent(cmp, output, OUTPUT_PATH, "diff_cleanUpDocumentWithManifest_");
+    }
+
+    @Test
+    public void locationsManifestOfDifferentDocumentTest() throws IOException {
+        String manifest = OUTPUT_PATH + "locationsManifestOfDifferentDocument.pslm";
+
+        CompositeCleanupStrategy strategy = new CompositeCleanupStrategy();
+        strategy.add(new RegexBasedCleanupStrategy("(D|d)olor"));
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(INPUT_PATH + "Lipsum.pdf"));
+                OutputStream manifestStream = FileUtil.getFileOutputStream(manifest)) {
+            new PdfAutoSweepTools(strategy).writeLocationsManifest(pdf, manifestStream);
+        }
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(INPUT_PATH + "page229.pdf"),
+                new PdfWriter(new ByteArrayOutputStream()))) {
+            Exception e = Assertions.assertThrows(PdfException.class,
+                    () -> PdfCleaner.cleanUp(pdf, Paths.get(manifest), new CleanUpProperties()));
+            Assertions.assertEquals(CleanupExceptionMessageConstant.LOCATIONS_MANIFEST_DOES_NOT_MATCH_DOCUMENT,
+                    e.getMessage());
+        }
+    }
+
     @Test
     public void cleanUpPageTest() throws IOException, InterruptedException {
         String input = INPUT_PATH + "Lipsum.pdf";
@@ -1084,6 +1142,159 @@ public class PdfCleanUpToolTest extends ExtendedITextTest {
         compareByContent(cmp, output, OUTPUT_PATH, "diff_directPropertyObject_");
     }
 
+    @Test
+    public void cleanUpWithPagesFlushingTest() throws IOException, InterruptedException {
+        String input = INPUT_PATH + "page229.pdf";
+        String output = OUTPUT_PATH + "page229_flushPages.pdf";
+        String cmp = INPUT_PATH + "cmp_page229_01.pdf";
+        List<PdfCleanUpLocation> cleanUpLocations = Arrays.asList(
+                new PdfCleanUpLocation(1, new Rectangle(240.0f, 602.3f, 275.7f - 240.0f, 614.8f - 602.3f), ColorConstants.GRAY),
+                new PdfCleanUpLocation(1, new Rectangle(171.3f, 550.3f, 208.4f - 171.3f, 562.8f - 550.3f), ColorConstants.GRAY),
+                new PdfCleanUpLocation(1, new Rectangle(270.7f, 459.2f, 313.1f - 270.7f, 471.7f - 459.2f), ColorConstants.GRAY),
+                new PdfCleanUpLocation(1, new Rectangle(249.9f, 329.3f, 279.6f - 249.9f, 341.8f - 329.3f), ColorConstants.GRAY),
+                new PdfCleanUpLocation(1, new Rectangle(216.2f, 303.3f, 273.0f - 216.2f, 315.8f - 303.3f), ColorConstants.GRAY));
+
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(input), new PdfWriter(output));
+        PdfCleaner.cleanUp(pdfDocument, cleanUpLocations, new CleanUpProperties().setFlushPagesAfterCleanUp(true));
+        Assertions.assertTrue(pdfDocument.getPage(1).isFlushed());
+        pdfDocument.close();
+
+        compareByContent(cmp, output, OUTPUT_PATH, "diff_flushPages_");
+    }
+
+    @Test
+    public void cleanUpRedactAnnotationsWithPagesFlushingTest() throws IOException, InterruptedException {
+        String input = INPUT_PATH + "page166_03.pdf";
+        String output = OUTPUT_PATH + "page166_03_flushPages.pdf";
+        String cmp = INPUT_PATH + "cmp_page166_03.pdf";
+
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(input), new PdfWriter(output));
+        PdfCleaner.cleanUpRedactAnnotations(pdfDocument, new CleanUpProperties().setFlushPagesAfterCleanUp(true));
+        pdfDocument.close();
+
+        compareByContent(cmp, output, OUTPUT_PATH, "diff_flushPages_03_");
+    }
+
+    @Test
+    public void cleanUpWithPageRegionsIteratorTest() throws IOException, InterruptedException {
+        String input = INPUT_PATH + "page229.pdf";
+        String output = OUTPUT_PATH + "page229_pageRegions.pdf";
+        String cmp = INPUT_PATH + "cmp_page229_01.pdf";
+        List<PdfCleanUpPageRegions> pageRegions = Arrays.asList(
+                new PdfCleanUpPageRegions(1, new float[] {
+                        240.0f, 602.3f, 275.7f - 240.0f, 614.8f - 602.3f,
+                        171.3f, 550.3f, 208.4f - 171.3f, 562.8f - 550.3f},
+                        new Color[] {ColorConstants.GRAY, ColorConstants.GRAY}),
+                new PdfCleanUpPageRegions(1, new float[] {
+                        270.7f, 459.2f, 313.1f - 270.7f, 471.7f - 459.2f,
+                        249.9f, 329.3f, 279.6f - 249.9f, 341.8f - 329.3f,
+                        216.2f, 303.3f, 273.0f - 216.2f, 315.8f - 303.3f},
+                        new Color[] {ColorConstants.GRAY, ColorConstants.GRAY, ColorConstants.GRAY}));
+
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(input), new PdfWriter(output));
+        PdfCleaner.cleanUp(pdfDocument, pageRegions.iterator(),
+                new CleanUpProperties().setFlushPagesAfterCleanUp(true));
+        pdfDocument.close();
+
+        compareByContent(cmp, output, OUTPUT_PATH, "diff_pageRegions_");
+    }
+
+    @Test
+    public void unsortedPageRegionsWithPagesFlushingTest() throws IOException {
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(INPUT_PATH + "documentWithRotatedPages.pdf"),
+                new PdfWriter(new ByteArrayOutputStream()));
+        List<PdfCleanUpPageRegions> pageRegions = Arrays.asList(
+                new PdfCleanUpPageRegions(1, new float[] {240.0f, 602.3f, 35.7f, 12.5f}),
+                new PdfCleanUpPageRegions(2, new float[] {240.0f, 602.3f, 35.7f, 12.5f}),
+                new PdfCleanUpPageRegions(1, new float[] {171.3f, 550.3f, 37.1f, 12.5f}));
+        CleanUpProperties properties = new CleanUpProperties().setFlushPagesAfterCleanUp(true);
+
+        Exception e = Assertions.assertThrows(PdfException.class,
+                () -> PdfCleaner.cleanUp(pdfDocument, pageRegions.iterator(), properties));
+        Assertions.assertEquals(CleanupExceptionMessageConstant.CLEANUP_REGIONS_SHOULD_BE_SORTED_BY_PAGE,
+                e.getMessage());
+    }
+
+    @Test
+    public void sharedResourcesWithPagesFlushingTest() throws IOException {
+        byte[] input = createDocumentWithSharedResources();
+        List<PdfCleanUpLocation> cleanUpLocations = Arrays.asList(
+                new PdfCleanUpLocation(1, new Rectangle(300, 300, 10, 10), null),
+                new PdfCleanUpLocation(3, new Rectangle(0, 0, 50, 100), null));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(input)),
+                new PdfWriter(output))) {
+            PdfCleaner.cleanUp(pdfDocument, cleanUpLocations, new CleanUpProperties().setFlushPagesAfterCleanUp(true));
+        }
+
+        assertSharedResourcesCleanedOnLastPage(output.toByteArray());
+    }
+
+    @Test
+    public void sharedResourcesWithPageRegionsIteratorTest() throws IOException {
+        byte[] input = createDocumentWithSharedResources();
+        List<PdfCleanUpPageRegions> pageRegions = Arrays.asList(
+                new PdfCleanUpPageRegions(1, new float[] {300, 300, 10, 10}),
+                new PdfCleanUpPageRegions(3, new float[] {0, 0, 50, 100}));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(input)),
+                new PdfWriter(output))) {
+            PdfCleaner.cleanUp(pdfDocument, pageRegions.iterator(),
+                    new CleanUpProperties().setFlushPagesAfterCleanUp(true));
+        }
+
+        assertSharedResourcesCleanedOnLastPage(output.toByteArray());
+    }
+
+    @Test
+    public void invalidPageRegionsCoordinatesTest() {
+        Exception e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new PdfCleanUpPageRegions(1, new float[] {1, 2, 3}));
+        Assertions.assertEquals(CleanupExceptionMessageConstant.CLEANUP_REGIONS_COORDINATES_LENGTH_INVALID,
+                e.getMessage());
+
+        e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new PdfCleanUpPageRegions(1, new float[] {1, 2, 3, 4}, new Color[2]));
+        Assertions.assertEquals(CleanupExceptionMessageConstant.CLEANUP_REGIONS_COLORS_COUNT_MISMATCH,
+                e.getMessage());
+    }
+
+    private static byte[] createDocumentWithSharedResources() throws IOException {
+        return CleanUpTestDocuments.createDocument(pdfDocument -> {
+            // the image and the form are drawn on every page, like a logo or a letterhead
+            PdfImageXObject image = CleanUpTestDocuments.createGrayImage(2, 2, new byte[] {1, 2, 3, 4});
+            PdfFormXObject form = new PdfFormXObject(new Rectangle(0, 0, 100, 100));
+            CleanUpTestDocuments.showText(new PdfCanvas(form, pdfDocument), "Secret", 10, 50);
+            for (int i = 0; i < 3; ++i) {
+                PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+                canvas.addXObjectWithTransformationMatrix(image, 100, 0, 0, 100, 0, 0);
+                canvas.addXObjectAt(form, 0, 0);
+            }
+        });
+    }
+
+    private static void assertSharedResourcesCleanedOnLastPage(byte[] output) throws IOException {
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output)) {
+            Assertions.assertTrue(CleanUpTestDocuments.getText(pdfDocument, 1).contains("Secret"));
+            Assertions.assertTrue(CleanUpTestDocuments.getText(pdfDocument, 2).contains("Secret"));
+            Assertions.assertFalse(CleanUpTestDocuments.getText(pdfDocument, 3).contains("Secret"));
+
+            PdfDictionary xObjects = pdfDocument.getPage(3).getResources().getResource(PdfName.XObject);
+            PdfStream cleanedImage = null;
+            for (PdfName name : xObjects.keySet()) {
+                if (PdfName.Image.equals(xObjects.getAsStream(name).getAsName(PdfName.Subtype))) {
+                    cleanedImage = xObjects.getAsStream(name);
+                }
+            }
+            Assertions.assertNotNull(cleanedImage);
+            byte[] samples = cleanedImage.getBytes();
+            Assertions.assertNotEquals(1, samples[0]);
+            Assertions.assertEquals(2, samples[1]);
+            Assertions.assertNotEquals(3, samples[2]);
+            Assertions.assertEquals(4, samples[3]);
+        }
+    }
+
     private void cleanUp(String input, String output, List<PdfCleanUpLocation> cleanUpLocations) throws IOException {
         PdfDocument pdfDocument = new PdfDocument(new PdfReader(input), new PdfWriter(output));
 
@@ -24,10 +24,19 @@ package com.itextpdf.pdfcleanup;
 
 
 import com.itextpdf.io.logs.IoLogMessageConstant;
+import com.itextpdf.io.source.ByteUtils;
 import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.ImageRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
 import com.itextpdf.kernel.utils.CompareTool;
 import com.itextpdf.pdfcleanup.util.CleanUpImagesCompareTool;
 import com.itextpdf.test.ExtendedITextTest;
@@ -39,9 +48,14 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @Tag("IntegrationTest")
 public class PdfCleanUpToolWithInlineImagesTest extends ExtendedITextTest {
@@ -101,6 +115,40 @@ public class PdfCleanUpToolWithInlineImagesTest extends ExtendedITextTest {
         }
     }
 
+    @Test
+    public void inlineImageSamplesCleanedDirectlyTest() throws IOException {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfWriter(input))) {
+            PdfPage page = pdfDocument.addNewPage();
+            page.getFirstContentStream().setData(ByteUtils.getIsoBytes(
+                    "q 100 0 0 100 0 0 cm BI /W 2 /H 2 /BPC 8 /CS /G /F /AHx ID 0a141e28> EI Q"));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PdfCleaner.cleanUp(new ByteArrayInputStream(input.toByteArray()), output,
+                Arrays.asList(new PdfCleanUpLocation(1, new Rectangle(0, 0, 50, 100), null)));
+
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(output.toByteArray())))) {
+            final List<PdfStream> inlineImages = new ArrayList<>();
+            new PdfCanvasProcessor(new IEventListener() {
+                @Override
+                public void eventOccurred(IEventData data, EventType type) {
+                    inlineImages.add(((ImageRenderInfo) data).getImage().getPdfObject());
+                }
+
+                @Override
+                public Set<EventType> getSupportedEvents() {
+                    return Collections.singleton(EventType.RENDER_IMAGE);
+                }
+            }).processPageContent(pdfDocument.getPage(1));
+
+            Assertions.assertEquals(1, inlineImages.size());
+            Assertions.assertEquals(PdfName.ASCIIHexDecode, inlineImages.get(0).getAsName(PdfName.Filter));
+            Assertions.assertArrayEquals(new byte[] {0x00, 0x14, 0x00, 0x28},
+                    inlineImages.get(0).getBytes());
+        }
+    }
+
     private void cleanUp(String input, String output, List<PdfCleanUpLocation> cleanUpLocations) throws IOException {
         PdfDocument pdfDocument = new PdfDocument(new PdfReader(input), new PdfWriter(output));
 
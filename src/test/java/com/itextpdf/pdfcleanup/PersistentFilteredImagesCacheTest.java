@@ -0,0 +1,153 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.test.ExtendedITextTest;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("IntegrationTest")
+public class PersistentFilteredImagesCacheTest extends ExtendedITextTest {
+
+    private static final String outputPath =
+            "./target/test/com/itextpdf/pdfcleanup/PersistentFilteredImagesCacheTest/";
+
+    private static final ImagePixelAreas AREAS = ImagePixelAreas.create(
+            Collections.singletonList(new Rectangle(0, 0.5f, 0.5f, 0.5f)), 2, 2);
+
+    @BeforeAll
+    public static void before() {
+        createOrClearDestinationFolder(outputPath);
+    }
+
+    @Test
+    public void filteredImageIsSharedBetweenCacheInstancesTest() {
+        String directory = outputPath + "shared/";
+        PdfStream image = createGrayImage(new byte[] {1, 2, 3, 4});
+        PdfStream filteredImage = (PdfStream) image.clone();
+        filteredImage.setData(new byte[] {0, 2, 3, 4});
+        ImageContentHash hash = ImageContentHash.calculate(image);
+
+        new PersistentFilteredImagesCache(directory, 1024).put(hash, AREAS, filteredImage);
+        PdfStream cachedImage = new PersistentFilteredImagesCache(directory, 1024).get(hash, AREAS, image);
+
+        Assertions.assertNotNull(cachedImage);
+        Assertions.assertArrayEquals(new byte[] {0, 2, 3, 4}, cachedImage.getBytes(false));
+        Assertions.assertEquals(PdfName.DeviceGray, cachedImage.getAsName(PdfName.ColorSpace));
+        Assertions.assertNull(new PersistentFilteredImagesCache(directory, 1024).get(hash, ImagePixelAreas.create(
+                Collections.singletonList(new Rectangle(0, 0, 0.5f, 0.5f)), 2, 2), image));
+        Assertions.assertNull(new PersistentFilteredImagesCache(directory, 1024).get(
+                ImageContentHash.calculate(createGrayImage(new byte[] {1, 2, 3, 5})), AREAS, image));
+    }
+
+    @Test
+    public void originalFiltersAreKeptTest() {
+        String directory = outputPath + "filters/";
+        PdfStream image = createGrayImage(new byte[] {1, 2, 3, 4});
+        image.put(PdfName.Filter, PdfName.FlateDecode);
+        PdfStream filteredImage = PdfCleanUpFilter.createStreamWithEncodedData(image, new byte[] {5, 6, 7});
+        ImageContentHash hash = ImageContentHash.calculate(image);
+
+        PersistentFilteredImagesCache cache = new PersistentFilteredImagesCache(directory, 1024);
+        cache.put(hash, AREAS, filteredImage);
+        PdfStream cachedImage = cache.get(hash, AREAS, image);
+
+        Assertions.assertNotNull(cachedImage);
+        Assertions.assertEquals(PdfName.FlateDecode, cachedImage.getAsName(PdfName.Filter));
+        Assertions.assertArrayEquals(new byte[] {5, 6, 7}, cachedImage.getBytes(false));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedTest() throws IOException {
+        String directory = outputPath + "eviction/";
+        PdfStream firstImage = createGrayImage(new byte[] {1, 2, 3, 4});
+        PdfStream secondImage = createGrayImage(new byte[] {5, 6, 7, 8});
+        PdfStream filteredImage = createGrayImage(new byte[40]);
+        ImageContentHash firstHash = ImageContentHash.calculate(firstImage);
+        ImageContentHash secondHash = ImageContentHash.calculate(secondImage);
+
+        PersistentFilteredImagesCache cache = new PersistentFilteredImagesCache(directory, 100);
+        cache.put(firstHash, AREAS, filteredImage);
+        List<Path> entries = listEntries(directory);
+        Assertions.assertEquals(1, entries.size());
+        Files.setLastModifiedTime(entries.get(0), FileTime.fromMillis(System.currentTimeMillis() - 60000));
+        cache.put(secondHash, AREAS, filteredImage);
+
+        Assertions.assertEquals(1, listEntries(directory).size());
+        Assertions.assertNull(cache.get(firstHash, AREAS, firstImage));
+        Assertions.assertNotNull(cache.get(secondHash, AREAS, secondImage));
+    }
+
+    @Test
+    public void corruptedEntryIsIgnoredTest() throws IOException {
+        String directory = outputPath + "corrupted/";
+        PdfStream image = createGrayImage(new byte[] {1, 2, 3, 4});
+        ImageContentHash hash = ImageContentHash.calculate(image);
+
+        PersistentFilteredImagesCache cache = new PersistentFilteredImagesCache(directory, 1024);
+        cache.put(hash, AREAS, createGrayImage(new byte[] {0, 2, 3, 4}));
+        Path entry = listEntries(directory).get(0);
+        byte[] content = Files.readAllBytes(entry);
+        content[content.length - 1] ^= 1;
+        Files.write(entry, content);
+
+        Assertions.assertNull(cache.get(hash, AREAS, image));
+        Assertions.assertTrue(listEntries(directory).isEmpty());
+    }
+
+    private static List<Path> listEntries(String directory) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory), "*.img")) {
+            for (Path entry : stream) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static PdfStream createGrayImage(byte[] samples) {
+        PdfStream imageStream = new PdfStream(samples);
+        imageStream.put(PdfName.Type, PdfName.XObject);
+        imageStream.put(PdfName.Subtype, PdfName.Image);
+        imageStream.put(PdfName.Width, new PdfNumber(2));
+        imageStream.put(PdfName.Height, new PdfNumber(2));
+        imageStream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        imageStream.put(PdfName.ColorSpace, PdfName.DeviceGray);
+        return imageStream;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
+import com.itextpdf.pdfcleanup.util.CleanUpTestDocuments;
+import com.itextpdf.test.ExtendedITextTest;
+import java.io.IOException;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("IntegrationTest")
+public class ScannedPageCleanUpTest extends ExtendedITextTest {
+
+    @Test
+    public void scannedPageIsRecognizedTest() throws IOException {
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(
+                createPage(PdfCanvasConstants.TextRenderingMode.INVISIBLE))) {
+            Assertions.assertTrue(ScannedPageClassifier.isScannedPage(pdfDocument.getPage(1)));
+        }
+    }
+
+    @Test
+    public void pageWithVisibleTextIsNotScannedTest() throws IOException {
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(
+                createPage(PdfCanvasConstants.TextRenderingMode.FILL))) {
+            Assertions.assertFalse(ScannedPageClassifier.isScannedPage(pdfDocument.getPage(1)));
+        }
+    }
+
+    @Test
+    public void scannedPageCleanUpTest() throws IOException {
+        byte[] output = CleanUpTestDocuments.cleanUp(createPage(PdfCanvasConstants.TextRenderingMode.INVISIBLE),
+                Collections.singletonList(new PdfCleanUpLocation(1, new Rectangle(0, 40, 100, 30), null)),
+                new CleanUpProperties().setOptimizeScannedPages(true));
+
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output)) {
+            String text = CleanUpTestDocuments.getText(pdfDocument, 1);
+            Assertions.assertFalse(text.contains("Secret"));
+            Assertions.assertTrue(text.contains("Public"));
+
+            byte[] samples = CleanUpTestDocuments.getSingleXObject(pdfDocument.getPage(1)).getBytes();
+            Assertions.assertNotEquals(1, samples[0]);
+            Assertions.assertEquals(2, samples[1]);
+        }
+    }
+
+    private static byte[] createPage(int textRenderingMode) throws IOException {
+        return CleanUpTestDocuments.createDocument(pdfDocument -> {
+            PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+            canvas.addXObjectWithTransformationMatrix(CleanUpTestDocuments.createGrayImage(2, 1, new byte[] {1, 2}),
+                    200, 0, 0, 30, 0, 40);
+            CleanUpTestDocuments.showText(canvas, "Secret", 10, 50, textRenderingMode);
+            CleanUpTestDocuments.showText(canvas, "Public", 120, 50, textRenderingMode);
+        });
+    }
+}
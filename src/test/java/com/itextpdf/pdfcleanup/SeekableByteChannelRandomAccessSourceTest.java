@@ -0,0 +1,118 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.test.ExtendedITextTest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+@Tag("UnitTest")
+public class SeekableByteChannelRandomAccessSourceTest extends ExtendedITextTest {
+
+    private static final String destinationFolder =
+            "./target/test/com/itextpdf/pdfcleanup/SeekableByteChannelRandomAccessSourceTest/";
+
+    @BeforeAll
+    public static void beforeClass() {
+        createOrClearDestinationFolder(destinationFolder);
+    }
+
+    @Test
+    public void singleByteReadsTest() throws IOException {
+        byte[] data = createData(100);
+        Path file = writeData("singleByteReads.bin", data);
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            SeekableByteChannelRandomAccessSource source = new SeekableByteChannelRandomAccessSource(channel, 16);
+            Assertions.assertEquals(100, source.length());
+            for (int i = 99; i >= 0; --i) {
+                Assertions.assertEquals(data[i] & 0xff, source.get(i));
+            }
+            Assertions.assertEquals(-1, source.get(100));
+            Assertions.assertEquals(-1, source.get(-1));
+        }
+    }
+
+    @Test
+    public void rangeReadsTest() throws IOException {
+        byte[] data = createData(100);
+        Path file = writeData("rangeReads.bin", data);
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            SeekableByteChannelRandomAccessSource source = new SeekableByteChannelRandomAccessSource(channel, 16);
+            byte[] buffer = new byte[40];
+
+            // crosses several windows
+            Assertions.assertEquals(10, source.get(5, buffer, 0, 10));
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 5, 15), Arrays.copyOfRange(buffer, 0, 10));
+
+            // bigger than the window, read directly from the channel
+            Assertions.assertEquals(40, source.get(30, buffer, 0, 40));
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 30, 70), buffer);
+
+            // truncated at the end of the channel
+            Assertions.assertEquals(5, source.get(95, buffer, 0, 40));
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 95, 100), Arrays.copyOfRange(buffer, 0, 5));
+
+            Assertions.assertEquals(-1, source.get(100, buffer, 0, 40));
+
+            // zero-length reads inside the channel are not the end of it
+            Assertions.assertEquals(0, source.get(50, buffer, 0, 0));
+            Assertions.assertEquals(-1, source.get(100, buffer, 0, 0));
+        }
+    }
+
+    @Test
+    public void channelIsNotClosedTest() throws IOException {
+        Path file = writeData("channelIsNotClosed.bin", createData(10));
+        try (SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            SeekableByteChannelRandomAccessSource source = new SeekableByteChannelRandomAccessSource(channel);
+            Assertions.assertEquals(0, source.get(0));
+            source.close();
+            Assertions.assertTrue(channel.isOpen());
+        }
+    }
+
+    private static byte[] createData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            data[i] = (byte) (i * 7);
+        }
+        return data;
+    }
+
+    private static Path writeData(String fileName, byte[] data) throws IOException {
+        Path file = Paths.get(destinationFolder + fileName);
+        Files.write(file, data);
+        return file;
+    }
+}
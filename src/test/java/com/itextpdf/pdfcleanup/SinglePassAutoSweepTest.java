@@ -0,0 +1,102 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup;
+
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.pdfcleanup.autosweep.RegexBasedCleanupStrategy;
+import com.itextpdf.pdfcleanup.util.CleanUpTestDocuments;
+import com.itextpdf.test.ExtendedITextTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("IntegrationTest")
+public class SinglePassAutoSweepTest extends ExtendedITextTest {
+
+    @Test
+    public void singlePassGivesSameResultAsTwoPassesTest() throws IOException {
+        byte[] input = createDocument();
+        byte[] twoPasses = autoSweep(input, new CleanUpProperties());
+        byte[] singlePass = autoSweep(input, new CleanUpProperties().setSinglePassAutoSweep(true));
+
+        try (PdfDocument expected = CleanUpTestDocuments.openDocument(twoPasses);
+                PdfDocument actual = CleanUpTestDocuments.openDocument(singlePass)) {
+            Assertions.assertEquals(expected.getNumberOfPages(), actual.getNumberOfPages());
+            for (int i = 1; i <= actual.getNumberOfPages(); ++i) {
+                Assertions.assertArrayEquals(expected.getPage(i).getContentBytes(),
+                        actual.getPage(i).getContentBytes());
+                Assertions.assertEquals(CleanUpTestDocuments.getText(expected, i),
+                        CleanUpTestDocuments.getText(actual, i));
+            }
+            Assertions.assertFalse(CleanUpTestDocuments.getText(actual, 1).contains("Secret"));
+            Assertions.assertTrue(CleanUpTestDocuments.getText(actual, 1).contains("Public"));
+            Assertions.assertTrue(CleanUpTestDocuments.getText(actual, 2).contains("Public"));
+            Assertions.assertFalse(CleanUpTestDocuments.getText(actual, 3).contains("Secret"));
+        }
+    }
+
+    @Test
+    public void singlePassWithAdditionalLocationsTest() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PdfCleaner.autoSweepCleanUp(new ByteArrayInputStream(createDocument()), output,
+                new RegexBasedCleanupStrategy("Secret"),
+                Collections.singletonList(new PdfCleanUpLocation(2, new Rectangle(0, 0, 600, 800), null)),
+                new CleanUpProperties().setSinglePassAutoSweep(true).setFlushPagesAfterCleanUp(true));
+
+        try (PdfDocument pdfDocument = CleanUpTestDocuments.openDocument(output.toByteArray())) {
+            Assertions.assertTrue(CleanUpTestDocuments.getText(pdfDocument, 1).contains("Public"));
+            Assertions.assertFalse(CleanUpTestDocuments.getText(pdfDocument, 1).contains("Secret"));
+            Assertions.assertEquals("", CleanUpTestDocuments.getText(pdfDocument, 2));
+            Assertions.assertFalse(CleanUpTestDocuments.getText(pdfDocument, 3).contains("Secret"));
+        }
+    }
+
+    private static byte[] autoSweep(byte[] input, CleanUpProperties properties) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PdfCleaner.autoSweepCleanUp(new ByteArrayInputStream(input), output, new RegexBasedCleanupStrategy("Secret"),
+                properties);
+        return output.toByteArray();
+    }
+
+    private static byte[] createDocument() throws IOException {
+        return CleanUpTestDocuments.createDocument(pdfDocument -> {
+            PdfCanvas canvas = new PdfCanvas(pdfDocument.addNewPage());
+            canvas.rectangle(0, 0, 300, 300).fill();
+            CleanUpTestDocuments.showText(canvas, "Secret", 100, 700);
+            CleanUpTestDocuments.showText(canvas, "Public", 100, 600);
+
+            CleanUpTestDocuments.showText(new PdfCanvas(pdfDocument.addNewPage()), "Public", 100, 700);
+
+            PdfFormXObject form = new PdfFormXObject(new Rectangle(0, 0, 200, 100));
+            CleanUpTestDocuments.showText(new PdfCanvas(form, pdfDocument), "Secret", 10, 50);
+            new PdfCanvas(pdfDocument.addNewPage()).addXObjectAt(form, 100, 600);
+        });
+    }
+}
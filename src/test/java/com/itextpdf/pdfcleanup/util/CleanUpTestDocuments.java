@@ -0,0 +1,124 @@
+/*
+    This file is part of the iText (R) project.
+    Copyright (c) 1998-2025 Apryse Group NV
+    Authors: Apryse Software.
+
+    This program is offered under a commercial and under the AGPL license.
+    For commercial licensing, contact us at https://itextpdf.com/sales.  For AGPL licensing, see below.
+
+    AGPL licensing:
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.itextpdf.pdfcleanup.util;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.itextpdf.pdfcleanup.CleanUpProperties;
+import com.itextpdf.pdfcleanup.PdfCleanUpLocation;
+import com.itextpdf.pdfcleanup.PdfCleaner;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Builds small in-memory documents for the tests which check a single aspect of the clean up, and reads the results.
+ */
+public final class CleanUpTestDocuments {
+
+    private CleanUpTestDocuments() {
+        // empty constructor
+    }
+
+    /**
+     * Draws the content of a test document.
+     */
+    @FunctionalInterface
+    public interface IDocumentContent {
+        void draw(PdfDocument pdfDocument) throws IOException;
+    }
+
+    public static byte[] createDocument(IDocumentContent content) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PdfDocument pdfDocument = new PdfDocument(new PdfWriter(output))) {
+            content.draw(pdfDocument);
+        }
+        return output.toByteArray();
+    }
+
+    public static PdfDocument openDocument(byte[] pdf) throws IOException {
+        return new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+    }
+
+    public static byte[] cleanUp(byte[] input, List<PdfCleanUpLocation> cleanUpLocations,
+            CleanUpProperties properties) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PdfCleaner.cleanUp(new ByteArrayInputStream(input), output, cleanUpLocations, properties);
+        return output.toByteArray();
+    }
+
+    /**
+     * Creates an uncompressed DeviceGray image with eight bits per component.
+     */
+    public static PdfImageXObject createGrayImage(int width, int height, byte[] samples) {
+        PdfStream imageStream = new PdfStream(samples);
+        imageStream.put(PdfName.Type, PdfName.XObject);
+        imageStream.put(PdfName.Subtype, PdfName.Image);
+        imageStream.put(PdfName.Width, new PdfNumber(width));
+        imageStream.put(PdfName.Height, new PdfNumber(height));
+        imageStream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+        imageStream.put(PdfName.ColorSpace, PdfName.DeviceGray);
+        return new PdfImageXObject(imageStream);
+    }
+
+    public static void showText(PdfCanvas canvas, String text, float x, float y) throws IOException {
+        showText(canvas, text, x, y, PdfCanvasConstants.TextRenderingMode.FILL);
+    }
+
+    public static void showText(PdfCanvas canvas, String text, float x, float y, int textRenderingMode)
+            throws IOException {
+        canvas.beginText()
+                .setFontAndSize(PdfFontFactory.createFont(StandardFonts.HELVETICA), 12)
+                .setTextRenderingMode(textRenderingMode)
+                .moveText(x, y)
+                .showText(text)
+                .endText();
+    }
+
+    public static String getText(PdfDocument pdfDocument, int pageNumber) {
+        return PdfTextExtractor.getTextFromPage(pdfDocument.getPage(pageNumber));
+    }
+
+    /**
+     * Gets the only XObject of the page resources.
+     */
+    public static PdfStream getSingleXObject(PdfPage page) {
+        PdfDictionary xObjects = page.getResources().getResource(PdfName.XObject);
+        Assertions.assertEquals(1, xObjects.size());
+        return xObjects.getAsStream(xObjects.keySet().iterator().next());
+    }
+}